@@ -3,6 +3,7 @@ package com.sirius.api;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication(scanBasePackages = "com.sirius")
@@ -10,7 +11,15 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @EntityScan(basePackages = "com.sirius.data.entity")
 public class SiriusApplication {
     
+    /**
+     * Startup steps kept for {@code /actuator/startup} and the startup report; enough for every
+     * bean of the application several times over.
+     */
+    private static final int STARTUP_STEPS = 10_000;
+    
     public static void main(String[] args) {
-        SpringApplication.run(SiriusApplication.class, args);
+        SpringApplication application = new SpringApplication(SiriusApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 }
@@ -0,0 +1,43 @@
+package com.sirius.api.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.Filter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Controller;
+
+import javax.sql.DataSource;
+
+/**
+ * Beans created eagerly even under the {@code lazy} profile: everything on the request path, so the
+ * first requests after startup do not pay for connection pools, the JPA bootstrap or the security
+ * chain. Beans with {@code @Scheduled} methods and lifecycle beans are always eager.
+ */
+@Configuration
+public class LazyInitializationConfig {
+    
+    private static final Class<?>[] CRITICAL_TYPES = {
+        DataSource.class, EntityManagerFactory.class, RedisConnectionFactory.class, Filter.class
+    };
+    
+    @Bean
+    public static LazyInitializationExcludeFilter requestPathBeans() {
+        return (beanName, beanDefinition, beanType) -> {
+            if (beanType == null) {
+                return false;
+            }
+            if (AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)) {
+                return true;
+            }
+            for (Class<?> critical : CRITICAL_TYPES) {
+                if (critical.isAssignableFrom(beanType)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.sirius.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logs the beans that took longest to create once the application is ready. Times are self
+ * times: a bean's creation minus the beans created while it was being injected, so the
+ * expensive bean itself is named rather than whatever happened to depend on it first. The full
+ * timeline stays available from {@code /actuator/startup}.
+ */
+@Slf4j
+@Component
+public class StartupReport {
+    
+    private static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+    
+    @Value("${sirius.startup.report-size:15}")
+    private int reportSize;
+    
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        if (reportSize <= 0 || !(event.getSpringApplication().getApplicationStartup()
+                instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        List<StartupTimeline.TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+        Map<Long, Duration> childTime = new HashMap<>();
+        for (StartupTimeline.TimelineEvent step : events) {
+            Long parent = step.getStartupStep().getParentId();
+            if (parent != null) {
+                childTime.merge(parent, step.getDuration(), Duration::plus);
+            }
+        }
+        List<Map.Entry<String, Duration>> slowest = events.stream()
+            .filter(step -> BEAN_INSTANTIATION.equals(step.getStartupStep().getName()))
+            .map(step -> Map.entry(beanName(step.getStartupStep()),
+                step.getDuration().minus(childTime.getOrDefault(step.getStartupStep().getId(), Duration.ZERO))))
+            .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+            .limit(reportSize)
+            .toList();
+        StringBuilder report = new StringBuilder();
+        slowest.forEach(bean -> report.append(String.format("%n  %6d ms  %s", bean.getValue().toMillis(), bean.getKey())));
+        log.info("Ready in {} ms; slowest beans by self time:{}",
+            event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1, report);
+    }
+    
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
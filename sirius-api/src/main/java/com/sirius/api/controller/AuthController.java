@@ -1,22 +1,35 @@
 package com.sirius.api.controller;
 
+import com.sirius.core.audit.AuditEvent;
+import com.sirius.core.audit.AuditEventType;
+import com.sirius.core.audit.AuditLog;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import com.sirius.api.security.ApiRateLimiters;
 import com.sirius.api.security.JwtTokenProvider;
+import com.sirius.api.security.PasswordEncoderBusyException;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -24,26 +37,55 @@ import jakarta.validation.constraints.NotBlank;
 public class AuthController {
     
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final ApiRateLimiters rateLimiters;
+    private final AuditLog auditLog;
     
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-        );
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+                                              HttpServletRequest httpRequest) {
+        Duration retryAfter = rateLimiters.tryAcquireLogin(request.getUsername(), httpRequest.getRemoteAddr());
+        if (retryAfter != null) {
+            audit(AuditEventType.LOGIN_RATE_LIMITED, request.getUsername(), null, httpRequest);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                .build();
+        }
+        
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
+            );
+        } catch (AuthenticationException e) {
+            audit(AuditEventType.LOGIN_FAILED, request.getUsername(), e.getClass().getSimpleName(), httpRequest);
+            throw e;
+        }
         
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String token = jwtTokenProvider.generateToken(userDetails);
+        audit(AuditEventType.LOGIN_SUCCEEDED, userDetails.getUsername(), null, httpRequest);
         
         return ResponseEntity.ok(new AuthResponse(token, "Bearer"));
     }
     
+    @ExceptionHandler(PasswordEncoderBusyException.class)
+    public ResponseEntity<Void> loginBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .build();
+    }
+    
+    private void audit(AuditEventType type, String username, String detail, HttpServletRequest request) {
+        auditLog.record(AuditEvent.of(type, username, detail, request.getRemoteAddr()));
+    }
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
     static class LoginRequest {
         @NotBlank
+        @Size(max = 50)
         private String username;
         
         @NotBlank
@@ -0,0 +1,75 @@
+package com.sirius.api.controller;
+
+import com.sirius.core.fx.FxRateService;
+import com.sirius.core.fx.FxRateSnapshot;
+import com.sirius.core.fx.FxRateUnavailableException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Exchange rates, current or as of a past valid time and knowledge time.
+ */
+@RestController
+@RequestMapping("/api/fx")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "sirius.fx", name = "enabled", havingValue = "true", matchIfMissing = true)
+@PreAuthorize("hasPermission(null, 'FX_READ')")
+public class FxRateController {
+    
+    private final FxRateService fxRateService;
+    
+    /**
+     * Without {@code validAt} the current rate; {@code knownAt} defaults to now.
+     */
+    @GetMapping("/rates/{from}/{to}")
+    public Rate rate(@PathVariable String from, @PathVariable String to,
+                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Nullable Instant validAt,
+                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Nullable Instant knownAt) {
+        String fromCode = from.toUpperCase(Locale.ROOT);
+        String toCode = to.toUpperCase(Locale.ROOT);
+        if (validAt == null && knownAt == null) {
+            FxRateSnapshot snapshot = fxRateService.current();
+            return new Rate(fromCode, toCode, snapshot.rate(fromCode, toCode), null, null, snapshot.getAsOf());
+        }
+        Instant valid = validAt != null ? validAt : Instant.now();
+        Instant known = knownAt != null ? knownAt : Instant.now();
+        return new Rate(fromCode, toCode, fxRateService.rateAsOf(fromCode, toCode, valid, known), valid, known, null);
+    }
+    
+    @ExceptionHandler(FxRateUnavailableException.class)
+    public ResponseEntity<String> unavailable(FxRateUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    
+    @Data
+    @AllArgsConstructor
+    static class Rate {
+        private String from;
+        private String to;
+        private double rate;
+        private Instant validAt;
+        private Instant knownAt;
+        private String asOf;
+    }
+}
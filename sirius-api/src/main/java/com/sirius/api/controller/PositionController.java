@@ -0,0 +1,76 @@
+package com.sirius.api.controller;
+
+import com.sirius.core.money.FixedPoint;
+import com.sirius.core.position.CashPositionEngine;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Real-time cash positions, answered from memory. {@code asOf} is the last treasury event
+ * reflected in the figures.
+ */
+@RestController
+@RequestMapping("/api/positions")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "sirius.positions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PositionController {
+    
+    private final CashPositionEngine cashPositionEngine;
+    
+    @PreAuthorize("hasPermission(#entityId, 'POSITION_READ')")
+    @GetMapping("/{entityId}")
+    public EntityPositions entity(@PathVariable String entityId) {
+        String asOf = cashPositionEngine.getLastAppliedId();
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        cashPositionEngine.entityBalances(entityId)
+            .forEach((currency, units) -> balances.put(currency, FixedPoint.toBigDecimal(units)));
+        return new EntityPositions(entityId, balances, asOf);
+    }
+    
+    @PreAuthorize("hasPermission(#entityId, 'POSITION_READ')")
+    @GetMapping("/{entityId}/{accountId}/{currency}")
+    public AccountPosition account(@PathVariable String entityId, @PathVariable String accountId,
+                                   @PathVariable String currency) {
+        String asOf = cashPositionEngine.getLastAppliedId();
+        String code = currency.toUpperCase(Locale.ROOT);
+        long units = cashPositionEngine.balance(entityId, accountId, code);
+        return new AccountPosition(entityId, accountId, code, FixedPoint.toBigDecimal(units), asOf);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    
+    @Data
+    @AllArgsConstructor
+    static class EntityPositions {
+        private String entityId;
+        private Map<String, BigDecimal> balances;
+        private String asOf;
+    }
+    
+    @Data
+    @AllArgsConstructor
+    static class AccountPosition {
+        private String entityId;
+        private String accountId;
+        private String currency;
+        private BigDecimal balance;
+        private String asOf;
+    }
+}
@@ -0,0 +1,82 @@
+package com.sirius.api.controller;
+
+import com.sirius.api.security.RoleAdministrationService;
+import com.sirius.api.security.RoleDefinitionRegistry;
+import com.sirius.core.security.Permission;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Role definitions and role assignments. Changes take effect on every node: definition changes
+ * at once, role assignments with the user's next token.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@PreAuthorize("hasPermission(null, 'ROLE_ADMIN')")
+public class RoleController {
+    
+    private final RoleAdministrationService roleAdministrationService;
+    private final RoleDefinitionRegistry roleDefinitions;
+    
+    @GetMapping("/roles")
+    public Map<String, Set<Permission>> roles() {
+        Map<String, Set<Permission>> roles = new TreeMap<>();
+        roleDefinitions.current().getRoles().forEach((role, bits) -> roles.put(role, Permission.of(bits)));
+        return roles;
+    }
+    
+    @PutMapping("/roles/{role}/permissions/{permission}")
+    public ResponseEntity<Void> grantPermission(@AuthenticationPrincipal UserDetails actor,
+                                                @PathVariable String role, @PathVariable Permission permission) {
+        roleAdministrationService.grantPermission(actor.getUsername(), role, permission);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @DeleteMapping("/roles/{role}/permissions/{permission}")
+    public ResponseEntity<Void> revokePermission(@AuthenticationPrincipal UserDetails actor,
+                                                 @PathVariable String role, @PathVariable Permission permission) {
+        roleAdministrationService.revokePermission(actor.getUsername(), role, permission);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Without {@code entityId} the role applies to every entity.
+     */
+    @PutMapping("/users/{username}/roles/{role}")
+    public ResponseEntity<Void> assignRole(@AuthenticationPrincipal UserDetails actor,
+                                           @PathVariable String username, @PathVariable String role,
+                                           @RequestParam(required = false) @Nullable String entityId) {
+        roleAdministrationService.assignRole(actor.getUsername(), username, role, entityId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @DeleteMapping("/users/{username}/roles/{role}")
+    public ResponseEntity<Void> unassignRole(@AuthenticationPrincipal UserDetails actor,
+                                             @PathVariable String username, @PathVariable String role,
+                                             @RequestParam(required = false) @Nullable String entityId) {
+        roleAdministrationService.unassignRole(actor.getUsername(), username, role, entityId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,60 @@
+package com.sirius.api.controller;
+
+import com.sirius.api.directory.DirectorySort;
+import com.sirius.api.directory.UserDirectoryPage;
+import com.sirius.api.directory.UserDirectoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@PreAuthorize("hasPermission(null, 'USER_READ')")
+public class UserDirectoryController {
+    
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    private final UserDirectoryService userDirectoryService;
+    
+    /**
+     * One page of the directory. Pass {@code nextCursor} from the previous page as {@code cursor}
+     * to continue; the cursor is tied to the sort order it was issued for.
+     */
+    @GetMapping
+    public UserDirectoryPage list(@RequestParam(defaultValue = "id") String sort,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        return userDirectoryService.page(DirectorySort.valueOf(sort.toUpperCase(Locale.ROOT)), cursor, limit);
+    }
+    
+    /**
+     * The whole directory, streamed. Newline-delimited JSON when requested via {@code Accept},
+     * otherwise a JSON array.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean ndjson = accept != null && accept.contains(NDJSON.toString());
+        return ResponseEntity.ok()
+            .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + (ndjson ? "ndjson" : "json"))
+            .body(out -> userDirectoryService.export(out, ndjson));
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,57 @@
+package com.sirius.api.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.sirius.api.provisioning.UserImportReader;
+import com.sirius.api.provisioning.UserImportResult;
+import com.sirius.api.provisioning.UserImportService;
+import com.sirius.core.concurrent.ConcurrencyLimitExceededException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Bulk user provisioning. The body is streamed, so imports of any size are accepted; the
+ * response reports how many users were created, skipped as duplicates or rejected as invalid.
+ */
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@PreAuthorize("hasPermission(null, 'USER_IMPORT')")
+public class UserImportController {
+    
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+    
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public UserImportResult importCsv(InputStream body) throws IOException {
+        return userImportService.importUsers(UserImportReader.csv(body));
+    }
+    
+    @PostMapping(path = "/import", consumes = {"application/json", "application/x-ndjson"})
+    public UserImportResult importJson(InputStream body) throws IOException {
+        return userImportService.importUsers(UserImportReader.json(body, objectMapper));
+    }
+    
+    @ExceptionHandler({IllegalArgumentException.class, JsonProcessingException.class, RuntimeJsonMappingException.class})
+    public ResponseEntity<String> malformedImport(Exception e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<Void> importBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "30")
+            .build();
+    }
+}
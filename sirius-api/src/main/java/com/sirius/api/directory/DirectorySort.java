@@ -0,0 +1,10 @@
+package com.sirius.api.directory;
+
+/**
+ * Keyset orderings of the user directory. Each is backed by a unique index, so a page is an
+ * index range scan that costs the same however deep into the directory it starts.
+ */
+public enum DirectorySort {
+    ID,
+    USERNAME
+}
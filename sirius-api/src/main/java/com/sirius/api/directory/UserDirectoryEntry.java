@@ -0,0 +1,27 @@
+package com.sirius.api.directory;
+
+import com.sirius.data.projection.UserSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryEntry {
+    
+    private Long id;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private boolean enabled;
+    private Instant createdAt;
+    
+    public static UserDirectoryEntry of(UserSummary user) {
+        return new UserDirectoryEntry(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(),
+            user.getLastName(), Boolean.TRUE.equals(user.getEnabled()), user.getCreatedAt());
+    }
+}
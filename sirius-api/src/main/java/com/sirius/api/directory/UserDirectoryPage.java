@@ -0,0 +1,20 @@
+package com.sirius.api.directory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryPage {
+    
+    private List<UserDirectoryEntry> items;
+    
+    /**
+     * Opaque cursor for the next page, or {@code null} on the last page
+     */
+    private String nextCursor;
+}
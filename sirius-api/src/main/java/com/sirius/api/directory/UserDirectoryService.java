@@ -0,0 +1,115 @@
+package com.sirius.api.directory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sirius.data.projection.UserSummary;
+import com.sirius.data.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the user directory. Pages use keyset pagination on projections; exports stream
+ * from a server-side cursor straight into the response, in constant memory.
+ */
+@Service
+public class UserDirectoryService {
+    
+    private static final int FLUSH_EVERY = 1000;
+    
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    @Value("${sirius.users.directory.max-page-size:500}")
+    private int maxPageSize;
+    
+    public UserDirectoryService(UserRepository userRepository, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    public UserDirectoryPage page(DirectorySort sort, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        String after = decodeCursor(sort, cursor);
+        List<UserSummary> users = switch (sort) {
+            case ID -> userRepository.findByIdGreaterThanOrderByIdAsc(
+                after != null ? Long.parseLong(after) : 0L, Limit.of(size));
+            case USERNAME -> userRepository.findByUsernameGreaterThanOrderByUsernameAsc(
+                after != null ? after : "", Limit.of(size));
+        };
+        
+        String nextCursor = null;
+        if (users.size() == size) {
+            UserSummary last = users.get(users.size() - 1);
+            nextCursor = encodeCursor(sort, sort == DirectorySort.ID ? last.getId().toString() : last.getUsername());
+        }
+        return new UserDirectoryPage(users.stream().map(UserDirectoryEntry::of).toList(), nextCursor);
+    }
+    
+    /**
+     * Writes every user to {@code out}, either as one JSON array or as newline-delimited JSON
+     */
+    public void export(OutputStream out, boolean ndjson) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UserSummary> users = userRepository.streamAllByOrderByIdAsc();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                long written = 0;
+                Iterator<UserSummary> iterator = users.iterator();
+                while (iterator.hasNext()) {
+                    objectMapper.writeValue(generator, UserDirectoryEntry.of(iterator.next()));
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    private static String encodeCursor(DirectorySort sort, String key) {
+        String raw = sort.name() + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String decodeCursor(DirectorySort sort, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String prefix = sort.name() + ":";
+        if (!raw.startsWith(prefix)) {
+            throw new IllegalArgumentException("Cursor does not belong to sort " + sort.name().toLowerCase());
+        }
+        String key = raw.substring(prefix.length());
+        if (sort == DirectorySort.ID && !key.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return key;
+    }
+}
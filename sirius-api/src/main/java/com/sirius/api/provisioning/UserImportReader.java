@@ -0,0 +1,149 @@
+package com.sirius.api.provisioning;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming readers for import bodies. Rows are parsed one at a time as the service consumes
+ * them, so the request body is never held in memory.
+ */
+public final class UserImportReader {
+    
+    private UserImportReader() {
+    }
+    
+    /**
+     * JSON array of users, or newline-delimited JSON objects
+     */
+    public static Iterator<UserImportRow> json(InputStream body, ObjectMapper objectMapper) throws IOException {
+        MappingIterator<UserImportRow> rows = objectMapper.readerFor(UserImportRow.class).readValues(body);
+        return new Iterator<>() {
+            private long record;
+            
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+            
+            @Override
+            public UserImportRow next() {
+                UserImportRow row = rows.next();
+                row.setRecord(++record);
+                return row;
+            }
+        };
+    }
+    
+    /**
+     * CSV with a header row naming the columns: {@code username, email, password, first_name,
+     * last_name} and optionally {@code enabled}. Camel-case names are accepted too.
+     */
+    public static Iterator<UserImportRow> csv(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return new ArrayList<UserImportRow>().iterator();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("username", "email", "password", "firstname", "lastname")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + required);
+            }
+        }
+        
+        return new Iterator<>() {
+            private long line = 1;
+            private String next = advance();
+            
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+            
+            @Override
+            public UserImportRow next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                List<String> values = splitCsv(next);
+                UserImportRow row = new UserImportRow();
+                row.setRecord(line);
+                row.setUsername(value(values, columns.get("username")));
+                row.setEmail(value(values, columns.get("email")));
+                row.setPassword(value(values, columns.get("password")));
+                row.setFirstName(value(values, columns.get("firstname")));
+                row.setLastName(value(values, columns.get("lastname")));
+                String enabled = value(values, columns.get("enabled"));
+                row.setEnabled(enabled == null || enabled.isBlank() ? null : Boolean.valueOf(enabled.trim()));
+                next = advance();
+                return row;
+            }
+            
+            private String advance() {
+                try {
+                    String candidate;
+                    do {
+                        candidate = reader.readLine();
+                        line++;
+                    } while (candidate != null && candidate.isBlank());
+                    return candidate;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+    
+    private static String value(List<String> values, Integer index) {
+        return index != null && index < values.size() ? values.get(index) : null;
+    }
+    
+    /**
+     * Splits one CSV line, honouring double-quoted fields and {@code ""} escapes
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,31 @@
+package com.sirius.api.provisioning;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class UserImportResult {
+    
+    private long received;
+    private long imported;
+    
+    /**
+     * Valid rows not inserted because the username or email already exists
+     */
+    private long duplicates;
+    private long invalid;
+    private List<RowError> errors = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long record;
+        private String message;
+    }
+}
@@ -0,0 +1,28 @@
+package com.sirius.api.provisioning;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+/**
+ * One user in a bulk import, as read from CSV or JSON
+ */
+@Data
+public class UserImportRow {
+    
+    private String username;
+    private String email;
+    
+    /**
+     * Plain-text password, or an already encoded {@code {bcrypt}...} hash which is stored as-is
+     */
+    private String password;
+    private String firstName;
+    private String lastName;
+    private Boolean enabled;
+    
+    /**
+     * CSV line number or JSON record number, for error reporting
+     */
+    @JsonIgnore
+    private long record;
+}
@@ -0,0 +1,187 @@
+package com.sirius.api.provisioning;
+
+import com.sirius.api.security.BoundedPasswordEncoder;
+import com.sirius.core.concurrent.ConcurrencyLimiter;
+import com.sirius.data.entity.UserEntity;
+import com.sirius.data.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk user provisioning. Rows are consumed as they are read, validated, hashed in parallel on
+ * a dedicated pool and written in large set-based batches. Each batch commits on its own and
+ * existing usernames or emails are skipped, so a failed import can simply be re-run.
+ */
+@Slf4j
+@Service
+public class UserImportService implements DisposableBean {
+    
+    private static final String ENCODED_PREFIX = "{bcrypt}";
+    
+    /**
+     * A complete BCrypt hash after the prefix. Anything else that starts with the prefix is
+     * rejected rather than stored as if it were a hash, which would leave a plain-text password.
+     */
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}");
+    
+    private final UserRepository userRepository;
+    private final PasswordEncoder hashingEncoder;
+    private final ExecutorService hashingPool;
+    private final ConcurrencyLimiter imports;
+    private final int batchSize;
+    private final int maxErrors;
+    private final Counter importedUsers;
+    
+    public UserImportService(UserRepository userRepository,
+                             PasswordEncoder passwordEncoder,
+                             MeterRegistry meterRegistry,
+                             @Value("${sirius.users.import.batch-size:1000}") int batchSize,
+                             @Value("${sirius.users.import.hash-threads:0}") int hashThreads,
+                             @Value("${sirius.users.import.max-concurrent:1}") int maxConcurrent,
+                             @Value("${sirius.users.import.max-errors:100}") int maxErrors) {
+        this.userRepository = userRepository;
+        this.hashingEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+            ? bounded.getDelegate() : passwordEncoder;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.imports = new ConcurrencyLimiter("user imports", maxConcurrent, Duration.ZERO);
+        
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger sequence = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hash-" + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.importedUsers = Counter.builder("sirius.users.imported")
+            .description("Users created through bulk import")
+            .register(meterRegistry);
+    }
+    
+    public UserImportResult importUsers(Iterator<UserImportRow> rows) {
+        imports.acquire();
+        try {
+            UserImportResult result = new UserImportResult();
+            List<UserImportRow> batch = new ArrayList<>(batchSize);
+            while (rows.hasNext()) {
+                UserImportRow row = rows.next();
+                result.setReceived(result.getReceived() + 1);
+                String problem = validate(row);
+                if (problem != null) {
+                    result.setInvalid(result.getInvalid() + 1);
+                    if (result.getErrors().size() < maxErrors) {
+                        result.getErrors().add(new UserImportResult.RowError(row.getRecord(), problem));
+                    }
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    write(batch, result);
+                    batch.clear();
+                }
+            }
+            write(batch, result);
+            log.info("User import finished: {} received, {} imported, {} duplicates, {} invalid",
+                result.getReceived(), result.getImported(), result.getDuplicates(), result.getInvalid());
+            return result;
+        } finally {
+            imports.release();
+        }
+    }
+    
+    private void write(List<UserImportRow> batch, UserImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int inserted = userRepository.insertIgnoringDuplicates(encode(batch));
+        importedUsers.increment(inserted);
+        result.setImported(result.getImported() + inserted);
+        result.setDuplicates(result.getDuplicates() + batch.size() - inserted);
+    }
+    
+    private List<UserEntity> encode(List<UserImportRow> batch) {
+        List<Future<String>> passwords = new ArrayList<>(batch.size());
+        for (UserImportRow row : batch) {
+            String password = row.getPassword();
+            passwords.add(password.startsWith(ENCODED_PREFIX)
+                ? CompletableFuture.completedFuture(password)
+                : hashingPool.submit(() -> hashingEncoder.encode(password)));
+        }
+        
+        List<UserEntity> users = new ArrayList<>(batch.size());
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                UserImportRow row = batch.get(i);
+                users.add(UserEntity.builder()
+                    .username(row.getUsername().trim())
+                    .email(row.getEmail().trim())
+                    .password(passwords.get(i).get())
+                    .firstName(row.getFirstName().trim())
+                    .lastName(row.getLastName().trim())
+                    .enabled(row.getEnabled() == null || row.getEnabled())
+                    .build());
+            }
+        } catch (InterruptedException e) {
+            passwords.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+        } catch (ExecutionException e) {
+            passwords.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+        return users;
+    }
+    
+    private static String validate(UserImportRow row) {
+        if (isBlank(row.getUsername()) || row.getUsername().trim().length() > 50) {
+            return "username is required and must be at most 50 characters";
+        }
+        if (isBlank(row.getEmail()) || row.getEmail().trim().length() > 100 || !row.getEmail().contains("@")) {
+            return "email is required, must contain '@' and be at most 100 characters";
+        }
+        if (isBlank(row.getPassword())) {
+            return "password is required";
+        }
+        if (row.getPassword().startsWith(ENCODED_PREFIX)
+            && !BCRYPT_HASH.matcher(row.getPassword()).region(ENCODED_PREFIX.length(), row.getPassword().length()).matches()) {
+            return "password starts with " + ENCODED_PREFIX + " but is not a valid BCrypt hash";
+        }
+        if (isBlank(row.getFirstName()) || row.getFirstName().trim().length() > 100) {
+            return "first name is required and must be at most 100 characters";
+        }
+        if (isBlank(row.getLastName()) || row.getLastName().trim().length() > 100) {
+            return "last name is required and must be at most 100 characters";
+        }
+        return null;
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        hashingPool.shutdown();
+        if (!hashingPool.awaitTermination(5, TimeUnit.SECONDS)) {
+            hashingPool.shutdownNow();
+        }
+    }
+}
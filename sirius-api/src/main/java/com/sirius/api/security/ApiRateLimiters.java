@@ -0,0 +1,69 @@
+package com.sirius.api.security;
+
+import com.sirius.infra.ratelimit.RedisRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The rate limits guarding the API, keyed by client IP, login username and IP, or authenticated principal.
+ * Everything is allowed when {@code sirius.rate-limit.enabled} is false.
+ */
+@Component
+public class ApiRateLimiters {
+    
+    @Nullable
+    private final RedisRateLimiter anonymous;
+    @Nullable
+    private final RedisRateLimiter login;
+    @Nullable
+    private final RedisRateLimiter principal;
+    
+    public ApiRateLimiters(RateLimitProperties properties, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        boolean enabled = properties.isEnabled();
+        this.anonymous = enabled ? limiter("anonymous", properties.getAnonymous(), redisTemplate, meterRegistry) : null;
+        this.login = enabled ? limiter("login", properties.getLogin(), redisTemplate, meterRegistry) : null;
+        this.principal = enabled ? limiter("principal", properties.getPrincipal(), redisTemplate, meterRegistry) : null;
+    }
+    
+    @Nullable
+    public Duration tryAcquireAnonymous(String clientIp) {
+        return tryAcquire(anonymous, clientIp);
+    }
+    
+    /**
+     * Keyed by username and client IP, so a client guessing one account's password is slowed down
+     * without locking the account for everyone else. Usernames are compared case-insensitively so
+     * that case variants share one bucket.
+     */
+    @Nullable
+    public Duration tryAcquireLogin(String username, String clientIp) {
+        return tryAcquire(login, username.toLowerCase(Locale.ROOT) + "|" + clientIp);
+    }
+    
+    @Nullable
+    public Duration tryAcquirePrincipal(String name) {
+        return tryAcquire(principal, name);
+    }
+    
+    /**
+     * @return {@code null} if allowed, otherwise how long the caller should wait before retrying
+     */
+    @Nullable
+    private static Duration tryAcquire(@Nullable RedisRateLimiter limiter, String key) {
+        if (limiter == null || limiter.tryAcquire(key)) {
+            return null;
+        }
+        return limiter.getRetryAfter();
+    }
+    
+    private static RedisRateLimiter limiter(String name, RateLimitProperties.Limit limit,
+                                            StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        return new RedisRateLimiter(name, limit.getCapacity(), limit.getRefillPerSecond(), limit.getPrefetch(),
+            redisTemplate, meterRegistry);
+    }
+}
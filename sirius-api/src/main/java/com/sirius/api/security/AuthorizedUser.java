@@ -0,0 +1,54 @@
+package com.sirius.api.security;
+
+import com.sirius.core.security.Permission;
+import com.sirius.core.security.PermissionSet;
+import com.sirius.core.security.RoleGrant;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The authenticated principal, carrying the user's roles and the permissions compiled from them.
+ * Authorities are the role names ({@code ROLE_ADMIN}); permission checks go through
+ * {@link #has(Permission, String)} or {@code hasPermission(...)} and never scan them.
+ */
+@Getter
+public class AuthorizedUser extends User {
+    
+    private final List<RoleGrant> grants;
+    private final PermissionSet permissions;
+    
+    /**
+     * Epoch of the role definitions {@link #permissions} were compiled under.
+     */
+    private final long policyEpoch;
+    
+    public AuthorizedUser(String username, String password, boolean enabled, boolean accountNonExpired,
+                          boolean credentialsNonExpired, boolean accountNonLocked, List<RoleGrant> grants,
+                          PermissionSet permissions, long policyEpoch) {
+        super(username, password, enabled, accountNonExpired, credentialsNonExpired, accountNonLocked,
+            roleAuthorities(grants));
+        this.grants = List.copyOf(grants);
+        this.permissions = permissions;
+        this.policyEpoch = policyEpoch;
+    }
+    
+    public boolean has(Permission permission, @Nullable String entityId) {
+        return permissions.has(permission, entityId);
+    }
+    
+    private static Collection<? extends GrantedAuthority> roleAuthorities(List<RoleGrant> grants) {
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        for (RoleGrant grant : grants) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + grant.getRole()));
+        }
+        return authorities;
+    }
+}
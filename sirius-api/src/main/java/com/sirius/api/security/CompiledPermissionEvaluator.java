@@ -0,0 +1,37 @@
+package com.sirius.api.security;
+
+import com.sirius.core.security.Permission;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+
+import java.io.Serializable;
+
+/**
+ * Answers {@code hasPermission(#entityId, 'PAYMENT_APPROVE')} from the principal's compiled
+ * permission set. The target is the treasury entity acted on, or {@code null} for a permission
+ * that must be held for every entity.
+ */
+public class CompiledPermissionEvaluator implements PermissionEvaluator {
+    
+    @Override
+    public boolean hasPermission(Authentication authentication, Object target, Object permission) {
+        return check(authentication, target, permission);
+    }
+    
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+                                 Object permission) {
+        return check(authentication, targetId, permission);
+    }
+    
+    private static boolean check(Authentication authentication, Object target, Object permission) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthorizedUser user)) {
+            return false;
+        }
+        return user.has(toPermission(permission), target != null ? target.toString() : null);
+    }
+    
+    private static Permission toPermission(Object permission) {
+        return permission instanceof Permission p ? p : Permission.valueOf(permission.toString());
+    }
+}
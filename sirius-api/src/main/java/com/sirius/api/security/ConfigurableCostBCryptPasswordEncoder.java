@@ -0,0 +1,32 @@
+package com.sirius.api.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BCryptPasswordEncoder} that asks for a rehash whenever a stored hash was produced with a
+ * cost different from the configured one, in either direction, so that changing the cost
+ * converges all users on their next successful login.
+ */
+public class ConfigurableCostBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    
+    private final int strength;
+    
+    public ConfigurableCostBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+}
@@ -1,36 +1,78 @@
 package com.sirius.api.security;
 
+import com.sirius.core.security.RoleDefinitions;
 import com.sirius.data.entity.UserEntity;
 import com.sirius.data.repository.UserRepository;
+import com.sirius.data.security.RoleRepository;
+import com.sirius.data.security.UserAuthorization;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
-
+/**
+ * Loads the user and their roles in one query and compiles the roles into the principal's
+ * permission set against the current role definitions.
+ */
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final RoleDefinitionRegistry roleDefinitions;
+    private final MeterRegistry meterRegistry;
     
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        UserEntity user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-        
-        return User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
-                .accountExpired(!user.getAccountNonExpired())
-                .accountLocked(!user.getAccountNonLocked())
-                .credentialsExpired(!user.getCredentialsNonExpired())
-                .disabled(!user.getEnabled())
-                .build();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            UserAuthorization user = roleRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+            outcome = "found";
+            return toUserDetails(user);
+        } catch (UsernameNotFoundException e) {
+            outcome = "not_found";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("sirius.security.user.lookup")
+                    .description("User details lookups by username")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+    
+    /**
+     * Stores a rehashed password after a successful login with an outdated encoding
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        UserEntity user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.saveAndFlush(user);
+        return toUserDetails(roleRepository.findByUsername(user.getUsername()).orElseThrow());
+    }
+    
+    private UserDetails toUserDetails(UserAuthorization user) {
+        RoleDefinitions definitions = roleDefinitions.current();
+        return new AuthorizedUser(
+                user.getUsername(),
+                user.getPassword(),
+                user.isEnabled(),
+                user.isAccountNonExpired(),
+                user.isCredentialsNonExpired(),
+                user.isAccountNonLocked(),
+                user.getGrants(),
+                definitions.compile(user.getGrants()),
+                definitions.getEpoch()
+        );
     }
 }
@@ -1,5 +1,11 @@
 package com.sirius.api.security;
 
+import com.sirius.core.audit.AuditEvent;
+import com.sirius.core.audit.AuditEventType;
+import com.sirius.core.audit.AuditLog;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,6 +16,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,6 +29,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final TokenDenylist tokenDenylist;
+    private final AuthenticationMetrics authenticationMetrics;
+    private final AuditLog auditLog;
     
     @Override
     protected void doFilterInternal(
@@ -30,21 +40,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
+        AuthenticationMetrics.Recording recording = authenticationMetrics.start();
         
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            recording.mark("header", "absent");
+        } else {
+            recording.mark("header", "bearer");
+            authenticate(authHeader.substring(7), request, recording);
+        }
+        
+        try {
             filterChain.doFilter(request, response);
+        } finally {
+            recording.publish(request, response);
+        }
+    }
+    
+    private void authenticate(String jwt, HttpServletRequest request, AuthenticationMetrics.Recording recording) {
+        final Claims claims;
+        try {
+            claims = jwtTokenProvider.verifyToken(jwt);
+        } catch (ExpiredJwtException e) {
+            recording.mark("verify", "expired");
+            reject(e.getClaims().getSubject(), "expired", request);
+            return;
+        } catch (JwtException | IllegalArgumentException e) {
+            recording.mark("verify", "invalid");
+            reject(null, "invalid", request);
             return;
         }
-        
-        jwt = authHeader.substring(7);
-        username = jwtTokenProvider.extractUsername(jwt);
+        recording.mark("verify", "valid");
+        final String username = claims.getSubject();
         
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = jwtTokenProvider.isStateless() ? jwtTokenProvider.toUserDetails(claims) : null;
+            boolean fromToken = userDetails != null;
+            if (!fromToken) {
+                try {
+                    userDetails = this.userDetailsService.loadUserByUsername(username);
+                } catch (UsernameNotFoundException e) {
+                    recording.mark("load", "not_found");
+                    reject(username, "not_found", request);
+                    return;
+                }
+            }
             
-            if (jwtTokenProvider.isTokenValid(jwt, userDetails)) {
+            if (jwtTokenProvider.isTokenValid(claims, userDetails)
+                    && (!fromToken || isActive(claims, userDetails))) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -52,9 +94,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                recording.mark("load", fromToken ? "token" : "database");
+            } else {
+                recording.mark("load", "rejected");
+                reject(username, "rejected", request);
             }
         }
-        
-        filterChain.doFilter(request, response);
+    }
+    
+    private void reject(String username, String reason, HttpServletRequest request) {
+        auditLog.record(AuditEvent.of(AuditEventType.TOKEN_REJECTED, username, reason, request.getRemoteAddr()));
+    }
+    
+    private boolean isActive(Claims claims, UserDetails userDetails) {
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        return userDetails.isEnabled()
+                && userDetails.isAccountNonLocked()
+                && !tokenDenylist.isRevoked(userDetails.getUsername(), issuedAt);
     }
 }
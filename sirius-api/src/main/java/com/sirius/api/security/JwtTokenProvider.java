@@ -1,46 +1,181 @@
 package com.sirius.api.security;
 
+import com.sirius.core.security.PermissionSet;
+import com.sirius.core.security.RoleDefinitions;
+import com.sirius.core.security.RoleGrant;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 public class JwtTokenProvider {
     
+    static final String AUTHORITIES_CLAIM = "authorities";
+    static final String ENABLED_CLAIM = "enabled";
+    static final String ACCOUNT_NON_LOCKED_CLAIM = "accountNonLocked";
+    static final String ACCOUNT_NON_EXPIRED_CLAIM = "accountNonExpired";
+    static final String CREDENTIALS_NON_EXPIRED_CLAIM = "credentialsNonExpired";
+    static final String GRANTS_CLAIM = "grants";
+    static final String PERMISSIONS_CLAIM = "perms";
+    static final String POLICY_EPOCH_CLAIM = "pv";
+    
+    /**
+     * Key of the global bits in the permissions claim; the other keys are entity ids.
+     */
+    static final String ALL_ENTITIES = "*";
+    
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RoleDefinitionRegistry roleDefinitions;
+    
     @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
     private String secret;
     
     @Value("${jwt.expiration:86400000}") // 24 hours
     private long jwtExpiration;
     
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean stateless;
+    
+    private Key signInKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        this.signInKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser()
+                .setSigningKey(signInKey)
+                .build();
+    }
+    
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verifyToken(token);
         return claimsResolver.apply(claims);
     }
     
+    /**
+     * Verifies the token signature and expiry once and returns its claims. Tokens that were
+     * already verified are served from {@link VerifiedTokenCache} without re-parsing.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims verifyToken(String token) {
+        return verifiedTokenCache.get(token, this::extractAllClaims);
+    }
+    
     public String generateToken(UserDetails userDetails) {
         return generateToken(new HashMap<>(), userDetails);
     }
     
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        if (stateless) {
+            extraClaims = new HashMap<>(extraClaims);
+            extraClaims.put(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .toList());
+            extraClaims.put(ENABLED_CLAIM, userDetails.isEnabled());
+            extraClaims.put(ACCOUNT_NON_LOCKED_CLAIM, userDetails.isAccountNonLocked());
+            extraClaims.put(ACCOUNT_NON_EXPIRED_CLAIM, userDetails.isAccountNonExpired());
+            extraClaims.put(CREDENTIALS_NON_EXPIRED_CLAIM, userDetails.isCredentialsNonExpired());
+            if (userDetails instanceof AuthorizedUser user) {
+                extraClaims.put(GRANTS_CLAIM, user.getGrants().stream().map(RoleGrant::encode).toList());
+                extraClaims.put(PERMISSIONS_CLAIM, encode(user.getPermissions()));
+                extraClaims.put(POLICY_EPOCH_CLAIM, user.getPolicyEpoch());
+            }
+        }
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
     
+    /**
+     * Whether tokens carry authorities and account state, so the principal can be rebuilt
+     * from the claims alone without loading the user from the database.
+     */
+    public boolean isStateless() {
+        return stateless;
+    }
+    
+    /**
+     * Rebuilds the principal from a stateless token, or returns {@code null} if the token
+     * was issued without the role claims and the user must be loaded instead. Permissions
+     * compiled under older role definitions, or while the current ones are unversioned, are
+     * recompiled from the token's roles.
+     */
+    public UserDetails toUserDetails(Claims claims) {
+        Object grantClaim = claims.get(GRANTS_CLAIM);
+        Object permissionClaim = claims.get(PERMISSIONS_CLAIM);
+        if (!(grantClaim instanceof Collection<?> encodedGrants) || !(permissionClaim instanceof Map<?, ?> encoded)) {
+            return null;
+        }
+        List<RoleGrant> grants = encodedGrants.stream().map(g -> RoleGrant.decode(String.valueOf(g))).toList();
+        RoleDefinitions definitions = roleDefinitions.current();
+        Number epoch = claims.get(POLICY_EPOCH_CLAIM, Number.class);
+        PermissionSet permissions = epoch != null && epoch.longValue() == definitions.getEpoch()
+                && !roleDefinitions.isUnversioned()
+                ? decode(encoded)
+                : definitions.compile(grants);
+        return new AuthorizedUser(
+                claims.getSubject(),
+                "",
+                flag(claims, ENABLED_CLAIM),
+                flag(claims, ACCOUNT_NON_EXPIRED_CLAIM),
+                flag(claims, CREDENTIALS_NON_EXPIRED_CLAIM),
+                flag(claims, ACCOUNT_NON_LOCKED_CLAIM),
+                grants,
+                permissions,
+                definitions.getEpoch()
+        );
+    }
+    
+    private static boolean flag(Claims claims, String name) {
+        return !Boolean.FALSE.equals(claims.get(name, Boolean.class));
+    }
+    
+    /**
+     * Bitsets as hex strings, since JSON numbers lose precision beyond 2^53.
+     */
+    private static Map<String, String> encode(PermissionSet permissions) {
+        Map<String, String> encoded = new HashMap<>();
+        encoded.put(ALL_ENTITIES, Long.toHexString(permissions.getGlobal()));
+        permissions.getScoped().forEach((entityId, bits) -> encoded.put(entityId, Long.toHexString(bits)));
+        return encoded;
+    }
+    
+    private static PermissionSet decode(Map<?, ?> encoded) {
+        long global = 0L;
+        Map<String, Long> scoped = new HashMap<>();
+        for (Map.Entry<?, ?> entry : encoded.entrySet()) {
+            long bits = Long.parseUnsignedLong(String.valueOf(entry.getValue()), 16);
+            if (ALL_ENTITIES.equals(entry.getKey())) {
+                global = bits;
+            } else {
+                scoped.put(String.valueOf(entry.getKey()), bits);
+            }
+        }
+        return global == 0L && scoped.isEmpty() ? PermissionSet.EMPTY : new PermissionSet(global, scoped);
+    }
+    
     private String buildToken(
             Map<String, Object> extraClaims,
             UserDetails userDetails,
@@ -51,33 +186,27 @@ public class JwtTokenProvider {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verifyToken(token), userDetails);
     }
     
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
     
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isTokenExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSignInKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
-    
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
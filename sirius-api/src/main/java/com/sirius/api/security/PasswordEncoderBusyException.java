@@ -0,0 +1,13 @@
+package com.sirius.api.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Raised when a password check is shed because the hashing pool is saturated
+ */
+public class PasswordEncoderBusyException extends AuthenticationServiceException {
+    
+    public PasswordEncoderBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+package com.sirius.api.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Rejects requests over their rate limit with an empty 429 before they reach password hashing or
+ * the database. Runs after {@link JwtAuthenticationFilter} so that authenticated calls are limited
+ * per principal; anonymous calls to {@code /api/auth/**} are limited per client IP.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final String AUTH_PATH = "/api/auth/";
+    
+    private final ApiRateLimiters rateLimiters;
+    
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Duration retryAfter = null;
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            retryAfter = rateLimiters.tryAcquirePrincipal(authentication.getName());
+        } else if (request.getRequestURI().startsWith(request.getContextPath() + AUTH_PATH)) {
+            retryAfter = rateLimiters.tryAcquireAnonymous(request.getRemoteAddr());
+        }
+        
+        if (retryAfter != null) {
+            reject(response, retryAfter);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    private static void reject(HttpServletResponse response, Duration retryAfter) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()));
+        response.setContentLength(0);
+    }
+}
@@ -0,0 +1,58 @@
+package com.sirius.api.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Token-bucket limits applied before any expensive authentication or API work.
+ */
+@Data
+@ConfigurationProperties(prefix = "sirius.rate-limit")
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * Per client IP, for unauthenticated calls to {@code /api/auth/**}.
+     */
+    private Limit anonymous = new Limit(20, 1.0, 1);
+    
+    /**
+     * Per username and client IP on login; slows down password guessing against one account without
+     * letting other clients lock its owner out.
+     */
+    private Limit login = new Limit(5, 0.1, 1);
+    
+    /**
+     * Per authenticated principal, for all other API calls.
+     */
+    private Limit principal = new Limit(200, 50.0, 10);
+    
+    @Data
+    public static class Limit {
+        
+        /**
+         * Largest burst allowed.
+         */
+        private int capacity;
+        
+        /**
+         * Tokens added back per second.
+         */
+        private double refillPerSecond;
+        
+        /**
+         * Tokens taken from Redis per round trip and spent locally.
+         */
+        private int prefetch;
+        
+        public Limit() {
+        }
+        
+        Limit(int capacity, double refillPerSecond, int prefetch) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+            this.prefetch = prefetch;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.sirius.api.security;
+
+import com.sirius.core.audit.AuditEvent;
+import com.sirius.core.audit.AuditEventType;
+import com.sirius.core.audit.AuditLog;
+import com.sirius.core.security.Permission;
+import com.sirius.data.security.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Changes role definitions and role assignments, and makes sure no node keeps authorizing with
+ * the old ones: a definition change is announced to every node, and a user whose roles changed
+ * has their outstanding tokens revoked.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoleAdministrationService {
+    
+    private final RoleRepository roleRepository;
+    private final RoleDefinitionRegistry roleDefinitions;
+    private final TokenDenylist tokenDenylist;
+    private final AuditLog auditLog;
+    
+    public void grantPermission(String actor, String role, Permission permission) {
+        if (roleRepository.grantPermission(role, permission)) {
+            roleDefinitions.publishChange();
+            audit(actor, "grant " + permission + " to " + role);
+        }
+    }
+    
+    public void revokePermission(String actor, String role, Permission permission) {
+        if (roleRepository.revokePermission(role, permission)) {
+            roleDefinitions.publishChange();
+            audit(actor, "revoke " + permission + " from " + role);
+        }
+    }
+    
+    public void assignRole(String actor, String username, String role, @Nullable String entityId) {
+        if (JwtTokenProvider.ALL_ENTITIES.equals(entityId)) {
+            throw new IllegalArgumentException("Not an entity id: " + entityId);
+        }
+        if (roleRepository.assignRole(username, role, entityId)) {
+            tokenDenylist.revoke(username);
+            audit(actor, "assign " + scope(role, entityId) + " to " + username);
+        }
+    }
+    
+    public void unassignRole(String actor, String username, String role, @Nullable String entityId) {
+        if (roleRepository.unassignRole(username, role, entityId)) {
+            tokenDenylist.revoke(username);
+            audit(actor, "unassign " + scope(role, entityId) + " from " + username);
+        }
+    }
+    
+    private void audit(String actor, String detail) {
+        auditLog.record(AuditEvent.of(AuditEventType.ROLE_CHANGED, actor, detail, null));
+    }
+    
+    private static String scope(String role, @Nullable String entityId) {
+        return entityId == null ? role : role + "@" + entityId;
+    }
+}
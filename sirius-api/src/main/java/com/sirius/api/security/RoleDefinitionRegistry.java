@@ -0,0 +1,147 @@
+package com.sirius.api.security;
+
+import com.sirius.core.security.PermissionSet;
+import com.sirius.core.security.RoleDefinitions;
+import com.sirius.core.security.RoleGrant;
+import com.sirius.data.security.RoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * The current role definitions of this node. A change bumps a cluster-wide epoch in Redis and
+ * announces it over pub/sub; every node then reloads the definitions, and permission sets
+ * compiled under an older epoch, such as those in stateless tokens, are recompiled on use. The
+ * epoch is also polled, so a node that missed a message catches up.
+ * <p>
+ * Epochs only ever come from Redis. While it is unreachable, definitions are reloaded locally
+ * without a new epoch and marked unversioned, so the next epoch seen is applied whatever its
+ * number, and a change made meanwhile is announced once Redis is back.
+ */
+@Slf4j
+@Component
+public class RoleDefinitionRegistry {
+    
+    static final String EPOCH_KEY = "sirius:auth:roles:epoch";
+    static final String CHANNEL = "sirius:auth:roles:events";
+    
+    private final RoleRepository roleRepository;
+    private final StringRedisTemplate redisTemplate;
+    private volatile RoleDefinitions current;
+    
+    /**
+     * The definitions were loaded while Redis was unreachable and may not match their epoch.
+     */
+    private volatile boolean unversioned;
+    
+    /**
+     * A change was made on this node that could not be announced yet.
+     */
+    private volatile boolean changePending;
+    
+    public RoleDefinitionRegistry(
+            RoleRepository roleRepository,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer
+    ) {
+        this.roleRepository = roleRepository;
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(CHANNEL));
+        try {
+            reload(readEpoch());
+        } catch (DataAccessException e) {
+            log.warn("Could not read the role epoch from Redis, loading roles unversioned: {}", e.getMessage());
+            current = new RoleDefinitions(0L, roleRepository.loadRoleBits());
+            unversioned = true;
+        }
+    }
+    
+    public RoleDefinitions current() {
+        return current;
+    }
+    
+    /**
+     * Whether the current definitions were loaded while Redis was unreachable. Their epoch may
+     * then be shared with permission sets compiled under other definitions, so those must be
+     * recompiled rather than trusted.
+     */
+    public boolean isUnversioned() {
+        return unversioned;
+    }
+    
+    public PermissionSet compile(Collection<RoleGrant> grants) {
+        return current.compile(grants);
+    }
+    
+    /**
+     * Makes every node pick up role definitions changed in the database. Call after the change
+     * has been committed.
+     */
+    public void publishChange() {
+        long epoch;
+        try {
+            epoch = redisTemplate.opsForValue().increment(EPOCH_KEY);
+        } catch (DataAccessException e) {
+            log.warn("Could not announce a role change, retrying once Redis is back: {}", e.getMessage());
+            changePending = true;
+            reloadUnversioned();
+            return;
+        }
+        changePending = false;
+        reload(epoch);
+        redisTemplate.convertAndSend(CHANNEL, Long.toString(epoch));
+    }
+    
+    @Scheduled(fixedDelayString = "${sirius.security.roles.check-interval:30000}")
+    void checkEpoch() {
+        if (changePending) {
+            publishChange();
+            return;
+        }
+        try {
+            long epoch = readEpoch();
+            if (unversioned || epoch != current.getEpoch()) {
+                reload(epoch);
+            }
+        } catch (DataAccessException e) {
+            log.debug("Could not check the role epoch: {}", e.getMessage());
+        }
+    }
+    
+    private void onMessage(Message message, byte[] pattern) {
+        long epoch = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (unversioned || epoch != current.getEpoch()) {
+            reload(epoch);
+        }
+    }
+    
+    private synchronized void reload(long epoch) {
+        current = new RoleDefinitions(epoch, roleRepository.loadRoleBits());
+        unversioned = false;
+        log.info("Loaded {} role definitions at epoch {}", current.getRoles().size(), epoch);
+    }
+    
+    /**
+     * Picks up a local change without inventing an epoch, which a later real epoch with the same
+     * number would be mistaken for.
+     */
+    private synchronized void reloadUnversioned() {
+        // Flagged first, so that no reader sees the new definitions as versioned
+        unversioned = true;
+        current = new RoleDefinitions(current.getEpoch(), roleRepository.loadRoleBits());
+        log.info("Loaded {} role definitions unversioned, still at epoch {}", current.getRoles().size(), current.getEpoch());
+    }
+    
+    private long readEpoch() {
+        String epoch = redisTemplate.opsForValue().get(EPOCH_KEY);
+        return epoch != null ? Long.parseLong(epoch) : 0L;
+    }
+}
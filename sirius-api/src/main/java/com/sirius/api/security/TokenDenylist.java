@@ -0,0 +1,94 @@
+package com.sirius.api.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory denylist of users whose previously issued tokens must be rejected, used by the
+ * stateless authentication mode. Each entry records the revocation time; tokens issued before
+ * it are refused. The list is persisted in a Redis hash and kept in sync across nodes over pub/sub.
+ */
+@Slf4j
+@Component
+public class TokenDenylist {
+    
+    static final String DENYLIST_KEY = "sirius:auth:denylist";
+    static final String DENYLIST_CHANNEL = "sirius:auth:denylist:events";
+    
+    private final Map<String, Long> revokedAt = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate;
+    private final long jwtExpiration;
+    
+    public TokenDenylist(
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${jwt.expiration:86400000}") long jwtExpiration
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.jwtExpiration = jwtExpiration;
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(DENYLIST_CHANNEL));
+        load();
+    }
+    
+    /**
+     * Rejects every token issued to the user up to now, on this node and all others.
+     * Call this whenever a user is disabled, locked or has their credentials reset.
+     */
+    public void revoke(String username) {
+        long now = System.currentTimeMillis();
+        record(username, now);
+        redisTemplate.opsForHash().put(DENYLIST_KEY, username, Long.toString(now));
+        redisTemplate.convertAndSend(DENYLIST_CHANNEL, username + ":" + now);
+    }
+    
+    public boolean isRevoked(String username, long issuedAtMillis) {
+        Long revoked = revokedAt.get(username);
+        if (revoked == null) {
+            return false;
+        }
+        if (revoked < System.currentTimeMillis() - jwtExpiration) {
+            // Every token issued before the revocation has expired on its own by now
+            revokedAt.remove(username, revoked);
+            return false;
+        }
+        return issuedAtMillis <= revoked;
+    }
+    
+    private void load() {
+        try {
+            long horizon = System.currentTimeMillis() - jwtExpiration;
+            redisTemplate.<String, String>opsForHash().entries(DENYLIST_KEY).forEach((username, value) -> {
+                long revoked = Long.parseLong(value);
+                if (revoked < horizon) {
+                    redisTemplate.opsForHash().delete(DENYLIST_KEY, username);
+                } else {
+                    record(username, revoked);
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not load token denylist from Redis, starting empty: {}", e.getMessage());
+        }
+    }
+    
+    private void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator > 0) {
+            record(body.substring(0, separator), Long.parseLong(body.substring(separator + 1)));
+        }
+    }
+    
+    private void record(String username, long revoked) {
+        revokedAt.merge(username, revoked, Math::max);
+    }
+}
@@ -0,0 +1,102 @@
+package com.sirius.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already-verified JWTs, keyed by a SHA-256 digest of the token.
+ * Entries expire no later than the token itself, so a hit never outlives its {@code exp} claim.
+ */
+@Component
+public class VerifiedTokenCache {
+    
+    private final boolean enabled;
+    private final Cache<String, Claims> cache;
+    
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.enabled:true}") boolean enabled,
+            @Value("${jwt.cache.max-size:100000}") long maxSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+    }
+    
+    /**
+     * Returns the verified claims for the token, running the verifier only on a miss.
+     * Verification failures are not cached and propagate to the caller.
+     */
+    public Claims get(String token, Function<String, Claims> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+        String key = digest(token);
+        Claims claims = cache.getIfPresent(key);
+        if (claims != null) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.getTime() > System.currentTimeMillis()) {
+                return claims;
+            }
+            cache.invalidate(key);
+        }
+        claims = verifier.apply(token);
+        cache.put(key, claims);
+        return claims;
+    }
+    
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+        
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.sirius.bench.cache;
+
+import com.sirius.infra.serialization.BinaryTypeRegistry;
+import com.sirius.infra.serialization.SiriusBinaryRedisSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of typical cache values through the JSON and binary value serializers. The
+ * serialized size of each value is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+    
+    @Param({"json", "binary"})
+    private String format;
+    
+    @Param({"string", "decimal", "instant", "map"})
+    private String valueType;
+    
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] bytes;
+    
+    @Setup
+    public void setUp() {
+        serializer = "binary".equals(format)
+            ? new SiriusBinaryRedisSerializer(new BinaryTypeRegistry(List.of()), 1024)
+            : new GenericJackson2JsonRedisSerializer();
+        value = switch (valueType) {
+            case "string" -> "ACC-000123456789:USD";
+            case "decimal" -> new BigDecimal("1234567.8900");
+            case "instant" -> Instant.parse("2024-01-31T17:00:00Z");
+            default -> sampleMap();
+        };
+        bytes = serializer.serialize(value);
+        System.out.printf("%n%s/%s serialized size: %d bytes%n", format, valueType, bytes.length);
+    }
+    
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+    
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+    
+    private static Map<String, Object> sampleMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("accountId", "ACC-000123456789");
+        map.put("currency", "USD");
+        map.put("balance", "1234567.8900");
+        map.put("asOf", "2024-01-31T17:00:00Z");
+        return map;
+    }
+}
@@ -0,0 +1,76 @@
+package com.sirius.bench.fx;
+
+import com.sirius.core.fx.FxRateService;
+import com.sirius.core.fx.FxRateSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Currency conversion against the in-memory rate snapshot: by code, by pre-resolved index, and
+ * an as-of lookup in the rate history. Forty currencies, each with a thousand historical quotes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FxRateBenchmark {
+    
+    private static final String[] CURRENCIES = {
+        "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "NZD", "SEK", "NOK", "DKK",
+        "PLN", "CZK", "HUF", "RON", "BGN", "TRY", "ZAR", "MXN", "BRL", "CLP",
+        "COP", "PEN", "CNY", "HKD", "SGD", "KRW", "TWD", "INR", "IDR", "MYR",
+        "THB", "PHP", "ILS", "AED", "SAR", "QAR", "KWD", "EGP", "NGN", "KES"
+    };
+    private static final long START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    
+    private FxRateService service;
+    private int eur;
+    private int jpy;
+    private Instant validAt;
+    private Instant knownAt;
+    private final long units = 12_345_678_900L;
+    
+    @Setup
+    public void setUp() {
+        service = new FxRateService("USD", 100_000);
+        for (int version = 0; version < 1000; version++) {
+            long time = START + version * 60_000L;
+            for (int i = 0; i < CURRENCIES.length; i++) {
+                service.apply(CURRENCIES[i], 1.0 + i * 0.37 + version * 0.0001, time, time + "-" + i);
+            }
+        }
+        FxRateSnapshot snapshot = service.current();
+        eur = snapshot.indexOf("EUR");
+        jpy = snapshot.indexOf("JPY");
+        validAt = Instant.ofEpochMilli(START + 500 * 60_000L);
+        knownAt = Instant.ofEpochMilli(START + 900 * 60_000L);
+    }
+    
+    @Benchmark
+    public long convertByCode() {
+        return service.convert(units, "EUR", "JPY");
+    }
+    
+    @Benchmark
+    public long convertByIndex() {
+        return service.current().convert(units, eur, jpy);
+    }
+    
+    @Benchmark
+    public double rateAsOf() {
+        return service.rateAsOf("EUR", "JPY", validAt, knownAt);
+    }
+}
@@ -0,0 +1,194 @@
+package com.sirius.bench.netting;
+
+import com.sirius.core.netting.CurrencyNetting;
+import com.sirius.core.netting.NetPositionChunk;
+import com.sirius.core.netting.NettingEngine;
+import com.sirius.core.netting.NettingResult;
+import com.sirius.core.netting.NettingSink;
+import com.sirius.core.netting.ObligationSet;
+import com.sirius.core.netting.SettlementChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multilateral netting of a day's intercompany obligations through {@link NettingEngine}, on the
+ * common pool and on a single thread, against summing net positions in nested maps.
+ * <p>
+ * Entities trade mostly within groups of {@code groupSize}, with a small share of obligations
+ * across groups, so a currency has many clusters of different sizes. Setup nets the set once and
+ * checks the result against the naive sums before anything is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NettingBenchmark {
+    
+    private static final String[] CURRENCIES = {
+            "USD", "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "NZD", "SEK", "NOK",
+            "DKK", "SGD", "HKD", "CNY", "INR", "BRL", "MXN", "ZAR", "PLN", "CZK"
+    };
+    
+    @Param({"1000000"})
+    private int obligationCount;
+    
+    @Param({"10000"})
+    private int entityCount;
+    
+    @Param({"50"})
+    private int groupSize;
+    
+    private ObligationSet obligations;
+    private NettingEngine parallel;
+    private NettingEngine sequential;
+    private ForkJoinPool singleThread;
+    private final CountingSink sink = new CountingSink();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        ObligationSet.Builder builder = ObligationSet.builder(obligationCount);
+        for (int i = 0; i < obligationCount; i++) {
+            int payer = random.nextInt(entityCount);
+            int payee;
+            if (random.nextInt(100) == 0) {
+                payee = random.nextInt(entityCount);
+            } else {
+                int group = payer - payer % groupSize;
+                payee = Math.min(group + random.nextInt(groupSize), entityCount - 1);
+            }
+            if (payee == payer) {
+                payee = (payer + 1) % entityCount;
+            }
+            // Round amounts, so some positions cancel out exactly.
+            long units = random.nextInt(4) == 0
+                    ? (1 + random.nextInt(100)) * 1_000_000L
+                    : 1 + random.nextLong(10_000_000_000L);
+            builder.add("ENTITY-" + payer, "ENTITY-" + payee, CURRENCIES[random.nextInt(CURRENCIES.length)], units);
+        }
+        obligations = builder.build();
+        parallel = new NettingEngine(ForkJoinPool.commonPool(), 4096);
+        singleThread = new ForkJoinPool(1);
+        sequential = new NettingEngine(singleThread, 4096);
+        verify();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        singleThread.shutdown();
+    }
+    
+    @Benchmark
+    public NettingResult parallel() {
+        return parallel.net(obligations, sink);
+    }
+    
+    @Benchmark
+    public NettingResult singleThread() {
+        return sequential.net(obligations, sink);
+    }
+    
+    @Benchmark
+    public Map<String, Map<String, Long>> naiveNetPositions() {
+        return naiveNet();
+    }
+    
+    private Map<String, Map<String, Long>> naiveNet() {
+        Map<String, Map<String, Long>> positions = new HashMap<>();
+        for (int i = 0; i < obligations.size(); i++) {
+            Map<String, Long> currency = positions.computeIfAbsent(obligations.currencyOf(i), c -> new HashMap<>());
+            currency.merge(obligations.payerOf(i), -obligations.unitsOf(i), Long::sum);
+            currency.merge(obligations.payeeOf(i), obligations.unitsOf(i), Long::sum);
+        }
+        return positions;
+    }
+    
+    /**
+     * Nets once and checks that positions match the naive sums, that applying the settlements
+     * reproduces them, and that each currency needs fewer payments than it has non-zero positions.
+     */
+    private void verify() {
+        Map<String, Map<String, Long>> expected = naiveNet();
+        Map<String, Map<String, Long>> positions = new ConcurrentHashMap<>();
+        Map<String, Map<String, Long>> settled = new ConcurrentHashMap<>();
+        NettingResult result = parallel.net(obligations, new NettingSink() {
+            @Override
+            public void netPositions(NetPositionChunk chunk) {
+                Map<String, Long> currency = positions.computeIfAbsent(chunk.getCurrency(), c -> new ConcurrentHashMap<>());
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (currency.put(chunk.getEntityIds()[i], chunk.getUnits()[i]) != null) {
+                        throw new IllegalStateException("Position reported twice: " + chunk.getEntityIds()[i]);
+                    }
+                }
+            }
+            
+            @Override
+            public void settlements(SettlementChunk chunk) {
+                Map<String, Long> currency = settled.computeIfAbsent(chunk.getCurrency(), c -> new ConcurrentHashMap<>());
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (chunk.getUnits()[i] <= 0 || chunk.getPayers()[i].equals(chunk.getPayees()[i])) {
+                        throw new IllegalStateException("Invalid settlement in " + chunk.getCurrency());
+                    }
+                    currency.merge(chunk.getPayers()[i], -chunk.getUnits()[i], Long::sum);
+                    currency.merge(chunk.getPayees()[i], chunk.getUnits()[i], Long::sum);
+                }
+            }
+        });
+        if (!positions.equals(expected)) {
+            throw new IllegalStateException("Net positions differ from the naive sums");
+        }
+        for (CurrencyNetting currency : result.getCurrencies()) {
+            Map<String, Long> nonZero = new HashMap<>(positions.get(currency.getCurrency()));
+            nonZero.values().removeIf(units -> units == 0);
+            long sum = nonZero.values().stream().mapToLong(Long::longValue).sum();
+            Map<String, Long> paid = new HashMap<>(settled.getOrDefault(currency.getCurrency(), Map.of()));
+            paid.values().removeIf(units -> units == 0);
+            if (sum != 0) {
+                throw new IllegalStateException("Net positions in " + currency.getCurrency() + " do not sum to zero");
+            }
+            if (!paid.equals(nonZero)) {
+                throw new IllegalStateException("Settlements in " + currency.getCurrency() + " do not reproduce the net positions");
+            }
+            if (currency.getSettlements() > Math.max(0, nonZero.size() - 1)) {
+                throw new IllegalStateException("Too many settlements in " + currency.getCurrency()
+                        + ": " + currency.getSettlements() + " for " + nonZero.size() + " positions");
+            }
+        }
+    }
+    
+    private static final class CountingSink implements NettingSink {
+        
+        private final LongAdder rows = new LongAdder();
+        
+        @Override
+        public void netPositions(NetPositionChunk chunk) {
+            rows.add(chunk.size());
+        }
+        
+        @Override
+        public void settlements(SettlementChunk chunk) {
+            rows.add(chunk.size());
+        }
+    }
+}
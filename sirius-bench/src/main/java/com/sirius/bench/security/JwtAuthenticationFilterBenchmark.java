@@ -0,0 +1,74 @@
+package com.sirius.bench.security;
+
+import com.sirius.api.security.AuthenticationMetrics;
+import com.sirius.api.security.JwtAuthenticationFilter;
+import com.sirius.api.security.JwtTokenProvider;
+import com.sirius.api.security.TokenDenylist;
+import com.sirius.core.audit.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@code doFilterInternal} path with a stubbed {@link UserDetailsService}, so the numbers
+ * exclude the database round trip the real service would make in stateful mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+    
+    @Param({"false", "true"})
+    private boolean stateless;
+    
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+    
+    @Setup
+    public void setUp() {
+        JwtTokenProvider provider = SecurityFixtures.tokenProvider(cacheEnabled, stateless);
+        UserDetails user = SecurityFixtures.user();
+        UserDetailsService userDetailsService = username -> user;
+        filter = new JwtAuthenticationFilter(provider, userDetailsService,
+            Mockito.mock(TokenDenylist.class, Mockito.withSettings().stubOnly()),
+            new AuthenticationMetrics(new SimpleMeterRegistry()), AuditLog.NOOP);
+        
+        request = new MockHttpServletRequest("GET", "/api/health");
+        request.addHeader("Authorization", "Bearer " + provider.generateToken(user));
+        response = new MockHttpServletResponse();
+    }
+    
+    @Benchmark
+    public Object doFilter() throws Exception {
+        SecurityContextHolder.clearContext();
+        request.removeAttribute(filter.getClass().getName() + ".FILTERED");
+        filter.doFilter(request, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
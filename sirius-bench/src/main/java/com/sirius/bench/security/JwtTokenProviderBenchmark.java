@@ -0,0 +1,58 @@
+package com.sirius.bench.security;
+
+import com.sirius.api.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+    
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+    
+    @Param({"false", "true"})
+    private boolean stateless;
+    
+    private JwtTokenProvider provider;
+    private UserDetails user;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        provider = SecurityFixtures.tokenProvider(cacheEnabled, stateless);
+        user = SecurityFixtures.user();
+        token = provider.generateToken(user);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return provider.generateToken(user);
+    }
+    
+    @Benchmark
+    public String extractUsername() {
+        return provider.extractUsername(token);
+    }
+    
+    @Benchmark
+    public boolean isTokenValid() {
+        return provider.isTokenValid(token, user);
+    }
+}
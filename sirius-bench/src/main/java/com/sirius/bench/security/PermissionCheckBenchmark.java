@@ -0,0 +1,78 @@
+package com.sirius.bench.security;
+
+import com.sirius.api.security.CompiledPermissionEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An entity-scoped permission check through {@link CompiledPermissionEvaluator}, against the
+ * usual alternative of one {@code PERMISSION:entity} authority per grant scanned by name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionCheckBenchmark {
+    
+    private final CompiledPermissionEvaluator evaluator = new CompiledPermissionEvaluator();
+    private final String entityId = "ENTITY-12";
+    private final String permission = "PAYMENT_APPROVE";
+    private Authentication compiled;
+    private Authentication authorityStrings;
+    
+    @Setup
+    public void setUp() {
+        UserDetails user = SecurityFixtures.user();
+        compiled = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String permission : List.of("POSITION_READ", "FX_READ", "LEDGER_READ")) {
+            for (int entity = 0; entity < 16; entity++) {
+                authorities.add(new SimpleGrantedAuthority(permission + ":ENTITY-" + entity));
+            }
+        }
+        authorities.add(new SimpleGrantedAuthority("PAYMENT_APPROVE:ENTITY-7"));
+        authorities.add(new SimpleGrantedAuthority("PAYMENT_APPROVE:ENTITY-12"));
+        authorityStrings = new UsernamePasswordAuthenticationToken(user, null, authorities);
+    }
+    
+    @Benchmark
+    public boolean compiledScoped() {
+        return evaluator.hasPermission(compiled, entityId, permission);
+    }
+    
+    @Benchmark
+    public boolean compiledGlobal() {
+        return evaluator.hasPermission(compiled, entityId, "POSITION_READ");
+    }
+    
+    @Benchmark
+    public boolean authorityScan() {
+        String required = permission + ":" + entityId;
+        for (GrantedAuthority authority : authorityStrings.getAuthorities()) {
+            if (required.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
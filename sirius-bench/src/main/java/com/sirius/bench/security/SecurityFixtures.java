@@ -0,0 +1,58 @@
+package com.sirius.bench.security;
+
+import com.sirius.api.security.AuthorizedUser;
+import com.sirius.api.security.JwtTokenProvider;
+import com.sirius.api.security.RoleDefinitionRegistry;
+import com.sirius.api.security.VerifiedTokenCache;
+import com.sirius.core.security.Permission;
+import com.sirius.core.security.RoleDefinitions;
+import com.sirius.core.security.RoleGrant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the security components the way Spring would, without an application context
+ */
+final class SecurityFixtures {
+    
+    static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    static final long EXPIRATION = 86_400_000L;
+    
+    static final RoleDefinitions ROLES = new RoleDefinitions(1L, Map.of(
+        "USER", Permission.POSITION_READ.getMask() | Permission.FX_READ.getMask() | Permission.LEDGER_READ.getMask(),
+        "PAYMENT_APPROVER", Permission.PAYMENT_APPROVE.getMask()));
+    
+    static final List<RoleGrant> GRANTS = List.of(
+        new RoleGrant("USER", null),
+        new RoleGrant("PAYMENT_APPROVER", "ENTITY-7"),
+        new RoleGrant("PAYMENT_APPROVER", "ENTITY-12"));
+    
+    private SecurityFixtures() {
+    }
+    
+    static JwtTokenProvider tokenProvider(boolean cacheEnabled, boolean stateless) {
+        JwtTokenProvider provider = new JwtTokenProvider(
+            new VerifiedTokenCache(cacheEnabled, 100_000, new SimpleMeterRegistry()), roleDefinitions());
+        ReflectionTestUtils.setField(provider, "secret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", EXPIRATION);
+        ReflectionTestUtils.setField(provider, "stateless", stateless);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        return provider;
+    }
+    
+    static RoleDefinitionRegistry roleDefinitions() {
+        RoleDefinitionRegistry registry = Mockito.mock(RoleDefinitionRegistry.class, Mockito.withSettings().stubOnly());
+        Mockito.when(registry.current()).thenReturn(ROLES);
+        return registry;
+    }
+    
+    static UserDetails user() {
+        return new AuthorizedUser("admin", "{noop}admin123", true, true, true, true,
+            GRANTS, ROLES.compile(GRANTS), ROLES.getEpoch());
+    }
+}
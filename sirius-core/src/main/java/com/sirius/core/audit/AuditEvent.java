@@ -0,0 +1,53 @@
+package com.sirius.core.audit;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+/**
+ * One security-relevant event. {@code principal} is the user acting or, for a failed login, the
+ * user name tried; {@code detail} is a short machine-readable reason or target such as
+ * {@code expired} or {@code UserEntity#42}.
+ */
+@Value
+@Builder
+public class AuditEvent {
+    
+    /**
+     * Longest {@code principal} and {@code detail} kept; the rest is cut off, so a caller-supplied
+     * value such as a login user name cannot make the event unstorable.
+     */
+    public static final int MAX_TEXT_LENGTH = 255;
+    
+    public static final int MAX_REMOTE_ADDRESS_LENGTH = 64;
+    
+    Instant occurredAt;
+    
+    AuditEventType type;
+    
+    @Nullable
+    String principal;
+    
+    @Nullable
+    String detail;
+    
+    @Nullable
+    String remoteAddress;
+    
+    public static AuditEvent of(AuditEventType type, @Nullable String principal, @Nullable String detail,
+                                @Nullable String remoteAddress) {
+        return new AuditEvent(Instant.now(), type, truncate(principal, MAX_TEXT_LENGTH), truncate(detail, MAX_TEXT_LENGTH),
+            truncate(remoteAddress, MAX_REMOTE_ADDRESS_LENGTH));
+    }
+    
+    @Nullable
+    private static String truncate(@Nullable String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        int end = Character.isHighSurrogate(value.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        return value.substring(0, end);
+    }
+}
@@ -0,0 +1,23 @@
+package com.sirius.core.audit;
+
+public enum AuditEventType {
+    
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    LOGIN_RATE_LIMITED,
+    
+    /**
+     * A bearer token that was presented but not accepted: expired, invalid, for an unknown user,
+     * or revoked.
+     */
+    TOKEN_REJECTED,
+    
+    /**
+     * A role's permissions or a user's roles were changed.
+     */
+    ROLE_CHANGED,
+    
+    ENTITY_CREATED,
+    ENTITY_UPDATED,
+    ENTITY_DELETED
+}
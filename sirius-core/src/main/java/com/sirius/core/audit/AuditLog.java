@@ -0,0 +1,13 @@
+package com.sirius.core.audit;
+
+/**
+ * Where security-relevant events are reported. Implementations must return quickly and must not
+ * throw: recording happens on request threads, on the authentication path.
+ */
+public interface AuditLog {
+    
+    AuditLog NOOP = event -> {
+    };
+    
+    void record(AuditEvent event);
+}
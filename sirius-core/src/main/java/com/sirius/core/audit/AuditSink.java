@@ -0,0 +1,19 @@
+package com.sirius.core.audit;
+
+import java.util.List;
+
+/**
+ * Durable destination of audit events, written to in batches by a background thread.
+ */
+public interface AuditSink {
+    
+    /**
+     * Short name for metrics and logs.
+     */
+    String getName();
+    
+    /**
+     * Writes the batch, all or nothing where the destination allows it.
+     */
+    void write(List<AuditEvent> events);
+}
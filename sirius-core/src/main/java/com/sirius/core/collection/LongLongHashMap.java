@@ -0,0 +1,173 @@
+package com.sirius.core.collection;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from {@code long} to {@code long} with linear probing, for hot paths where
+ * boxed keys and values would dominate memory and allocation. Keys must be non-zero; zero marks
+ * an empty slot. Entries cannot be removed.
+ * <p>
+ * Not thread-safe. Keys and values share one array, so a reader racing a writer sees either the
+ * old or the new table and never a mix of the two; callers still need a lock or a validated
+ * optimistic read to get a meaningful answer.
+ */
+public class LongLongHashMap {
+    
+    private static final float LOAD_FACTOR = 0.6f;
+    
+    /**
+     * Key at even index, value at the following odd index.
+     */
+    private long[] table;
+    private int size;
+    private int resizeAt;
+    
+    public LongLongHashMap() {
+        this(16);
+    }
+    
+    public LongLongHashMap(int expectedSize) {
+        allocate(tableCapacity(expectedSize));
+    }
+    
+    /**
+     * @return the value for {@code key}, or {@code missing} if absent
+     */
+    public long get(long key, long missing) {
+        long[] t = table;
+        int mask = (t.length >> 1) - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long existing = t[slot << 1];
+            if (existing == key) {
+                return t[(slot << 1) + 1];
+            }
+            if (existing == 0) {
+                return missing;
+            }
+        }
+    }
+    
+    public boolean containsKey(long key) {
+        long[] t = table;
+        int mask = (t.length >> 1) - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long existing = t[slot << 1];
+            if (existing == key) {
+                return true;
+            }
+            if (existing == 0) {
+                return false;
+            }
+        }
+    }
+    
+    public void put(long key, long value) {
+        int slot = slotFor(key);
+        table[(slot << 1) + 1] = value;
+    }
+    
+    /**
+     * Adds {@code delta} to the value for {@code key}, treating an absent key as zero.
+     *
+     * @return the new value
+     * @throws ArithmeticException if the sum overflows
+     */
+    public long addTo(long key, long delta) {
+        int index = (slotFor(key) << 1) + 1;
+        long updated = Math.addExact(table[index], delta);
+        table[index] = updated;
+        return updated;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+    
+    public void forEach(Visitor visitor) {
+        long[] t = table;
+        for (int i = 0; i < t.length; i += 2) {
+            if (t[i] != 0) {
+                visitor.accept(t[i], t[i + 1]);
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Visitor {
+        
+        void accept(long key, long value);
+    }
+    
+    /**
+     * Finds or claims the slot for {@code key}, growing the table first if needed.
+     */
+    private int slotFor(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key must be non-zero");
+        }
+        if (size >= resizeAt) {
+            grow();
+        }
+        long[] t = table;
+        int mask = (t.length >> 1) - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long existing = t[slot << 1];
+            if (existing == key) {
+                return slot;
+            }
+            if (existing == 0) {
+                t[slot << 1] = key;
+                size++;
+                return slot;
+            }
+        }
+    }
+    
+    private void grow() {
+        long[] old = table;
+        long[] t = new long[old.length << 1];
+        int mask = (t.length >> 1) - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            long key = old[i];
+            if (key == 0) {
+                continue;
+            }
+            int slot = mix(key) & mask;
+            while (t[slot << 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            t[slot << 1] = key;
+            t[(slot << 1) + 1] = old[i + 1];
+        }
+        table = t;
+        resizeAt = (int) ((t.length >> 1) * LOAD_FACTOR);
+    }
+    
+    private void allocate(int capacity) {
+        table = new long[capacity << 1];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    private static int tableCapacity(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+    
+    /**
+     * Murmur3 finalizer; keys are often small, dense integers in the high bits.
+     */
+    static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,101 @@
+package com.sirius.core.collection;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free queue for many producers and a single consumer, built on a pre-allocated
+ * ring (D. Vyukov's bounded queue). Each slot carries a sequence number: a producer claims a
+ * position with one CAS and publishes the element by advancing the slot's sequence, and the
+ * consumer frees the slot by advancing it again. {@link #offer} never blocks and never allocates;
+ * when the ring is full it fails and the caller decides what to do.
+ *
+ * @param <T> element type
+ */
+public class MpscRingBuffer<T> {
+    
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    
+    /**
+     * Written by the consumer only; volatile so that {@link #size()} works from any thread.
+     */
+    private volatile long head;
+    
+    /**
+     * @param capacity a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+    }
+    
+    /**
+     * @return false if the ring is full
+     */
+    public boolean offer(T element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+    
+    /**
+     * Moves up to {@code max} elements into {@code target}, in the order they were offered. Must
+     * only be called from the consumer thread.
+     *
+     * @return the number of elements moved
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> target, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add((T) elements[index]);
+            elements[index] = null;
+            sequences.set(index, position + elements.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+    
+    /**
+     * Elements offered and not yet drained; approximate while producers are active.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, elements.length));
+    }
+    
+    public int capacity() {
+        return elements.length;
+    }
+}
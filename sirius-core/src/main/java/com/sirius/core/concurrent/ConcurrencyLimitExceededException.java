@@ -0,0 +1,10 @@
+package com.sirius.core.concurrent;
+
+import com.sirius.core.exception.SiriusException;
+
+public class ConcurrencyLimitExceededException extends SiriusException {
+    
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,70 @@
+package com.sirius.core.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fair, bounded gate in front of a scarce resource such as a connection pool. Callers beyond
+ * the limit queue on the semaphore, which parks virtual threads cheaply instead of letting
+ * them pile up inside the pool, and give up once the acquire timeout passes.
+ */
+public class ConcurrencyLimiter {
+    
+    private final String name;
+    private final int limit;
+    private final Semaphore permits;
+    private final long timeoutNanos;
+    private final AtomicLong rejected = new AtomicLong();
+    
+    public ConcurrencyLimiter(String name, int limit, Duration acquireTimeout) {
+        this.name = name;
+        this.limit = limit;
+        this.permits = new Semaphore(limit, true);
+        this.timeoutNanos = acquireTimeout.toNanos();
+    }
+    
+    /**
+     * Waits for a permit up to the acquire timeout. Every successful call must be paired with
+     * exactly one {@link #release()}.
+     *
+     * @throws ConcurrencyLimitExceededException if no permit became free in time
+     */
+    public void acquire() {
+        try {
+            if (permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.incrementAndGet();
+        throw new ConcurrencyLimitExceededException(
+            "Timed out waiting for " + name + " (limit " + limit + ")");
+    }
+    
+    public void release() {
+        permits.release();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    public int getInUse() {
+        return limit - permits.availablePermits();
+    }
+    
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+    
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,26 @@
+package com.sirius.core.concurrent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Exposes a {@link ConcurrencyLimiter} as {@code sirius.concurrency.*} meters tagged by resource
+ */
+public final class ConcurrencyLimiterMetrics {
+    
+    private ConcurrencyLimiterMetrics() {
+    }
+    
+    public static void bind(ConcurrencyLimiter limiter, String resource, MeterRegistry registry) {
+        Gauge.builder("sirius.concurrency.in.use", limiter, ConcurrencyLimiter::getInUse)
+            .tag("resource", resource)
+            .register(registry);
+        Gauge.builder("sirius.concurrency.waiting", limiter, ConcurrencyLimiter::getWaiting)
+            .tag("resource", resource)
+            .register(registry);
+        FunctionCounter.builder("sirius.concurrency.rejected", limiter, ConcurrencyLimiter::getRejected)
+            .tag("resource", resource)
+            .register(registry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.sirius.core.event;
+
+import java.util.Map;
+
+/**
+ * Fields of a cash movement on {@link EventStreams#TREASURY_EVENTS}: a signed amount booked to
+ * an account of a legal entity in one currency. Amounts are plain decimals, never floating point.
+ */
+public final class CashMovementEvent {
+    
+    public static final String TYPE = "CashMovement";
+    
+    public static final String EVENT_TYPE = "eventType";
+    public static final String ENTITY_ID = "entityId";
+    public static final String ACCOUNT_ID = "accountId";
+    public static final String CURRENCY = "currency";
+    public static final String AMOUNT = "amount";
+    
+    private CashMovementEvent() {
+    }
+    
+    /**
+     * Payload for {@code OutboxWriter.append}, which adds the event type itself.
+     */
+    public static Map<String, String> payload(String entityId, String accountId, String currency, String amount) {
+        return Map.of(ENTITY_ID, entityId, ACCOUNT_ID, accountId, CURRENCY, currency, AMOUNT, amount);
+    }
+}
@@ -0,0 +1,16 @@
+package com.sirius.core.event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends records to an event stream
+ */
+public interface EventStreamPublisher {
+    
+    /**
+     * Appends all records to the stream in one round trip. Either every record is accepted or
+     * an exception is thrown; on failure some records may already have been appended.
+     */
+    void publish(String stream, List<Map<String, String>> records);
+}
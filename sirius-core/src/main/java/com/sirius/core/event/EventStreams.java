@@ -0,0 +1,16 @@
+package com.sirius.core.event;
+
+/**
+ * Names of the event streams shared between modules
+ */
+public final class EventStreams {
+    
+    public static final String TREASURY_EVENTS = "treasury:events";
+    
+    public static final String FX_RATES = "treasury:fx-rates";
+    
+    public static final String SECURITY_AUDIT = "security:audit";
+    
+    private EventStreams() {
+    }
+}
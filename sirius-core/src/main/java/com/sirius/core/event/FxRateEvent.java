@@ -0,0 +1,23 @@
+package com.sirius.core.event;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Fields of a rate quote on {@link EventStreams#FX_RATES}: how many units of {@code currency} one
+ * unit of the base currency buys, valid from {@code validFrom} (epoch millis) until superseded.
+ * Without {@code validFrom} the quote is valid from the time it was added to the stream.
+ */
+public final class FxRateEvent {
+    
+    public static final String CURRENCY = "currency";
+    public static final String RATE = "rate";
+    public static final String VALID_FROM = "validFrom";
+    
+    private FxRateEvent() {
+    }
+    
+    public static Map<String, String> payload(String currency, String rate, Instant validFrom) {
+        return Map.of(CURRENCY, currency, RATE, rate, VALID_FROM, Long.toString(validFrom.toEpochMilli()));
+    }
+}
@@ -0,0 +1,32 @@
+package com.sirius.core.event;
+
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Cold storage for entries trimmed from a stream. Together with what is still in the stream it
+ * holds the complete history, so consumers can be rebuilt from any point.
+ */
+public interface StreamArchive {
+    
+    /**
+     * Stores entries that directly follow everything archived so far for the stream, in id order.
+     *
+     * @throws IllegalStateException if the first entry does not come after the last archived one
+     */
+    void append(String stream, List<StreamEntry> entries);
+    
+    /**
+     * @return id of the newest archived entry, or {@code null} if nothing is archived
+     */
+    @Nullable
+    String lastArchivedId(String stream);
+    
+    /**
+     * Passes every archived entry after {@code afterId} to {@code consumer}, in id order.
+     * Exceptions thrown by the consumer end the replay.
+     */
+    void replay(String stream, String afterId, Consumer<StreamEntry> consumer);
+}
@@ -0,0 +1,16 @@
+package com.sirius.core.event;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * One stream entry detached from Redis, as kept in a {@link StreamArchive}.
+ */
+@Value
+public class StreamEntry {
+    
+    String id;
+    
+    Map<String, String> fields;
+}
@@ -0,0 +1,55 @@
+package com.sirius.core.event;
+
+/**
+ * Helpers for stream entry ids of the form {@code <millis>-<sequence>}
+ */
+public final class StreamIds {
+    
+    /**
+     * Id before every entry; reading after it starts from the beginning of a stream.
+     */
+    public static final String BEGINNING = "0-0";
+    
+    private StreamIds() {
+    }
+    
+    /**
+     * Orders ids numerically, which string comparison does not.
+     */
+    public static int compare(String a, String b) {
+        int dashA = a.indexOf('-');
+        int dashB = b.indexOf('-');
+        int byMillis = Long.compare(millis(a, dashA), millis(b, dashB));
+        return byMillis != 0 ? byMillis : Long.compare(sequence(a, dashA), sequence(b, dashB));
+    }
+    
+    /**
+     * @return the smallest id after {@code id}, for bounds that must exclude it
+     */
+    public static String next(String id) {
+        int dash = id.indexOf('-');
+        return millis(id, dash) + "-" + (sequence(id, dash) + 1);
+    }
+    
+    /**
+     * @return the smallest id of entries added at {@code epochMillis}
+     */
+    public static String atMillis(long epochMillis) {
+        return epochMillis + "-0";
+    }
+    
+    /**
+     * @return the time in epoch millis at which the entry was added to the stream
+     */
+    public static long millis(String id) {
+        return millis(id, id.indexOf('-'));
+    }
+    
+    private static long millis(String id, int dash) {
+        return Long.parseLong(dash < 0 ? id : id.substring(0, dash));
+    }
+    
+    private static long sequence(String id, int dash) {
+        return dash < 0 ? 0 : Long.parseLong(id.substring(dash + 1));
+    }
+}
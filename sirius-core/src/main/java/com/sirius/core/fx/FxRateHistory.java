@@ -0,0 +1,92 @@
+package com.sirius.core.fx;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every rate quote received, with both its valid time and the time it was recorded, so that a
+ * question like "what did we believe on the 3rd the rate on the 1st was" can be answered after
+ * later corrections. Quotes are recorded in stream order, so recording times never decrease.
+ */
+final class FxRateHistory {
+    
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private final int limit;
+    
+    /**
+     * @param limit quotes kept per currency; the earliest recorded are dropped beyond that
+     */
+    FxRateHistory(int limit) {
+        this.limit = limit;
+    }
+    
+    void record(String currency, long validFrom, long recordedAt, double perBase) {
+        series.computeIfAbsent(currency, c -> new Series()).add(validFrom, recordedAt, perBase);
+    }
+    
+    /**
+     * @return the rate against the base valid at {@code validAt} as known at {@code knownAt}, or
+     *         {@code NaN} if there was none
+     */
+    double perBaseAsOf(String currency, long validAt, long knownAt) {
+        Series quotes = series.get(currency);
+        return quotes != null ? quotes.asOf(validAt, knownAt) : Double.NaN;
+    }
+    
+    private final class Series {
+        
+        private long[] validFrom = new long[16];
+        private long[] recordedAt = new long[16];
+        private double[] perBase = new double[16];
+        private int count;
+        
+        synchronized void add(long valid, long recorded, double rate) {
+            if (count == limit) {
+                int keep = limit / 2;
+                System.arraycopy(validFrom, count - keep, validFrom, 0, keep);
+                System.arraycopy(recordedAt, count - keep, recordedAt, 0, keep);
+                System.arraycopy(perBase, count - keep, perBase, 0, keep);
+                count = keep;
+            } else if (count == validFrom.length) {
+                int capacity = Math.min(count * 2, limit);
+                validFrom = Arrays.copyOf(validFrom, capacity);
+                recordedAt = Arrays.copyOf(recordedAt, capacity);
+                perBase = Arrays.copyOf(perBase, capacity);
+            }
+            validFrom[count] = valid;
+            recordedAt[count] = recorded;
+            perBase[count] = rate;
+            count++;
+        }
+        
+        /**
+         * Among the quotes recorded by {@code knownAt}, the one with the latest valid time not after
+         * {@code validAt}; of equally valid quotes, the last recorded is a correction and wins.
+         */
+        synchronized double asOf(long validAt, long knownAt) {
+            int known = upperBound(knownAt);
+            int best = -1;
+            for (int i = 0; i < known; i++) {
+                if (validFrom[i] <= validAt && (best < 0 || validFrom[i] >= validFrom[best])) {
+                    best = i;
+                }
+            }
+            return best >= 0 ? perBase[best] : Double.NaN;
+        }
+        
+        private int upperBound(long knownAt) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (recordedAt[mid] <= knownAt) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
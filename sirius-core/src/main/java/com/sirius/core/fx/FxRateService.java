@@ -0,0 +1,101 @@
+package com.sirius.core.fx;
+
+import com.sirius.core.event.StreamIds;
+import com.sirius.core.money.CurrencyCodes;
+
+import java.time.Instant;
+
+/**
+ * Current exchange rates for conversions on hot paths, plus the bitemporal history for as-of
+ * queries.
+ * <p>
+ * Readers get the current {@link FxRateSnapshot} from a volatile field: no lock, no allocation,
+ * and every rate they read from one snapshot is consistent with the others. Each update builds a
+ * new snapshot and swaps it in. Updates must come from one thread at a time, in stream order.
+ * <p>
+ * The current snapshot holds, per currency, the quote with the latest valid time seen; a quote
+ * valid from an earlier time than the current one is a back-dated correction and only goes into
+ * the history.
+ */
+public class FxRateService {
+    
+    private final FxRateHistory history;
+    private volatile FxRateSnapshot current;
+    
+    /**
+     * @param historyLimit quotes kept per currency for as-of queries
+     */
+    public FxRateService(String baseCurrency, int historyLimit) {
+        this.current = FxRateSnapshot.base(baseCurrency);
+        this.history = new FxRateHistory(historyLimit);
+    }
+    
+    public FxRateSnapshot current() {
+        return current;
+    }
+    
+    /**
+     * @return units of {@code to} bought by one unit of {@code from} at the current rates
+     * @throws FxRateUnavailableException if either currency has no rate
+     */
+    public double rate(CharSequence from, CharSequence to) {
+        return current.rate(from, to);
+    }
+    
+    /**
+     * Converts a fixed-point amount at the current rates.
+     *
+     * @throws FxRateUnavailableException if either currency has no rate
+     */
+    public long convert(long units, CharSequence from, CharSequence to) {
+        return current.convert(units, from, to);
+    }
+    
+    /**
+     * @param validAt the time the rate applied to
+     * @param knownAt the time the question is asked as of; quotes recorded later are ignored
+     * @throws FxRateUnavailableException if either currency had no rate at that point
+     */
+    public double rateAsOf(String from, String to, Instant validAt, Instant knownAt) {
+        if (from.equals(to)) {
+            return 1.0;
+        }
+        return perBaseAsOf(to, validAt, knownAt) / perBaseAsOf(from, validAt, knownAt);
+    }
+    
+    /**
+     * Records a quote and, unless it is back-dated, makes it current.
+     *
+     * @param perBase   units of {@code currency} bought by one unit of the base currency
+     * @param validFrom epoch millis the rate applies from
+     * @param streamId  id of the update; its time is when the quote was recorded
+     * @throws IllegalArgumentException if the currency is malformed or the base, or the rate is not positive
+     */
+    public void apply(String currency, double perBase, long validFrom, String streamId) {
+        CurrencyCodes.pack(currency);
+        FxRateSnapshot snapshot = current;
+        if (currency.equals(snapshot.getBaseCurrency())) {
+            throw new IllegalArgumentException("Rate quoted for the base currency " + currency);
+        }
+        if (!(perBase > 0) || Double.isInfinite(perBase)) {
+            throw new IllegalArgumentException("Invalid rate for " + currency + ": " + perBase);
+        }
+        history.record(currency, validFrom, StreamIds.millis(streamId), perBase);
+        int index = snapshot.indexOf(currency);
+        if (index < 0 || validFrom >= snapshot.getValidFrom(index)) {
+            current = snapshot.with(currency, perBase, validFrom, streamId);
+        }
+    }
+    
+    private double perBaseAsOf(String currency, Instant validAt, Instant knownAt) {
+        if (currency.equals(current.getBaseCurrency())) {
+            return 1.0;
+        }
+        double perBase = history.perBaseAsOf(currency, validAt.toEpochMilli(), knownAt.toEpochMilli());
+        if (Double.isNaN(perBase)) {
+            throw new FxRateUnavailableException("No exchange rate for " + currency + " valid at " + validAt
+                + " as known at " + knownAt);
+        }
+        return perBase;
+    }
+}
@@ -0,0 +1,196 @@
+package com.sirius.core.fx;
+
+import com.sirius.core.money.CurrencyCodes;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable set of exchange rates with every cross rate precomputed into a dense matrix.
+ * <p>
+ * Currencies are interned to dense indexes through a table keyed by {@link CurrencyCodes#pack},
+ * so a lookup by code is an array read and a rate is one more; nothing is allocated. Callers on
+ * hot paths can resolve {@link #indexOf} once and use the {@code int} overloads. Indexes are
+ * stable across the snapshots of one {@link FxRateService}, since currencies are only added.
+ * <p>
+ * Rates are {@code double}s. {@link #convert} rounds to the nearest fixed-point unit, which is exact
+ * for amounts below about 9 * 10<sup>11</sup> currency units.
+ */
+public final class FxRateSnapshot {
+    
+    private static final double MAX_UNITS = 0x1p63;
+    
+    private final String baseCurrency;
+    
+    /**
+     * Packed currency code to index + 1, zero for an unknown currency. Shared by snapshots with
+     * the same currencies.
+     */
+    private final short[] slots;
+    private final String[] currencies;
+    private final double[] perBase;
+    private final long[] validFrom;
+    
+    /**
+     * {@code matrix[from * size + to]}: units of {@code to} bought by one unit of {@code from}.
+     */
+    private final double[] matrix;
+    private final int size;
+    
+    @Nullable
+    private final String asOf;
+    
+    private FxRateSnapshot(String baseCurrency, short[] slots, String[] currencies, double[] perBase,
+                           long[] validFrom, double[] matrix, @Nullable String asOf) {
+        this.baseCurrency = baseCurrency;
+        this.slots = slots;
+        this.currencies = currencies;
+        this.perBase = perBase;
+        this.validFrom = validFrom;
+        this.matrix = matrix;
+        this.size = currencies.length;
+        this.asOf = asOf;
+    }
+    
+    /**
+     * A snapshot knowing only the base currency.
+     */
+    static FxRateSnapshot base(String baseCurrency) {
+        short[] slots = new short[1 << CurrencyCodes.BITS];
+        slots[CurrencyCodes.pack(baseCurrency)] = 1;
+        return new FxRateSnapshot(baseCurrency, slots, new String[] {baseCurrency}, new double[] {1.0},
+            new long[] {Long.MIN_VALUE}, new double[] {1.0}, null);
+    }
+    
+    /**
+     * A copy with one currency's rate against the base replaced or added. Changing a known
+     * currency recomputes its row and column only.
+     */
+    FxRateSnapshot with(String currency, double currencyPerBase, long currencyValidFrom, String streamId) {
+        int index = indexOf(currency);
+        if (index < 0) {
+            return withCurrency(currency, currencyPerBase, currencyValidFrom, streamId);
+        }
+        double[] rates = perBase.clone();
+        long[] valid = validFrom.clone();
+        double[] cross = matrix.clone();
+        rates[index] = currencyPerBase;
+        valid[index] = currencyValidFrom;
+        fillCross(cross, rates, index);
+        return new FxRateSnapshot(baseCurrency, slots, currencies, rates, valid, cross, streamId);
+    }
+    
+    private FxRateSnapshot withCurrency(String currency, double currencyPerBase, long currencyValidFrom, String streamId) {
+        if (size == Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many currencies");
+        }
+        short[] newSlots = slots.clone();
+        newSlots[CurrencyCodes.pack(currency)] = (short) (size + 1);
+        String[] newCurrencies = Arrays.copyOf(currencies, size + 1);
+        newCurrencies[size] = currency;
+        double[] rates = Arrays.copyOf(perBase, size + 1);
+        rates[size] = currencyPerBase;
+        long[] valid = Arrays.copyOf(validFrom, size + 1);
+        valid[size] = currencyValidFrom;
+        int newSize = size + 1;
+        double[] cross = new double[newSize * newSize];
+        for (int from = 0; from < size; from++) {
+            System.arraycopy(matrix, from * size, cross, from * newSize, size);
+        }
+        fillCross(cross, rates, size);
+        return new FxRateSnapshot(baseCurrency, newSlots, newCurrencies, rates, valid, cross, streamId);
+    }
+    
+    private static void fillCross(double[] cross, double[] rates, int index) {
+        int n = rates.length;
+        for (int other = 0; other < n; other++) {
+            cross[index * n + other] = rates[other] / rates[index];
+            cross[other * n + index] = rates[index] / rates[other];
+        }
+        cross[index * n + index] = 1.0;
+    }
+    
+    /**
+     * @return the dense index of the currency, or -1 if it has no rate
+     * @throws IllegalArgumentException if {@code currency} is not a three-letter code
+     */
+    public int indexOf(CharSequence currency) {
+        return slots[CurrencyCodes.pack(currency)] - 1;
+    }
+    
+    /**
+     * @return units of {@code to} bought by one unit of {@code from}
+     */
+    public double rate(int from, int to) {
+        return matrix[from * size + to];
+    }
+    
+    /**
+     * @throws FxRateUnavailableException if either currency has no rate
+     */
+    public double rate(CharSequence from, CharSequence to) {
+        return rate(require(from), require(to));
+    }
+    
+    /**
+     * Converts a fixed-point amount, rounding to the nearest unit.
+     *
+     * @throws ArithmeticException if the result does not fit a {@code long}
+     */
+    public long convert(long units, int from, int to) {
+        if (from == to) {
+            return units;
+        }
+        double converted = units * rate(from, to);
+        if (Math.abs(converted) >= MAX_UNITS) {
+            throw new ArithmeticException("Converted amount out of range");
+        }
+        return Math.round(converted);
+    }
+    
+    /**
+     * @throws FxRateUnavailableException if either currency has no rate
+     */
+    public long convert(long units, CharSequence from, CharSequence to) {
+        return convert(units, require(from), require(to));
+    }
+    
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+    
+    /**
+     * Currencies with a rate, in index order.
+     */
+    public List<String> getCurrencies() {
+        return List.of(currencies);
+    }
+    
+    /**
+     * @return epoch millis the currency's current rate is valid from
+     */
+    public long getValidFrom(int index) {
+        return validFrom[index];
+    }
+    
+    /**
+     * Id of the last rate update reflected, or {@code null} before the first one.
+     */
+    @Nullable
+    public String getAsOf() {
+        return asOf;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private int require(CharSequence currency) {
+        int index = indexOf(currency);
+        if (index < 0) {
+            throw new FxRateUnavailableException("No exchange rate for " + currency);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,10 @@
+package com.sirius.core.fx;
+
+import com.sirius.core.exception.SiriusException;
+
+public class FxRateUnavailableException extends SiriusException {
+    
+    public FxRateUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.sirius.core.job;
+
+import lombok.Value;
+
+import java.time.ZonedDateTime;
+
+/**
+ * One execution of a {@link ShardedJob}, identified by the time it was scheduled for.
+ */
+@Value
+public class JobRun {
+    
+    String id;
+    
+    String job;
+    
+    /**
+     * Fire time of the schedule, in the job's zone; the business date of an end-of-day job.
+     */
+    ZonedDateTime scheduledAt;
+}
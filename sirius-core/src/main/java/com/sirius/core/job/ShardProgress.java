@@ -0,0 +1,26 @@
+package com.sirius.core.job;
+
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Progress of one shard, kept across attempts: an attempt that takes over a shard from a failed
+ * node starts from the last checkpoint rather than from scratch.
+ */
+public interface ShardProgress {
+    
+    /**
+     * @return the position last checkpointed by any attempt, or null to start from the beginning
+     */
+    @Nullable
+    String getCheckpoint();
+    
+    /**
+     * Records that the work up to {@code position} is done and will not be repeated.
+     *
+     * @throws CancellationException if this node no longer owns the shard, because its lease
+     *                               expired or the node is stopping; the shard must stop at once
+     */
+    void checkpoint(String position);
+}
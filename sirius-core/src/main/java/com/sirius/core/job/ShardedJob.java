@@ -0,0 +1,45 @@
+package com.sirius.core.job;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * A batch job split into shards that nodes claim and run independently. Every node registers the
+ * same jobs; one node, the leader, starts runs on schedule and plans their shards, and all nodes
+ * work through them.
+ * <p>
+ * A shard can be run more than once, after a node fails or an attempt throws, so its work must be
+ * idempotent from its last checkpoint.
+ */
+public interface ShardedJob {
+    
+    /**
+     * Unique name, also used in Redis keys and metrics.
+     */
+    String getName();
+    
+    /**
+     * Spring cron expression of when runs start, e.g. {@code 0 0 22 * * MON-FRI}.
+     */
+    String getSchedule();
+    
+    /**
+     * Zone the schedule is evaluated in.
+     */
+    default ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+    
+    /**
+     * Splits a run into shards; called once per run, by the leader.
+     *
+     * @return shard keys, unique within the run
+     */
+    List<String> plan(JobRun run);
+    
+    /**
+     * Runs one shard, checkpointing as it goes.
+     */
+    void runShard(JobRun run, String shard, ShardProgress progress) throws Exception;
+}
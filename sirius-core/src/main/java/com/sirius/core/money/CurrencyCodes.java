@@ -0,0 +1,39 @@
+package com.sirius.core.money;
+
+/**
+ * Packs three-letter ISO 4217 codes into the low 15 bits of an {@code int}, five bits per
+ * letter, so currencies can be part of a primitive map key. Zero is never a valid code.
+ */
+public final class CurrencyCodes {
+    
+    public static final int BITS = 15;
+    
+    private CurrencyCodes() {
+    }
+    
+    /**
+     * @throws IllegalArgumentException unless {@code currency} is three letters A-Z
+     */
+    public static int pack(CharSequence currency) {
+        if (currency.length() != 3) {
+            throw new IllegalArgumentException("Not a currency code: " + currency);
+        }
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = currency.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                throw new IllegalArgumentException("Not a currency code: " + currency);
+            }
+            packed = (packed << 5) | (c - 'A' + 1);
+        }
+        return packed;
+    }
+    
+    public static String unpack(int packed) {
+        return new String(new char[] {
+            (char) ('A' - 1 + ((packed >> 10) & 0x1F)),
+            (char) ('A' - 1 + ((packed >> 5) & 0x1F)),
+            (char) ('A' - 1 + (packed & 0x1F))
+        });
+    }
+}
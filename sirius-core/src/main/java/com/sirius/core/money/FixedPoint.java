@@ -0,0 +1,76 @@
+package com.sirius.core.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts held as {@code long} counts of 1/10<sup>4</sup> of a currency unit, which covers
+ * every ISO 4217 minor unit and balances up to about 9.2 * 10<sup>14</sup> without allocating.
+ * Arithmetic that would overflow throws rather than wraps.
+ */
+public final class FixedPoint {
+    
+    public static final int SCALE = 4;
+    public static final long ONE = 10_000L;
+    
+    private FixedPoint() {
+    }
+    
+    /**
+     * Parses a plain decimal such as {@code -1250.5}, without exponent or grouping.
+     *
+     * @throws IllegalArgumentException if the text is malformed, has more than {@link #SCALE}
+     *                                  decimals or is out of range
+     */
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long units = 0;
+        int decimals = -1;
+        boolean digits = false;
+        try {
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (c >= '0' && c <= '9') {
+                    if (decimals >= 0 && ++decimals > SCALE) {
+                        throw new IllegalArgumentException("More than " + SCALE + " decimals: " + text);
+                    }
+                    units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                    digits = true;
+                } else {
+                    throw new IllegalArgumentException("Not a decimal amount: " + text);
+                }
+            }
+            if (!digits) {
+                throw new IllegalArgumentException("Not a decimal amount: " + text);
+            }
+            for (int d = Math.max(decimals, 0); d < SCALE; d++) {
+                units = Math.multiplyExact(units, 10);
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount out of range: " + text);
+        }
+        return negative ? -units : units;
+    }
+    
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+    
+    /**
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} decimals or is out of range
+     */
+    public static long fromBigDecimal(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+    
+    public static String format(long units) {
+        return toBigDecimal(units).toPlainString();
+    }
+}
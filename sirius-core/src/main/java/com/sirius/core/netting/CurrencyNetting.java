@@ -0,0 +1,27 @@
+package com.sirius.core.netting;
+
+import lombok.Value;
+
+/**
+ * Totals of a netting run in one currency.
+ */
+@Value
+public class CurrencyNetting {
+    
+    String currency;
+    
+    int obligations;
+    
+    int entities;
+    
+    /**
+     * Groups of entities connected by obligations; payments are only made within a cluster.
+     */
+    int clusters;
+    
+    long grossUnits;
+    
+    int settlements;
+    
+    long settledUnits;
+}
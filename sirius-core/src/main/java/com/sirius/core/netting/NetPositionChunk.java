@@ -0,0 +1,21 @@
+package com.sirius.core.netting;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Net positions in one currency: row {@code i} is {@code entityIds[i]} receiving {@code units[i]}
+ * more than it pays, or paying more if negative.
+ */
+@Getter
+@RequiredArgsConstructor
+public class NetPositionChunk {
+    
+    private final String currency;
+    private final String[] entityIds;
+    private final long[] units;
+    
+    public int size() {
+        return units.length;
+    }
+}
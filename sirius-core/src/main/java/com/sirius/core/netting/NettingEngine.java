@@ -0,0 +1,398 @@
+package com.sirius.core.netting;
+
+import com.sirius.core.collection.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multilateral netting of intercompany obligations: per currency, every entity's net position
+ * (what it is owed less what it owes) and a set of payments that settles those positions.
+ * <p>
+ * Currencies are netted in parallel on the given pool. Within a currency, entities are split into
+ * clusters connected by obligations (union-find), which settle independently and are again
+ * spread over the pool. The work runs on {@code int}/{@code long} arrays indexed by dense entity
+ * ids, and amounts are fixed-point {@code long}s, so nothing is boxed and totals are exact.
+ * <p>
+ * Finding the fewest payments is NP-hard (it amounts to partitioning the positions into the most
+ * zero-sum groups). The engine first pairs debtors and creditors with exactly opposite positions,
+ * then settles the rest greedily, which bounds a cluster with {@code n} non-zero positions to at
+ * most {@code n - 1} payments.
+ * <p>
+ * Results go to a {@link NettingSink} in chunks of at most {@code chunkSize} rows as each
+ * currency and cluster range completes, so they never have to be held in memory at once.
+ */
+public class NettingEngine {
+    
+    /**
+     * Entities per settlement task; clusters are not split, so a single larger one is a task of
+     * its own.
+     */
+    private static final int SETTLE_BATCH = 4096;
+    
+    /**
+     * Below this many creditors, exact matches are found by scanning instead of hashing.
+     */
+    private static final int SCAN_LIMIT = 16;
+    
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    
+    public NettingEngine(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * @throws ArithmeticException if a position or the gross amount of a currency overflows
+     */
+    public NettingResult net(ObligationSet obligations, NettingSink sink) {
+        int currencyCount = obligations.currencyCount();
+        int[] offsets = new int[currencyCount + 1];
+        for (int i = 0; i < obligations.size(); i++) {
+            offsets[obligations.currencies[i] + 1]++;
+        }
+        for (int c = 0; c < currencyCount; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] order = new int[obligations.size()];
+        int[] fill = Arrays.copyOf(offsets, currencyCount);
+        for (int i = 0; i < obligations.size(); i++) {
+            order[fill[obligations.currencies[i]]++] = i;
+        }
+        
+        List<CurrencyTask> tasks = new ArrayList<>(currencyCount);
+        for (int c = 0; c < currencyCount; c++) {
+            tasks.add(new CurrencyTask(obligations, sink, c, order, offsets[c], offsets[c + 1]));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+        
+        List<CurrencyNetting> results = new ArrayList<>(currencyCount);
+        for (CurrencyTask task : tasks) {
+            results.add(task.join());
+        }
+        return new NettingResult(results);
+    }
+    
+    private final class CurrencyTask extends RecursiveTask<CurrencyNetting> {
+        
+        private final ObligationSet obligations;
+        private final NettingSink sink;
+        private final int currency;
+        private final int[] order;
+        private final int from;
+        private final int to;
+        
+        private CurrencyTask(ObligationSet obligations, NettingSink sink, int currency, int[] order, int from, int to) {
+            this.obligations = obligations;
+            this.sink = sink;
+            this.currency = currency;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected CurrencyNetting compute() {
+            int count = to - from;
+            int[] local = new int[obligations.entityCount()];
+            Arrays.fill(local, -1);
+            int[] globals = new int[Math.min(obligations.entityCount(), 2 * count)];
+            int[] payers = new int[count];
+            int[] payees = new int[count];
+            int entities = 0;
+            for (int i = 0; i < count; i++) {
+                int o = order[from + i];
+                int payer = obligations.payers[o];
+                int payee = obligations.payees[o];
+                if (local[payer] < 0) {
+                    globals[entities] = payer;
+                    local[payer] = entities++;
+                }
+                if (local[payee] < 0) {
+                    globals[entities] = payee;
+                    local[payee] = entities++;
+                }
+                payers[i] = local[payer];
+                payees[i] = local[payee];
+            }
+            
+            long[] net = new long[entities];
+            long gross = 0;
+            int[] parent = new int[entities];
+            int[] treeSize = new int[entities];
+            for (int e = 0; e < entities; e++) {
+                parent[e] = e;
+                treeSize[e] = 1;
+            }
+            for (int i = 0; i < count; i++) {
+                long units = obligations.units[order[from + i]];
+                net[payers[i]] = Math.subtractExact(net[payers[i]], units);
+                net[payees[i]] = Math.addExact(net[payees[i]], units);
+                gross = Math.addExact(gross, units);
+                union(parent, treeSize, payers[i], payees[i]);
+            }
+            
+            // Counting sort of entities by cluster, so each cluster is a contiguous run of members.
+            int[] cluster = treeSize;
+            Arrays.fill(cluster, -1);
+            int clusters = 0;
+            int[] clusterOf = new int[entities];
+            for (int e = 0; e < entities; e++) {
+                int root = find(parent, e);
+                if (cluster[root] < 0) {
+                    cluster[root] = clusters++;
+                }
+                clusterOf[e] = cluster[root];
+            }
+            int[] clusterStart = new int[clusters + 1];
+            for (int e = 0; e < entities; e++) {
+                clusterStart[clusterOf[e] + 1]++;
+            }
+            for (int c = 0; c < clusters; c++) {
+                clusterStart[c + 1] += clusterStart[c];
+            }
+            int[] members = parent;
+            int[] memberFill = Arrays.copyOf(clusterStart, clusters);
+            for (int e = 0; e < entities; e++) {
+                members[memberFill[clusterOf[e]]++] = e;
+            }
+            
+            Settlement settlement = new Settlement(obligations, sink, currency, globals, net, members, clusterStart, 0, clusters);
+            settlement.fork();
+            emitPositions(globals, net, entities);
+            settlement.join();
+            return new CurrencyNetting(obligations.currency(currency), count, entities, clusters, gross,
+                    settlement.settlements, settlement.settledUnits);
+        }
+        
+        private void emitPositions(int[] globals, long[] net, int entities) {
+            String code = obligations.currency(currency);
+            for (int start = 0; start < entities; start += chunkSize) {
+                int size = Math.min(chunkSize, entities - start);
+                String[] entityIds = new String[size];
+                for (int i = 0; i < size; i++) {
+                    entityIds[i] = obligations.entityId(globals[start + i]);
+                }
+                sink.netPositions(new NetPositionChunk(code, entityIds, Arrays.copyOfRange(net, start, start + size)));
+            }
+        }
+    }
+    
+    /**
+     * Settles the clusters {@code [fromCluster, toCluster)}, splitting the range while it holds more
+     * than {@link #SETTLE_BATCH} entities.
+     */
+    private final class Settlement extends RecursiveAction {
+        
+        private final ObligationSet obligations;
+        private final NettingSink sink;
+        private final int currency;
+        private final int[] globals;
+        private final long[] net;
+        private final int[] members;
+        private final int[] clusterStart;
+        private final int fromCluster;
+        private final int toCluster;
+        
+        private int settlements;
+        private long settledUnits;
+        
+        private int[] payers;
+        private int[] payees;
+        private long[] amounts;
+        private int buffered;
+        
+        private Settlement(ObligationSet obligations, NettingSink sink, int currency, int[] globals, long[] net,
+                           int[] members, int[] clusterStart, int fromCluster, int toCluster) {
+            this.obligations = obligations;
+            this.sink = sink;
+            this.currency = currency;
+            this.globals = globals;
+            this.net = net;
+            this.members = members;
+            this.clusterStart = clusterStart;
+            this.fromCluster = fromCluster;
+            this.toCluster = toCluster;
+        }
+        
+        @Override
+        protected void compute() {
+            int entities = clusterStart[toCluster] - clusterStart[fromCluster];
+            if (entities > SETTLE_BATCH && toCluster - fromCluster > 1) {
+                int middle = splitPoint();
+                Settlement left = split(fromCluster, middle);
+                Settlement right = split(middle, toCluster);
+                ForkJoinTask.invokeAll(left, right);
+                settlements = left.settlements + right.settlements;
+                settledUnits = Math.addExact(left.settledUnits, right.settledUnits);
+                return;
+            }
+            
+            int capacity = Math.min(chunkSize, entities);
+            payers = new int[capacity];
+            payees = new int[capacity];
+            amounts = new long[capacity];
+            long[] remaining = new long[entities];
+            int[] debtors = new int[entities];
+            int[] creditors = new int[entities];
+            int[] sameAmount = new int[entities];
+            for (int c = fromCluster; c < toCluster; c++) {
+                settle(clusterStart[c], clusterStart[c + 1], remaining, debtors, creditors, sameAmount);
+            }
+            flush();
+        }
+        
+        private Settlement split(int from, int to) {
+            return new Settlement(obligations, sink, currency, globals, net, members, clusterStart, from, to);
+        }
+        
+        /**
+         * @return the cluster boundary closest to halving the entities of the range
+         */
+        private int splitPoint() {
+            int target = (clusterStart[fromCluster] + clusterStart[toCluster]) >>> 1;
+            int low = fromCluster + 1;
+            int high = toCluster - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (clusterStart[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        private void settle(int start, int end, long[] remaining, int[] debtors, int[] creditors, int[] sameAmount) {
+            int debtorCount = 0;
+            int creditorCount = 0;
+            int base = clusterStart[fromCluster];
+            for (int m = start; m < end; m++) {
+                int entity = members[m];
+                long position = net[entity];
+                if (position < 0) {
+                    debtors[debtorCount++] = m - base;
+                    remaining[m - base] = -position;
+                } else if (position > 0) {
+                    creditors[creditorCount++] = m - base;
+                    remaining[m - base] = position;
+                }
+            }
+            if (debtorCount == 0) {
+                return;
+            }
+            
+            // Exact opposites settle with one payment and drop two positions at once.
+            if (creditorCount <= SCAN_LIMIT) {
+                for (int d = 0; d < debtorCount; d++) {
+                    for (int c = 0; c < creditorCount; c++) {
+                        if (remaining[creditors[c]] == remaining[debtors[d]]) {
+                            pay(debtors[d], creditors[c], remaining[debtors[d]], base, remaining);
+                            break;
+                        }
+                    }
+                }
+            } else {
+                // Creditors by amount, chained through sameAmount; values are creditor index + 1.
+                LongLongHashMap byAmount = new LongLongHashMap(creditorCount);
+                for (int c = 0; c < creditorCount; c++) {
+                    long amount = remaining[creditors[c]];
+                    sameAmount[c] = (int) byAmount.get(amount, 0L);
+                    byAmount.put(amount, c + 1);
+                }
+                for (int d = 0; d < debtorCount; d++) {
+                    long amount = remaining[debtors[d]];
+                    int head = (int) byAmount.get(amount, 0L);
+                    if (head != 0) {
+                        byAmount.put(amount, sameAmount[head - 1]);
+                        pay(debtors[d], creditors[head - 1], amount, base, remaining);
+                    }
+                }
+            }
+            
+            int d = 0;
+            int c = 0;
+            while (true) {
+                while (d < debtorCount && remaining[debtors[d]] == 0) {
+                    d++;
+                }
+                while (c < creditorCount && remaining[creditors[c]] == 0) {
+                    c++;
+                }
+                if (d == debtorCount || c == creditorCount) {
+                    break;
+                }
+                pay(debtors[d], creditors[c], Math.min(remaining[debtors[d]], remaining[creditors[c]]), base, remaining);
+            }
+        }
+        
+        private void pay(int debtor, int creditor, long amount, int base, long[] remaining) {
+            remaining[debtor] -= amount;
+            remaining[creditor] -= amount;
+            payers[buffered] = members[base + debtor];
+            payees[buffered] = members[base + creditor];
+            amounts[buffered++] = amount;
+            settlements++;
+            settledUnits = Math.addExact(settledUnits, amount);
+            if (buffered == amounts.length) {
+                flush();
+            }
+        }
+        
+        private void flush() {
+            if (buffered == 0) {
+                return;
+            }
+            String[] payerIds = new String[buffered];
+            String[] payeeIds = new String[buffered];
+            for (int i = 0; i < buffered; i++) {
+                payerIds[i] = obligations.entityId(globals[payers[i]]);
+                payeeIds[i] = obligations.entityId(globals[payees[i]]);
+            }
+            sink.settlements(new SettlementChunk(obligations.currency(currency), payerIds, payeeIds,
+                    Arrays.copyOf(amounts, buffered)));
+            buffered = 0;
+        }
+    }
+    
+    private static void union(int[] parent, int[] treeSize, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (treeSize[rootA] < treeSize[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        treeSize[rootA] += treeSize[rootB];
+    }
+    
+    /**
+     * Finds the root, halving the path on the way.
+     */
+    private static int find(int[] parent, int e) {
+        while (parent[e] != e) {
+            parent[e] = parent[parent[e]];
+            e = parent[e];
+        }
+        return e;
+    }
+}
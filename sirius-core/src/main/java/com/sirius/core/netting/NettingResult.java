@@ -0,0 +1,19 @@
+package com.sirius.core.netting;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class NettingResult {
+    
+    List<CurrencyNetting> currencies;
+    
+    public long settlements() {
+        long total = 0;
+        for (CurrencyNetting currency : currencies) {
+            total += currency.getSettlements();
+        }
+        return total;
+    }
+}
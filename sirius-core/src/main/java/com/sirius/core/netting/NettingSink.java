@@ -0,0 +1,13 @@
+package com.sirius.core.netting;
+
+/**
+ * Receives the results of a netting run in chunks as they are computed, e.g. to write them out
+ * while the run goes on. Called from the engine's worker threads, possibly concurrently, and in
+ * no particular order across currencies and clusters.
+ */
+public interface NettingSink {
+    
+    void netPositions(NetPositionChunk chunk);
+    
+    void settlements(SettlementChunk chunk);
+}
@@ -0,0 +1,148 @@
+package com.sirius.core.netting;
+
+import com.sirius.core.money.CurrencyCodes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intercompany obligations to be netted, in columns: obligation {@code i} is
+ * {@code payers[i]} owing {@code units[i]} of {@code currencies[i]} to {@code payees[i]}. Entities
+ * and currencies are interned to dense {@code int}s, so a million obligations cost a few arrays
+ * and the engine can index by entity without hashing.
+ */
+public final class ObligationSet {
+    
+    private final String[] entityIds;
+    private final String[] currencyCodes;
+    final int[] payers;
+    final int[] payees;
+    final int[] currencies;
+    final long[] units;
+    private final int size;
+    
+    private ObligationSet(Builder builder) {
+        this.entityIds = builder.entityIds.toArray(new String[0]);
+        this.currencyCodes = builder.currencyCodes.toArray(new String[0]);
+        this.size = builder.size;
+        this.payers = Arrays.copyOf(builder.payers, size);
+        this.payees = Arrays.copyOf(builder.payees, size);
+        this.currencies = Arrays.copyOf(builder.currencies, size);
+        this.units = Arrays.copyOf(builder.units, size);
+    }
+    
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int entityCount() {
+        return entityIds.length;
+    }
+    
+    public String entityId(int entity) {
+        return entityIds[entity];
+    }
+    
+    public int currencyCount() {
+        return currencyCodes.length;
+    }
+    
+    public String currency(int currency) {
+        return currencyCodes[currency];
+    }
+    
+    public String payerOf(int obligation) {
+        return entityIds[payers[obligation]];
+    }
+    
+    public String payeeOf(int obligation) {
+        return entityIds[payees[obligation]];
+    }
+    
+    public String currencyOf(int obligation) {
+        return currencyCodes[currencies[obligation]];
+    }
+    
+    public long unitsOf(int obligation) {
+        return units[obligation];
+    }
+    
+    public static final class Builder {
+        
+        private final Map<String, Integer> entityIndex = new HashMap<>();
+        private final List<String> entityIds = new ArrayList<>();
+        private final List<String> currencyCodes = new ArrayList<>();
+        
+        /**
+         * Dense index plus one by packed currency code; zero for a currency not seen yet.
+         */
+        private final int[] currencyIndex = new int[1 << CurrencyCodes.BITS];
+        
+        private int[] payers;
+        private int[] payees;
+        private int[] currencies;
+        private long[] units;
+        private int size;
+        
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            payers = new int[capacity];
+            payees = new int[capacity];
+            currencies = new int[capacity];
+            units = new long[capacity];
+        }
+        
+        /**
+         * @param units fixed-point amount owed, see {@link com.sirius.core.money.FixedPoint}
+         * @throws IllegalArgumentException if the amount is not positive, the entity owes itself or
+         *                                  the currency is not a three-letter code
+         */
+        public Builder add(String payer, String payee, String currency, long units) {
+            if (units <= 0) {
+                throw new IllegalArgumentException("Obligation amount must be positive: " + units);
+            }
+            if (payer.equals(payee)) {
+                throw new IllegalArgumentException("Entity cannot owe itself: " + payer);
+            }
+            int code = CurrencyCodes.pack(currency);
+            if (currencyIndex[code] == 0) {
+                currencyCodes.add(CurrencyCodes.unpack(code));
+                currencyIndex[code] = currencyCodes.size();
+            }
+            if (size == this.units.length) {
+                int capacity = size * 2;
+                payers = Arrays.copyOf(payers, capacity);
+                payees = Arrays.copyOf(payees, capacity);
+                currencies = Arrays.copyOf(currencies, capacity);
+                this.units = Arrays.copyOf(this.units, capacity);
+            }
+            payers[size] = entity(payer);
+            payees[size] = entity(payee);
+            currencies[size] = currencyIndex[code] - 1;
+            this.units[size] = units;
+            size++;
+            return this;
+        }
+        
+        public ObligationSet build() {
+            return new ObligationSet(this);
+        }
+        
+        private int entity(String entityId) {
+            Integer index = entityIndex.get(entityId);
+            if (index == null) {
+                index = entityIds.size();
+                entityIndex.put(entityId, index);
+                entityIds.add(entityId);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sirius.core.netting;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Settlement payments in one currency: row {@code i} is {@code payers[i]} paying {@code units[i]}
+ * to {@code payees[i]}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SettlementChunk {
+    
+    private final String currency;
+    private final String[] payers;
+    private final String[] payees;
+    private final long[] units;
+    
+    public int size() {
+        return units.length;
+    }
+}
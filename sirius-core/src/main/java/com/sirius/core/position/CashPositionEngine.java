@@ -0,0 +1,341 @@
+package com.sirius.core.position;
+
+import com.sirius.core.collection.LongLongHashMap;
+import com.sirius.core.money.CurrencyCodes;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory cash positions per entity, account and currency, kept up to date from the treasury
+ * event stream.
+ * <p>
+ * Amounts are fixed-point {@code long}s (see {@link com.sirius.core.money.FixedPoint}). Entities and
+ * accounts are interned to dense {@code int}s and combined with the packed currency into a
+ * {@code long} key, so a position lookup is two hash probes and allocates nothing. Positions are
+ * spread over lock stripes: reads use an optimistic {@link StampedLock} read and only fall back
+ * to a read lock if a write to the same stripe raced them. Entity totals per currency are kept
+ * alongside, so they are as cheap to read as a single account.
+ * <p>
+ * Events must be applied in stream order, by one thread at a time. A {@link #snapshot} locks
+ * every stripe, so it reflects exactly the events up to its stream id.
+ */
+public class CashPositionEngine {
+    
+    private static final int CURRENCY_MASK = (1 << CurrencyCodes.BITS) - 1;
+    
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    
+    private final Map<String, Integer> entityIndex = new ConcurrentHashMap<>();
+    private final Map<Integer, EntityAccounts> entities = new ConcurrentHashMap<>();
+    private volatile String[] accountNames = new String[1024];
+    private volatile int[] accountEntities = new int[1024];
+    private volatile int accountCount;
+    
+    @Nullable
+    private volatile String lastAppliedId;
+    
+    public CashPositionEngine(int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+    
+    /**
+     * Books {@code units} to the account and its entity total.
+     *
+     * @param streamId id of the event, recorded as the engine's position in the stream
+     * @throws IllegalArgumentException if the currency is not a three-letter code
+     * @throws ArithmeticException      if a balance would overflow; nothing is booked
+     */
+    public void apply(String entityId, String accountId, String currency, long units, String streamId) {
+        int ccy = CurrencyCodes.pack(currency);
+        EntityAccounts entity = entity(entityId);
+        int account = entity.account(accountId);
+        entity.currencies.add(ccy);
+        
+        long accountKey = key(account, ccy);
+        long entityKey = key(entity.index, ccy);
+        Stripe accountStripe = stripeFor(accountKey);
+        Stripe entityStripe = stripeFor(entityKey);
+        Stripe first = accountStripe.index <= entityStripe.index ? accountStripe : entityStripe;
+        Stripe second = first == accountStripe ? entityStripe : accountStripe;
+        
+        long firstStamp = first.lock.writeLock();
+        long secondStamp = second != first ? second.lock.writeLock() : 0L;
+        try {
+            long accountBalance = Math.addExact(accountStripe.accounts.get(accountKey, 0L), units);
+            long entityBalance = Math.addExact(entityStripe.entities.get(entityKey, 0L), units);
+            accountStripe.accounts.put(accountKey, accountBalance);
+            entityStripe.entities.put(entityKey, entityBalance);
+            accountStripe.changed.put(accountKey, 1L);
+            lastAppliedId = streamId;
+        } finally {
+            if (second != first) {
+                second.lock.unlockWrite(secondStamp);
+            }
+            first.lock.unlockWrite(firstStamp);
+        }
+    }
+    
+    /**
+     * @return the balance in fixed-point units; zero for an unknown account or currency
+     */
+    public long balance(String entityId, String accountId, String currency) {
+        Integer entityKey = entityIndex.get(entityId);
+        if (entityKey == null) {
+            return 0L;
+        }
+        Integer account = entities.get(entityKey).accounts.get(accountId);
+        if (account == null) {
+            return 0L;
+        }
+        long key = key(account, CurrencyCodes.pack(currency));
+        return read(key, false);
+    }
+    
+    /**
+     * @return the sum over all accounts of the entity in one currency
+     */
+    public long entityBalance(String entityId, String currency) {
+        Integer entity = entityIndex.get(entityId);
+        if (entity == null) {
+            return 0L;
+        }
+        return read(key(entity, CurrencyCodes.pack(currency)), true);
+    }
+    
+    /**
+     * @return the entity's totals keyed by currency code, empty for an unknown entity
+     */
+    public Map<String, Long> entityBalances(String entityId) {
+        Map<String, Long> balances = new TreeMap<>();
+        Integer entity = entityIndex.get(entityId);
+        if (entity == null) {
+            return balances;
+        }
+        for (int ccy : entities.get(entity).currencies) {
+            balances.put(CurrencyCodes.unpack(ccy), read(key(entity, ccy), true));
+        }
+        return balances;
+    }
+    
+    @Nullable
+    public String getLastAppliedId() {
+        return lastAppliedId;
+    }
+    
+    public int getAccountCount() {
+        return accountCount;
+    }
+    
+    /**
+     * Captures positions consistently with {@link #getLastAppliedId()}, blocking updates only while
+     * the stripes are copied.
+     *
+     * @param changedOnly include only positions changed since the previous snapshot, and start
+     *                    tracking changes afresh
+     */
+    public PositionSnapshot snapshot(boolean changedOnly) {
+        long[] keys;
+        long[] units;
+        String streamId;
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].lock.writeLock();
+        }
+        try {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                size += changedOnly ? stripe.changed.size() : stripe.accounts.size();
+            }
+            keys = new long[size];
+            units = new long[size];
+            int[] next = {0};
+            for (Stripe stripe : stripes) {
+                LongLongHashMap source = changedOnly ? stripe.changed : stripe.accounts;
+                source.forEach((key, value) -> {
+                    keys[next[0]] = key;
+                    units[next[0]++] = stripe.accounts.get(key, 0L);
+                });
+                if (changedOnly) {
+                    stripe.changed.clear();
+                }
+            }
+            streamId = lastAppliedId;
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].lock.unlockWrite(stamps[i]);
+            }
+        }
+        
+        String[] entityIds = new String[keys.length];
+        String[] accountIds = new String[keys.length];
+        String[] currencies = new String[keys.length];
+        String[] names = accountNames;
+        int[] owners = accountEntities;
+        Map<Integer, String> entityNames = entityNames();
+        for (int i = 0; i < keys.length; i++) {
+            int account = (int) (keys[i] >>> CurrencyCodes.BITS);
+            accountIds[i] = names[account];
+            entityIds[i] = entityNames.get(owners[account]);
+            currencies[i] = CurrencyCodes.unpack((int) (keys[i] & CURRENCY_MASK));
+        }
+        return new PositionSnapshot(streamId, changedOnly, entityIds, accountIds, currencies, units);
+    }
+    
+    /**
+     * Marks the positions of a snapshot that could not be stored as changed again, so the next
+     * change-only snapshot includes them.
+     */
+    public void markUnsaved(PositionSnapshot snapshot) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            EntityAccounts entity = entity(snapshot.getEntityIds()[i]);
+            long key = key(entity.account(snapshot.getAccountIds()[i]), CurrencyCodes.pack(snapshot.getCurrencies()[i]));
+            Stripe stripe = stripeFor(key);
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.changed.put(key, 1L);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+    
+    /**
+     * Loads a full snapshot, typically a checkpoint, into an empty engine. The positions count as
+     * saved.
+     */
+    public void restore(PositionSnapshot snapshot) {
+        if (lastAppliedId != null || accountCount > 0) {
+            throw new IllegalStateException("Positions can only be restored into an empty engine");
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            EntityAccounts entity = entity(snapshot.getEntityIds()[i]);
+            int ccy = CurrencyCodes.pack(snapshot.getCurrencies()[i]);
+            long accountKey = key(entity.account(snapshot.getAccountIds()[i]), ccy);
+            long entityKey = key(entity.index, ccy);
+            entity.currencies.add(ccy);
+            Stripe accountStripe = stripeFor(accountKey);
+            Stripe entityStripe = stripeFor(entityKey);
+            long stamp = accountStripe.lock.writeLock();
+            try {
+                accountStripe.accounts.put(accountKey, snapshot.getUnits()[i]);
+            } finally {
+                accountStripe.lock.unlockWrite(stamp);
+            }
+            stamp = entityStripe.lock.writeLock();
+            try {
+                entityStripe.entities.addTo(entityKey, snapshot.getUnits()[i]);
+            } finally {
+                entityStripe.lock.unlockWrite(stamp);
+            }
+        }
+        lastAppliedId = snapshot.getStreamId();
+    }
+    
+    private long read(long key, boolean entityTotal) {
+        Stripe stripe = stripeFor(key);
+        LongLongHashMap map = entityTotal ? stripe.entities : stripe.accounts;
+        long stamp = stripe.lock.tryOptimisticRead();
+        long value = map.get(key, 0L);
+        if (stripe.lock.validate(stamp)) {
+            return value;
+        }
+        stamp = stripe.lock.readLock();
+        try {
+            return map.get(key, 0L);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+    
+    private EntityAccounts entity(String entityId) {
+        Integer index = entityIndex.get(entityId);
+        if (index != null) {
+            return entities.get(index);
+        }
+        synchronized (this) {
+            index = entityIndex.get(entityId);
+            if (index == null) {
+                index = entityIndex.size() + 1;
+                entities.put(index, new EntityAccounts(index, entityId));
+                entityIndex.put(entityId, index);
+            }
+            return entities.get(index);
+        }
+    }
+    
+    private synchronized int registerAccount(int entity, String accountId) {
+        int index = ++accountCount;
+        if (index >= accountNames.length) {
+            int[] owners = Arrays.copyOf(accountEntities, accountNames.length * 2);
+            accountNames = Arrays.copyOf(accountNames, accountNames.length * 2);
+            accountEntities = owners;
+        }
+        accountEntities[index] = entity;
+        accountNames[index] = accountId;
+        return index;
+    }
+    
+    private Map<Integer, String> entityNames() {
+        Map<Integer, String> names = new HashMap<>();
+        entities.forEach((index, entity) -> names.put(index, entity.id));
+        return names;
+    }
+    
+    private Stripe stripeFor(long key) {
+        return stripes[Long.hashCode(key * 0x9E3779B97F4A7C15L) & stripeMask];
+    }
+    
+    private static long key(int index, int currency) {
+        return ((long) index << CurrencyCodes.BITS) | currency;
+    }
+    
+    private final class EntityAccounts {
+        
+        private final int index;
+        private final String id;
+        private final Map<String, Integer> accounts = new ConcurrentHashMap<>();
+        private final Set<Integer> currencies = ConcurrentHashMap.newKeySet();
+        
+        private EntityAccounts(int index, String id) {
+            this.index = index;
+            this.id = id;
+        }
+        
+        private int account(String accountId) {
+            Integer account = accounts.get(accountId);
+            return account != null ? account : accounts.computeIfAbsent(accountId, a -> registerAccount(index, a));
+        }
+    }
+    
+    private static final class Stripe {
+        
+        private final int index;
+        private final StampedLock lock = new StampedLock();
+        private final LongLongHashMap accounts = new LongLongHashMap(1024);
+        private final LongLongHashMap entities = new LongLongHashMap(64);
+        
+        /**
+         * Account keys changed since the last change-only snapshot, used as a set.
+         */
+        private final LongLongHashMap changed = new LongLongHashMap(1024);
+        
+        private Stripe(int index) {
+            this.index = index;
+        }
+    }
+}
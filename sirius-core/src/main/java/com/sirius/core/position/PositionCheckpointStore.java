@@ -0,0 +1,24 @@
+package com.sirius.core.position;
+
+import java.util.Optional;
+
+/**
+ * Durable copy of the position engine's state, so that a restart replays the event stream only
+ * from the last checkpoint.
+ */
+public interface PositionCheckpointStore {
+    
+    /**
+     * @return every stored position and the stream id they reflect, if a checkpoint exists
+     */
+    Optional<PositionSnapshot> load();
+    
+    /**
+     * Stores the positions in {@code snapshot}, replacing earlier values, and records its stream id.
+     * Several nodes may checkpoint concurrently; a snapshot older than the stored checkpoint is
+     * ignored, since that checkpoint already covers its changes.
+     *
+     * @return whether the snapshot was stored
+     */
+    boolean save(PositionSnapshot snapshot);
+}
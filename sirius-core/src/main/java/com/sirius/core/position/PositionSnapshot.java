@@ -0,0 +1,35 @@
+package com.sirius.core.position;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+
+/**
+ * Account positions as of one stream id, in columns so that hundreds of thousands of rows cost a
+ * handful of arrays. Row {@code i} is {@code entityIds[i]}, {@code accountIds[i]},
+ * {@code currencies[i]} and a fixed-point amount of {@code units[i]}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PositionSnapshot {
+    
+    /**
+     * Last event reflected in the positions; {@code null} if none has been applied.
+     */
+    @Nullable
+    private final String streamId;
+    
+    /**
+     * Whether only positions changed since the previous snapshot are included.
+     */
+    private final boolean delta;
+    
+    private final String[] entityIds;
+    private final String[] accountIds;
+    private final String[] currencies;
+    private final long[] units;
+    
+    public int size() {
+        return units.length;
+    }
+}
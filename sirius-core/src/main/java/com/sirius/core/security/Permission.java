@@ -0,0 +1,63 @@
+package com.sirius.core.security;
+
+import java.util.EnumSet;
+
+/**
+ * Everything a role can grant. Each permission owns one bit of a {@link PermissionSet}; the bit
+ * is also its id in the {@code permissions} table, so bits must never be reused or renumbered.
+ */
+public enum Permission {
+    
+    USER_READ(0),
+    USER_IMPORT(1),
+    ROLE_ADMIN(2),
+    AUDIT_READ(3),
+    POSITION_READ(4),
+    FX_READ(5),
+    LEDGER_READ(6),
+    PAYMENT_CREATE(7),
+    PAYMENT_APPROVE(8);
+    
+    public static final int MAX_BITS = Long.SIZE;
+    
+    private static final Permission[] BY_BIT = new Permission[MAX_BITS];
+    
+    static {
+        for (Permission permission : values()) {
+            if (BY_BIT[permission.bit] != null) {
+                throw new IllegalStateException("Permission bit " + permission.bit + " used twice");
+            }
+            BY_BIT[permission.bit] = permission;
+        }
+    }
+    
+    private final int bit;
+    private final long mask;
+    
+    Permission(int bit) {
+        this.bit = bit;
+        this.mask = 1L << bit;
+    }
+    
+    public int getBit() {
+        return bit;
+    }
+    
+    public long getMask() {
+        return mask;
+    }
+    
+    /**
+     * @return the permissions whose bits are set in {@code bits}; unknown bits are ignored
+     */
+    public static EnumSet<Permission> of(long bits) {
+        EnumSet<Permission> permissions = EnumSet.noneOf(Permission.class);
+        for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+            Permission permission = BY_BIT[Long.numberOfTrailingZeros(remaining)];
+            if (permission != null) {
+                permissions.add(permission);
+            }
+        }
+        return permissions;
+    }
+}
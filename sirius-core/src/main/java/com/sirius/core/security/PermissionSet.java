@@ -0,0 +1,86 @@
+package com.sirius.core.security;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A user's effective permissions, compiled from their roles into bitsets: one for permissions
+ * held for every entity and one per entity the user holds scoped roles for. A check is a mask
+ * test, plus one hash lookup when it is scoped to an entity the global set does not cover.
+ */
+public final class PermissionSet {
+    
+    public static final PermissionSet EMPTY = new PermissionSet(0L, Map.of());
+    
+    private final long global;
+    private final Map<String, Long> scoped;
+    private final long anyEntity;
+    
+    public PermissionSet(long global, Map<String, Long> scoped) {
+        this.global = global;
+        this.scoped = scoped.isEmpty() ? Map.of() : Collections.unmodifiableMap(new HashMap<>(scoped));
+        long any = global;
+        for (long bits : scoped.values()) {
+            any |= bits;
+        }
+        this.anyEntity = any;
+    }
+    
+    /**
+     * @return whether the permission is held for every entity
+     */
+    public boolean has(Permission permission) {
+        return (global & permission.getMask()) != 0;
+    }
+    
+    /**
+     * @param entityId the entity acted on; {@code null} requires the permission for every entity
+     */
+    public boolean has(Permission permission, @Nullable String entityId) {
+        long mask = permission.getMask();
+        if ((global & mask) != 0) {
+            return true;
+        }
+        if (entityId == null || (anyEntity & mask) == 0) {
+            return false;
+        }
+        Long bits = scoped.get(entityId);
+        return bits != null && (bits & mask) != 0;
+    }
+    
+    /**
+     * @return whether the permission is held for at least one entity
+     */
+    public boolean hasForAnyEntity(Permission permission) {
+        return (anyEntity & permission.getMask()) != 0;
+    }
+    
+    public long getGlobal() {
+        return global;
+    }
+    
+    /**
+     * @return bits per entity, without the global bits
+     */
+    public Map<String, Long> getScoped() {
+        return scoped;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PermissionSet other && global == other.global && scoped.equals(other.scoped);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(global) * 31 + scoped.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return "PermissionSet{global=" + Permission.of(global) + ", scoped=" + scoped.size() + " entities}";
+    }
+}
@@ -0,0 +1,56 @@
+package com.sirius.core.security;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The permission bits of every role, as of one {@code epoch}. The epoch changes whenever a role
+ * definition does, so a {@link PermissionSet} compiled under an older epoch is known to be stale.
+ */
+public final class RoleDefinitions {
+    
+    private final long epoch;
+    private final Map<String, Long> roles;
+    
+    public RoleDefinitions(long epoch, Map<String, Long> roles) {
+        this.epoch = epoch;
+        this.roles = Map.copyOf(roles);
+    }
+    
+    public long getEpoch() {
+        return epoch;
+    }
+    
+    public Map<String, Long> getRoles() {
+        return roles;
+    }
+    
+    /**
+     * @return the bits of the role, zero for an unknown role
+     */
+    public long bits(String role) {
+        return roles.getOrDefault(role, 0L);
+    }
+    
+    /**
+     * Unions the bits of all granted roles. Unknown roles grant nothing; scoped grants that are
+     * already covered globally are left out.
+     */
+    public PermissionSet compile(Collection<RoleGrant> grants) {
+        long global = 0L;
+        for (RoleGrant grant : grants) {
+            if (grant.getEntityId() == null) {
+                global |= bits(grant.getRole());
+            }
+        }
+        Map<String, Long> scoped = new HashMap<>();
+        for (RoleGrant grant : grants) {
+            long bits = bits(grant.getRole()) & ~global;
+            if (grant.getEntityId() != null && bits != 0) {
+                scoped.merge(grant.getEntityId(), bits, (a, b) -> a | b);
+            }
+        }
+        return global == 0L && scoped.isEmpty() ? PermissionSet.EMPTY : new PermissionSet(global, scoped);
+    }
+}
@@ -0,0 +1,33 @@
+package com.sirius.core.security;
+
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+/**
+ * A role held by a user, either for every treasury entity or, with {@code entityId}, for that
+ * entity only.
+ */
+@Value
+public class RoleGrant {
+    
+    private static final char ENTITY_SEPARATOR = '@';
+    
+    String role;
+    
+    @Nullable
+    String entityId;
+    
+    /**
+     * @return {@code ROLE} or {@code ROLE@entity}, the form carried in tokens
+     */
+    public String encode() {
+        return entityId == null ? role : role + ENTITY_SEPARATOR + entityId;
+    }
+    
+    public static RoleGrant decode(String encoded) {
+        int separator = encoded.indexOf(ENTITY_SEPARATOR);
+        return separator < 0
+            ? new RoleGrant(encoded, null)
+            : new RoleGrant(encoded.substring(0, separator), encoded.substring(separator + 1));
+    }
+}
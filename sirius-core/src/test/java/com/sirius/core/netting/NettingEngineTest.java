@@ -0,0 +1,281 @@
+package com.sirius.core.netting;
+
+import lombok.Value;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NettingEngineTest {
+    
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final NettingEngine engine = new NettingEngine(pool, 1024);
+    
+    @AfterEach
+    void shutDown() {
+        pool.shutdown();
+    }
+    
+    @Test
+    void netsAChainIntoOnePayment() {
+        ObligationSet obligations = ObligationSet.builder(2)
+            .add("A", "B", "USD", 100)
+            .add("B", "C", "USD", 100)
+            .build();
+        
+        Collector sink = new Collector();
+        NettingResult result = engine.net(obligations, sink);
+        
+        assertThat(sink.positions("USD")).containsExactlyInAnyOrderEntriesOf(Map.of("A", -100L, "B", 0L, "C", 100L));
+        assertThat(sink.payments("USD")).containsExactly(new Payment("A", "C", 100));
+        assertThat(result.getCurrencies()).containsExactly(new CurrencyNetting("USD", 2, 3, 1, 200, 1, 100));
+        assertThat(result.settlements()).isEqualTo(1);
+    }
+    
+    @Test
+    void netsEachCurrencySeparately() {
+        ObligationSet obligations = ObligationSet.builder(4)
+            .add("A", "B", "USD", 100)
+            .add("B", "A", "EUR", 40)
+            .add("B", "A", "USD", 30)
+            .add("C", "A", "EUR", 10)
+            .build();
+        
+        Collector sink = new Collector();
+        NettingResult result = engine.net(obligations, sink);
+        
+        assertThat(sink.positions("USD")).containsExactlyInAnyOrderEntriesOf(Map.of("A", -70L, "B", 70L));
+        assertThat(sink.positions("EUR")).containsExactlyInAnyOrderEntriesOf(Map.of("A", 50L, "B", -40L, "C", -10L));
+        assertThat(sink.payments("USD")).containsExactly(new Payment("A", "B", 70));
+        assertThat(sink.payments("EUR")).containsExactlyInAnyOrder(new Payment("B", "A", 40), new Payment("C", "A", 10));
+        assertThat(result.getCurrencies()).extracting(CurrencyNetting::getCurrency).containsExactly("USD", "EUR");
+        assertSettles(obligations, sink);
+    }
+    
+    @Test
+    void settlesClustersIndependently() {
+        ObligationSet obligations = ObligationSet.builder(6)
+            .add("A", "B", "USD", 10)
+            .add("B", "C", "USD", 5)
+            .add("D", "E", "USD", 7)
+            .add("E", "F", "USD", 7)
+            .add("G", "H", "USD", 3)
+            .build();
+        
+        Collector sink = new Collector();
+        NettingResult result = engine.net(obligations, sink);
+        
+        CurrencyNetting usd = result.getCurrencies().get(0);
+        assertThat(usd.getClusters()).isEqualTo(3);
+        assertThat(usd.getEntities()).isEqualTo(8);
+        assertThat(sink.payments("USD")).containsExactlyInAnyOrder(
+            new Payment("A", "B", 5), new Payment("A", "C", 5), new Payment("D", "F", 7), new Payment("G", "H", 3));
+        assertSettles(obligations, sink);
+    }
+    
+    @Test
+    void pairsExactOppositesWhenScanning() {
+        // Greedy settlement alone would pay D1 -> C1, D2 -> C1 and D2 -> C2.
+        ObligationSet obligations = ObligationSet.builder(4)
+            .add("D1", "HUB", "USD", 30)
+            .add("D2", "HUB", "USD", 70)
+            .add("HUB", "C1", "USD", 70)
+            .add("HUB", "C2", "USD", 30)
+            .build();
+        
+        Collector sink = new Collector();
+        engine.net(obligations, sink);
+        
+        assertThat(sink.payments("USD")).containsExactlyInAnyOrder(new Payment("D1", "C2", 30), new Payment("D2", "C1", 70));
+    }
+    
+    @Test
+    void pairsExactOppositesWhenHashing() {
+        int pairs = 40;
+        List<Long> amounts = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            amounts.add(1_000L + i % 10);
+        }
+        ObligationSet.Builder builder = ObligationSet.builder(pairs * 2);
+        for (int i = 0; i < pairs; i++) {
+            builder.add("D" + i, "HUB", "USD", amounts.get(i));
+        }
+        // Creditors in a different order, with repeated amounts, so matches go through the chains.
+        for (int i = pairs - 1; i >= 0; i--) {
+            builder.add("HUB", "C" + i, "USD", amounts.get(i));
+        }
+        ObligationSet obligations = builder.build();
+        
+        Collector sink = new Collector();
+        NettingResult result = engine.net(obligations, sink);
+        
+        assertThat(result.getCurrencies().get(0).getSettlements()).isEqualTo(pairs);
+        for (Payment payment : sink.payments("USD")) {
+            assertThat(payment.getUnits()).isEqualTo(amounts.get(Integer.parseInt(payment.getPayer().substring(1))));
+        }
+        assertSettles(obligations, sink);
+    }
+    
+    @Test
+    void streamsChunksOfAtMostChunkSize() {
+        ObligationSet obligations = randomObligations(new Random(7), 500, 60, 3);
+        
+        Collector chunked = new Collector();
+        NettingResult result = new NettingEngine(pool, 1).net(obligations, chunked);
+        Collector whole = new Collector();
+        engine.net(obligations, whole);
+        
+        assertThat(chunked.chunkSizes).containsOnly(1);
+        assertThat(chunked.chunkSizes).hasSize(chunked.positionRows + chunked.paymentRows);
+        assertThat(chunked.positions).isEqualTo(whole.positions);
+        assertThat(chunked.paymentRows).isEqualTo(result.settlements());
+        assertSettles(obligations, chunked);
+    }
+    
+    @Test
+    void needsFewerPaymentsThanNonZeroPositions() {
+        for (int seed = 0; seed < 20; seed++) {
+            ObligationSet obligations = randomObligations(new Random(seed), 2_000, 300, 4);
+            Collector sink = new Collector();
+            NettingResult result = engine.net(obligations, sink);
+            
+            assertSettles(obligations, sink);
+            for (CurrencyNetting currency : result.getCurrencies()) {
+                long nonZero = sink.positions(currency.getCurrency()).values().stream().filter(units -> units != 0).count();
+                assertThat(currency.getSettlements()).isLessThanOrEqualTo((int) Math.max(0, nonZero - 1));
+                assertThat(currency.getSettlements()).isEqualTo(sink.payments(currency.getCurrency()).size());
+            }
+        }
+    }
+    
+    @Test
+    void settlesNothingWhenEverythingCancelsOut() {
+        ObligationSet obligations = ObligationSet.builder(3)
+            .add("A", "B", "GBP", 250)
+            .add("B", "C", "GBP", 250)
+            .add("C", "A", "GBP", 250)
+            .build();
+        
+        Collector sink = new Collector();
+        NettingResult result = engine.net(obligations, sink);
+        
+        assertThat(sink.positions("GBP")).containsExactlyInAnyOrderEntriesOf(Map.of("A", 0L, "B", 0L, "C", 0L));
+        assertThat(sink.payments("GBP")).isEmpty();
+        assertThat(result.getCurrencies()).containsExactly(new CurrencyNetting("GBP", 3, 3, 1, 750, 0, 0));
+    }
+    
+    @Test
+    void failsWhenAPositionOverflows() {
+        ObligationSet obligations = ObligationSet.builder(2)
+            .add("A", "B", "USD", Long.MAX_VALUE)
+            .add("C", "B", "USD", 1)
+            .build();
+        
+        assertThatThrownBy(() -> engine.net(obligations, new Collector())).isInstanceOf(ArithmeticException.class);
+    }
+    
+    @Test
+    void rejectsInvalidObligations() {
+        ObligationSet.Builder builder = ObligationSet.builder(1);
+        
+        assertThatThrownBy(() -> builder.add("A", "B", "USD", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.add("A", "A", "USD", 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.add("A", "B", "US", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    /**
+     * Positions must match the obligations, sum to zero, and be exactly what the payments move.
+     */
+    private static void assertSettles(ObligationSet obligations, Collector sink) {
+        Map<String, Map<String, Long>> expected = new HashMap<>();
+        for (int i = 0; i < obligations.size(); i++) {
+            Map<String, Long> currency = expected.computeIfAbsent(obligations.currencyOf(i), c -> new HashMap<>());
+            currency.merge(obligations.payerOf(i), -obligations.unitsOf(i), Long::sum);
+            currency.merge(obligations.payeeOf(i), obligations.unitsOf(i), Long::sum);
+        }
+        assertThat(sink.positions).isEqualTo(expected);
+        
+        for (Map.Entry<String, Map<String, Long>> currency : sink.positions.entrySet()) {
+            assertThat(currency.getValue().values().stream().mapToLong(Long::longValue).sum()).isZero();
+            Map<String, Long> paid = new HashMap<>();
+            for (Payment payment : sink.payments(currency.getKey())) {
+                assertThat(payment.getUnits()).isPositive();
+                assertThat(payment.getPayer()).isNotEqualTo(payment.getPayee());
+                paid.merge(payment.getPayer(), -payment.getUnits(), Long::sum);
+                paid.merge(payment.getPayee(), payment.getUnits(), Long::sum);
+            }
+            Map<String, Long> nonZero = new HashMap<>(currency.getValue());
+            nonZero.values().removeIf(units -> units == 0);
+            paid.values().removeIf(units -> units == 0);
+            assertThat(paid).isEqualTo(nonZero);
+        }
+    }
+    
+    private static ObligationSet randomObligations(Random random, int count, int entities, int currencies) {
+        String[] codes = {"USD", "EUR", "GBP", "JPY", "CHF"};
+        ObligationSet.Builder builder = ObligationSet.builder(count);
+        for (int i = 0; i < count; i++) {
+            int payer = random.nextInt(entities);
+            // Mostly within groups of ten, so there are several clusters per currency
+            int payee = random.nextInt(20) == 0 ? random.nextInt(entities) : payer - payer % 10 + random.nextInt(10);
+            if (payee == payer) {
+                payee = (payer + 1) % entities;
+            }
+            long units = random.nextBoolean() ? (1 + random.nextInt(5)) * 1_000L : 1 + random.nextInt(1_000_000);
+            builder.add("E" + payer, "E" + payee, codes[random.nextInt(currencies)], units);
+        }
+        return builder.build();
+    }
+    
+    @Value
+    private static class Payment {
+        String payer;
+        String payee;
+        long units;
+    }
+    
+    private static final class Collector implements NettingSink {
+        
+        private final Map<String, Map<String, Long>> positions = new HashMap<>();
+        private final Map<String, List<Payment>> payments = new HashMap<>();
+        private final List<Integer> chunkSizes = new ArrayList<>();
+        private int positionRows;
+        private int paymentRows;
+        
+        @Override
+        public synchronized void netPositions(NetPositionChunk chunk) {
+            chunkSizes.add(chunk.size());
+            positionRows += chunk.size();
+            Map<String, Long> currency = positions.computeIfAbsent(chunk.getCurrency(), c -> new HashMap<>());
+            for (int i = 0; i < chunk.size(); i++) {
+                assertThat(currency.put(chunk.getEntityIds()[i], chunk.getUnits()[i])).isNull();
+            }
+        }
+        
+        @Override
+        public synchronized void settlements(SettlementChunk chunk) {
+            chunkSizes.add(chunk.size());
+            paymentRows += chunk.size();
+            List<Payment> currency = payments.computeIfAbsent(chunk.getCurrency(), c -> new ArrayList<>());
+            for (int i = 0; i < chunk.size(); i++) {
+                currency.add(new Payment(chunk.getPayers()[i], chunk.getPayees()[i], chunk.getUnits()[i]));
+            }
+        }
+        
+        synchronized Map<String, Long> positions(String currency) {
+            return positions.getOrDefault(currency, Map.of());
+        }
+        
+        synchronized List<Payment> payments(String currency) {
+            return payments.getOrDefault(currency, List.of());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.sirius.data.audit;
+
+import com.sirius.core.audit.AuditEvent;
+import com.sirius.core.audit.AuditEventType;
+import com.sirius.core.audit.AuditLog;
+import com.sirius.data.entity.BaseJpaEntity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+
+/**
+ * Reports every insert, update and delete of an entity to the audit log, with the same actor
+ * that {@code JpaAuditingConfig} stamps on the row. Hibernate creates the listener through
+ * Spring, which injects its collaborators.
+ */
+public class EntityAuditListener {
+    
+    private final ObjectProvider<AuditLog> auditLog;
+    private final AuditorAware<String> auditorProvider;
+    
+    public EntityAuditListener(ObjectProvider<AuditLog> auditLog, AuditorAware<String> auditorProvider) {
+        this.auditLog = auditLog;
+        this.auditorProvider = auditorProvider;
+    }
+    
+    @PostPersist
+    public void created(BaseJpaEntity entity) {
+        record(AuditEventType.ENTITY_CREATED, entity);
+    }
+    
+    @PostUpdate
+    public void updated(BaseJpaEntity entity) {
+        record(AuditEventType.ENTITY_UPDATED, entity);
+    }
+    
+    @PostRemove
+    public void deleted(BaseJpaEntity entity) {
+        record(AuditEventType.ENTITY_DELETED, entity);
+    }
+    
+    private void record(AuditEventType type, BaseJpaEntity entity) {
+        String actor = auditorProvider.getCurrentAuditor().orElse("system");
+        auditLog.getIfAvailable(() -> AuditLog.NOOP)
+            .record(AuditEvent.of(type, actor, entity.getClass().getSimpleName() + "#" + entity.getId(), null));
+    }
+}
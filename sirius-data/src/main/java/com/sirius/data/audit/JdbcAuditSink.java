@@ -0,0 +1,79 @@
+package com.sirius.data.audit;
+
+import com.sirius.core.audit.AuditEvent;
+import com.sirius.core.audit.AuditSink;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes audit batches to {@code security_audit_events} with one multi-row insert, sending the
+ * columns as {@code unnest} arrays. Times are stored as UTC. Creates the partition of a month the
+ * first time it sees it.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "sirius.audit.database", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcAuditSink implements AuditSink {
+    
+    private static final String INSERT_SQL = """
+        INSERT INTO security_audit_events (occurred_at, event_type, principal, detail, remote_address)
+        SELECT * FROM unnest(?::timestamp[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[])
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+    
+    @Override
+    public String getName() {
+        return "database";
+    }
+    
+    @Override
+    public void write(List<AuditEvent> events) {
+        int size = events.size();
+        Timestamp[] occurredAt = new Timestamp[size];
+        String[] types = new String[size];
+        String[] principals = new String[size];
+        String[] details = new String[size];
+        String[] remoteAddresses = new String[size];
+        for (int i = 0; i < size; i++) {
+            AuditEvent event = events.get(i);
+            LocalDateTime utc = LocalDateTime.ofInstant(event.getOccurredAt(), ZoneOffset.UTC);
+            ensurePartition(utc.toLocalDate());
+            occurredAt[i] = Timestamp.valueOf(utc);
+            types[i] = event.getType().name();
+            principals[i] = event.getPrincipal();
+            details[i] = event.getDetail();
+            remoteAddresses[i] = event.getRemoteAddress();
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+            statement.setArray(1, connection.createArrayOf("timestamp", occurredAt));
+            statement.setArray(2, connection.createArrayOf("varchar", types));
+            statement.setArray(3, connection.createArrayOf("varchar", principals));
+            statement.setArray(4, connection.createArrayOf("varchar", details));
+            statement.setArray(5, connection.createArrayOf("varchar", remoteAddresses));
+            return statement;
+        });
+    }
+    
+    private void ensurePartition(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        if (!partitions.contains(month)) {
+            jdbcTemplate.queryForObject("SELECT audit_ensure_partition(?)", String.class, month.atDay(1));
+            partitions.add(month);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sirius.data.config;
+
+import com.sirius.core.concurrent.ConcurrencyLimiter;
+import com.sirius.core.concurrent.ConcurrencyLimiterMetrics;
+import com.sirius.data.routing.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts a {@link ConcurrencyLimiter} in front of the primary {@link DataSource}. Intended for
+ * virtual-thread execution, where thousands of requests may want a connection at once: they
+ * queue on the limiter instead of inside the pool and fail after {@code acquire-timeout}.
+ * <p>
+ * With read replicas the {@code dataSource} bean routes between pools, so the limiter is applied
+ * to the primary pool by {@link ReplicaRoutingConfig} instead; replicas are bounded by their own
+ * pool sizes.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sirius.concurrency.database", name = "max-concurrent")
+public class DataSourceConcurrencyConfig {
+    
+    @Bean
+    public ConcurrencyLimiter databaseConcurrencyLimiter(
+            @Value("${sirius.concurrency.database.max-concurrent}") int maxConcurrent,
+            @Value("${sirius.concurrency.database.acquire-timeout:20s}") Duration timeout,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("database connections", maxConcurrent, timeout);
+        meterRegistry.ifAvailable(registry -> ConcurrencyLimiterMetrics.bind(limiter, "database", registry));
+        return limiter;
+    }
+    
+    @Bean
+    public static BeanPostProcessor dataSourceConcurrencyLimiter(ObjectProvider<ConcurrencyLimiter> databaseConcurrencyLimiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || !"dataSource".equals(beanName) || isReplicaRouting(dataSource)) {
+                    return bean;
+                }
+                return new ConcurrencyLimitedDataSource(dataSource, databaseConcurrencyLimiter.getObject());
+            }
+        };
+    }
+    
+    private static boolean isReplicaRouting(DataSource dataSource) {
+        return dataSource instanceof LazyConnectionDataSourceProxy proxy
+            && proxy.getTargetDataSource() instanceof ReplicaRoutingDataSource;
+    }
+}
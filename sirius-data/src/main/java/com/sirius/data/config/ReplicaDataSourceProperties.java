@@ -0,0 +1,45 @@
+package com.sirius.data.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas behind the primary {@code spring.datasource}
+ */
+@Data
+@ConfigurationProperties(prefix = "sirius.datasource")
+public class ReplicaDataSourceProperties {
+    
+    private List<Replica> replicas = new ArrayList<>();
+    
+    /**
+     * Replicas further behind than this are skipped until they catch up. Also how long a thread
+     * keeps reading from the primary after it wrote.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+    
+    /**
+     * Milliseconds between replica lag checks
+     */
+    private long lagCheckInterval = 2000;
+    
+    @Data
+    public static class Replica {
+        
+        private String url;
+        
+        /**
+         * Defaults to the primary's credentials
+         */
+        private String username;
+        private String password;
+        
+        private int maximumPoolSize = 10;
+        private int minimumIdle = 2;
+        private Duration connectionTimeout = Duration.ofSeconds(5);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sirius.data.config;
+
+import com.sirius.core.concurrent.ConcurrencyLimiter;
+import com.sirius.data.routing.ReplicaLagMonitor;
+import com.sirius.data.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes {@code @Transactional(readOnly = true)} work to the replicas listed under
+ * {@code sirius.datasource.replicas}. Without replicas this configuration is inactive and Spring
+ * Boot's single data source is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sirius.datasource.replicas[0]", name = "url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaRoutingConfig {
+    
+    /**
+     * The primary pool, configured exactly like Boot's default from {@code spring.datasource}.
+     * Migrations always run here.
+     */
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties dataSourceProperties,
+                                               ReplicaDataSourceProperties replicaProperties,
+                                               MeterRegistry meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.getReplicas().size(); i++) {
+            ReplicaDataSourceProperties.Replica replica = replicaProperties.getReplicas().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+            pool.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setMinimumIdle(replica.getMinimumIdle());
+            pool.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        return new ReplicaLagMonitor(pools, replicaProperties.getMaxLag(), meterRegistry);
+    }
+    
+    /**
+     * @param databaseConcurrencyLimiter limits primary connections only, see {@link DataSourceConcurrencyConfig}
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor,
+                                 ReplicaDataSourceProperties replicaProperties, MeterRegistry meterRegistry,
+                                 ObjectProvider<ConcurrencyLimiter> databaseConcurrencyLimiter) {
+        ConcurrencyLimiter limiter = databaseConcurrencyLimiter.getIfAvailable();
+        DataSource primary = limiter != null ? new ConcurrencyLimitedDataSource(primaryDataSource, limiter) : primaryDataSource;
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicaLagMonitor,
+            replicaProperties.getMaxLag().toNanos(), meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sirius.data.config;
+
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.model.relational.QualifiedName;
+import org.hibernate.boot.model.relational.QualifiedNameParser;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.ImplicitDatabaseObjectNamingStrategy;
+import org.hibernate.id.enhanced.StandardNamingStrategy;
+import org.hibernate.service.ServiceRegistry;
+
+import java.util.Map;
+
+/**
+ * Names implicit id sequences {@code <table>_<column>_seq}, the name PostgreSQL gives the sequence
+ * behind a {@code BIGSERIAL} column. Entities using {@code GenerationType.SEQUENCE} therefore share
+ * the sequence that raw SQL inserts get from the column default.
+ */
+public class TableSequenceNamingStrategy implements ImplicitDatabaseObjectNamingStrategy {
+    
+    private final ImplicitDatabaseObjectNamingStrategy standard = new StandardNamingStrategy();
+    
+    @Override
+    public QualifiedName determineSequenceName(Identifier catalogName, Identifier schemaName,
+                                               Map<?, ?> configValues, ServiceRegistry serviceRegistry) {
+        Object table = configValues.get(PersistentIdentifierGenerator.TABLE);
+        Object column = configValues.get(PersistentIdentifierGenerator.PK);
+        if (table == null || column == null) {
+            return standard.determineSequenceName(catalogName, schemaName, configValues, serviceRegistry);
+        }
+        return new QualifiedNameParser.NameParts(catalogName, schemaName,
+            Identifier.toIdentifier(table + "_" + column + "_seq"));
+    }
+    
+    @Override
+    public QualifiedName determineTableName(Identifier catalogName, Identifier schemaName,
+                                            Map<?, ?> configValues, ServiceRegistry serviceRegistry) {
+        return standard.determineTableName(catalogName, schemaName, configValues, serviceRegistry);
+    }
+}
@@ -1,5 +1,6 @@
 package com.sirius.data.entity;
 
+import com.sirius.data.audit.EntityAuditListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -13,17 +14,19 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.Instant;
 
 /**
- * Base JPA entity with audit fields
+ * Base JPA entity with audit fields. Ids come from the table's own sequence
+ * ({@code <table>_id_seq}, see {@code TableSequenceNamingStrategy}) in pooled blocks of 50,
+ * so inserts can be JDBC-batched.
  */
 @MappedSuperclass
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, EntityAuditListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public abstract class BaseJpaEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @CreatedDate
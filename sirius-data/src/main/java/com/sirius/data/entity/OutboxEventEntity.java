@@ -0,0 +1,47 @@
+package com.sirius.data.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Event waiting in the transactional outbox to be relayed to its stream
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEventEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 100)
+    private String stream;
+    
+    @Column(nullable = false, length = 100)
+    private String aggregateType;
+    
+    @Column(nullable = false, length = 100)
+    private String aggregateId;
+    
+    @Column(nullable = false, length = 100)
+    private String eventType;
+    
+    /**
+     * Event fields, published as-is as the fields of the stream record
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private Map<String, String> payload;
+    
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+}
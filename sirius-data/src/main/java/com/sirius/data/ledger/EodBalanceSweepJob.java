@@ -0,0 +1,121 @@
+package com.sirius.data.ledger;
+
+import com.sirius.core.job.JobRun;
+import com.sirius.core.job.ShardProgress;
+import com.sirius.core.job.ShardedJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Computes end-of-day balances into {@code eod_balances}, one shard per entity. A balance is the
+ * entity's previous end-of-day balance plus the entries value-dated after that date up to the
+ * business date; an entity swept for the first time sums its whole ledger.
+ * <p>
+ * A shard works through the entity's currencies in order, one statement each, and checkpoints the
+ * last currency done. Statements upsert, so repeating a currency after a failure is harmless.
+ * Entries booked after a sweep with a value date it already covered are only picked up by
+ * rerunning the sweep for that date and the dates after it.
+ */
+@Slf4j
+public class EodBalanceSweepJob implements ShardedJob {
+    
+    public static final String NAME = "eod-balance-sweep";
+    
+    /**
+     * Lower bound of value dates for an entity without a previous sweep; nothing is booked before.
+     */
+    private static final LocalDate NO_PREVIOUS = LocalDate.EPOCH;
+    
+    private static final String PLAN_SQL = """
+        SELECT entity_id FROM eod_balances WHERE business_date = ?
+        UNION
+        SELECT DISTINCT entity_id FROM ledger_entries WHERE value_date > ? AND value_date <= ?
+        ORDER BY 1
+        """;
+    
+    private static final String CURRENCIES_SQL = """
+        SELECT currency FROM eod_balances WHERE business_date = ? AND entity_id = ?
+        UNION
+        SELECT DISTINCT currency FROM ledger_entries WHERE entity_id = ? AND value_date > ? AND value_date <= ?
+        ORDER BY 1
+        """;
+    
+    private static final String SWEEP_SQL = """
+        INSERT INTO eod_balances (business_date, entity_id, account_id, currency, balance_units)
+        SELECT ?, entity_id, account_id, currency, sum(units)
+        FROM (
+            SELECT entity_id, account_id, currency, balance_units AS units
+            FROM eod_balances
+            WHERE business_date = ? AND entity_id = ? AND currency = ?
+            UNION ALL
+            SELECT entity_id, account_id, currency, amount_units
+            FROM ledger_entries
+            WHERE entity_id = ? AND currency = ? AND value_date > ? AND value_date <= ?
+        ) movements
+        GROUP BY entity_id, account_id, currency
+        ON CONFLICT (business_date, entity_id, currency, account_id)
+        DO UPDATE SET balance_units = EXCLUDED.balance_units, swept_at = CURRENT_TIMESTAMP
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerProperties.Eod properties;
+    
+    public EodBalanceSweepJob(JdbcTemplate jdbcTemplate, LedgerProperties.Eod properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    @Override
+    public String getSchedule() {
+        return properties.getSchedule();
+    }
+    
+    @Override
+    public ZoneId getZone() {
+        return properties.getZone();
+    }
+    
+    /**
+     * Entities swept on the last business date before this one, and those with entries since.
+     */
+    @Override
+    public List<String> plan(JobRun run) {
+        LocalDate businessDate = run.getScheduledAt().toLocalDate();
+        LocalDate previous = jdbcTemplate.queryForObject(
+            "SELECT max(business_date) FROM eod_balances WHERE business_date < ?", LocalDate.class, businessDate);
+        LocalDate from = previous != null ? previous : NO_PREVIOUS;
+        return jdbcTemplate.queryForList(PLAN_SQL, String.class, from, from, businessDate);
+    }
+    
+    @Override
+    public void runShard(JobRun run, String entityId, ShardProgress progress) {
+        LocalDate businessDate = run.getScheduledAt().toLocalDate();
+        LocalDate previous = jdbcTemplate.queryForObject(
+            "SELECT max(business_date) FROM eod_balances WHERE entity_id = ? AND business_date < ?",
+            LocalDate.class, entityId, businessDate);
+        LocalDate from = previous != null ? previous : NO_PREVIOUS;
+        List<String> currencies = jdbcTemplate.queryForList(CURRENCIES_SQL, String.class,
+            from, entityId, entityId, from, businessDate);
+        
+        String done = progress.getCheckpoint();
+        int accounts = 0;
+        for (String currency : currencies) {
+            if (done != null && currency.compareTo(done) <= 0) {
+                continue;
+            }
+            accounts += jdbcTemplate.update(SWEEP_SQL, businessDate, from, entityId, currency,
+                entityId, currency, from, businessDate);
+            progress.checkpoint(currency);
+        }
+        log.debug("Swept {} balances of {} for {} from {}", accounts, entityId, businessDate, from);
+    }
+}
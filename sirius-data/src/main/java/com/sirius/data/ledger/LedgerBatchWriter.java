@@ -0,0 +1,133 @@
+package com.sirius.data.ledger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups ledger appends from many callers into large COPY batches. Appends are queued and
+ * acknowledged once their batch is committed; a full queue pushes back on callers for up to the
+ * enqueue timeout and then rejects. One flusher thread copies batches in order, so entries keep
+ * their append order within the table's id sequence.
+ */
+@Slf4j
+public class LedgerBatchWriter implements DisposableBean {
+    
+    private final LedgerEntryCopyWriter copyWriter;
+    private final LedgerProperties.Writer properties;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+    
+    public LedgerBatchWriter(LedgerEntryCopyWriter copyWriter, LedgerProperties.Writer properties,
+                             MeterRegistry meterRegistry) {
+        this.copyWriter = copyWriter;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Gauge.builder("sirius.ledger.writer.queue", queue, BlockingQueue::size).register(meterRegistry);
+        this.flusher = new Thread(this::run, "ledger-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+    
+    /**
+     * @return completes when the entry is committed, or exceptionally if its batch failed
+     * @throws IllegalArgumentException   if the entry is incomplete or its value date cannot be booked
+     * @throws RejectedExecutionException if the queue stayed full for the enqueue timeout
+     */
+    public CompletableFuture<Void> append(LedgerEntry entry) {
+        copyWriter.validate(entry);
+        Pending pending = new Pending(entry);
+        if (!running) {
+            throw new RejectedExecutionException("Ledger writer is shut down");
+        }
+        try {
+            if (!queue.offer(pending, properties.getEnqueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("Ledger writer queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing ledger entry", e);
+        }
+        return pending.future;
+    }
+    
+    /**
+     * Appends the entries in order. They may be committed in different batches.
+     */
+    public CompletableFuture<Void> appendAll(List<LedgerEntry> entries) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[entries.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = append(entries.get(i));
+        }
+        return CompletableFuture.allOf(futures);
+    }
+    
+    private void run() {
+        List<Pending> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(properties.getFlushInterval().toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    queue.drainTo(batch);
+                    flush(batch);
+                    return;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void flush(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<LedgerEntry> entries = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            entries.add(pending.entry);
+        }
+        try {
+            copyWriter.write(entries);
+            batch.forEach(pending -> pending.future.complete(null));
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} ledger entries: {}", entries.size(), e.getMessage());
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+        }
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        flusher.join(properties.getFlushInterval().toMillis() + 30_000);
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+        }
+    }
+    
+    private static final class Pending {
+        
+        private final LedgerEntry entry;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        private Pending(LedgerEntry entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.sirius.data.ledger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(LedgerProperties.class)
+public class LedgerConfig {
+    
+    @Bean
+    public LedgerPartitionManager ledgerPartitionManager(JdbcTemplate jdbcTemplate, LedgerProperties properties) {
+        return new LedgerPartitionManager(jdbcTemplate, properties.getPartitions());
+    }
+    
+    @Bean
+    public LedgerEntryCopyWriter ledgerEntryCopyWriter(DataSource dataSource, LedgerPartitionManager partitionManager,
+                                                       MeterRegistry meterRegistry) {
+        return new LedgerEntryCopyWriter(dataSource, partitionManager, meterRegistry);
+    }
+    
+    @Bean
+    public LedgerBatchWriter ledgerBatchWriter(LedgerEntryCopyWriter copyWriter, LedgerProperties properties,
+                                               MeterRegistry meterRegistry) {
+        return new LedgerBatchWriter(copyWriter, properties.getWriter(), meterRegistry);
+    }
+    
+    @Bean
+    public LedgerEntryRepository ledgerEntryRepository(JdbcTemplate jdbcTemplate) {
+        return new LedgerEntryRepository(jdbcTemplate);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "sirius.ledger.eod", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public EodBalanceSweepJob eodBalanceSweepJob(JdbcTemplate jdbcTemplate, LedgerProperties properties) {
+        return new EodBalanceSweepJob(jdbcTemplate, properties.getEod());
+    }
+}
@@ -0,0 +1,42 @@
+package com.sirius.data.ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One immutable line of the ledger. {@code amountUnits} is a signed fixed-point amount with
+ * {@link com.sirius.core.money.FixedPoint#SCALE} decimals; {@code id} and {@code bookedAt}
+ * are assigned by the database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+    
+    private Long id;
+    
+    private LocalDate valueDate;
+    
+    private Instant bookedAt;
+    
+    private String entityId;
+    
+    private String accountId;
+    
+    private String currency;
+    
+    private long amountUnits;
+    
+    /**
+     * Reference of the business transaction the entry belongs to.
+     */
+    private String transactionRef;
+    
+    private String description;
+}
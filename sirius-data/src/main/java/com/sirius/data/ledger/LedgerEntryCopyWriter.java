@@ -0,0 +1,144 @@
+package com.sirius.data.ledger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Appends ledger entries with {@code COPY ... FROM STDIN} in text format, which is several times
+ * faster than batched inserts for large batches: rows are streamed in a single round trip and
+ * bypass per-statement planning. A batch is all-or-nothing.
+ */
+public class LedgerEntryCopyWriter {
+    
+    private static final String COPY_SQL = "COPY " + LedgerPartitionManager.TABLE
+        + " (value_date, entity_id, account_id, currency, amount_units, transaction_ref, description) FROM STDIN";
+    
+    private static final int CHUNK_SIZE = 64 * 1024;
+    
+    private final DataSource dataSource;
+    private final LedgerPartitionManager partitionManager;
+    private final Timer copyTimer;
+    private final Counter writtenCounter;
+    
+    public LedgerEntryCopyWriter(DataSource dataSource, LedgerPartitionManager partitionManager, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.partitionManager = partitionManager;
+        this.copyTimer = Timer.builder("sirius.ledger.copy").register(meterRegistry);
+        this.writtenCounter = Counter.builder("sirius.ledger.entries.written").register(meterRegistry);
+    }
+    
+    /**
+     * Writes the entries, joining the current transaction if there is one.
+     *
+     * @throws IllegalArgumentException if an entry is incomplete or its value date is past retention or too far ahead
+     */
+    public void write(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        LocalDate from = LocalDate.MAX;
+        LocalDate to = LocalDate.MIN;
+        for (LedgerEntry entry : entries) {
+            validate(entry);
+            from = entry.getValueDate().isBefore(from) ? entry.getValueDate() : from;
+            to = entry.getValueDate().isAfter(to) ? entry.getValueDate() : to;
+        }
+        partitionManager.ensureCovered(from, to);
+        
+        copyTimer.record(() -> copy(entries));
+        writtenCounter.increment(entries.size());
+    }
+    
+    private void copy(List<LedgerEntry> entries) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                StringBuilder rows = new StringBuilder(CHUNK_SIZE + 1024);
+                for (LedgerEntry entry : entries) {
+                    appendRow(rows, entry);
+                    if (rows.length() >= CHUNK_SIZE) {
+                        flush(copy, rows);
+                    }
+                }
+                flush(copy, rows);
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("COPY into " + LedgerPartitionManager.TABLE + " failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+    
+    private static void flush(CopyIn copy, StringBuilder rows) throws SQLException {
+        if (rows.length() > 0) {
+            byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            rows.setLength(0);
+        }
+    }
+    
+    private static void appendRow(StringBuilder rows, LedgerEntry entry) {
+        rows.append(entry.getValueDate()).append('\t');
+        appendText(rows, entry.getEntityId()).append('\t');
+        appendText(rows, entry.getAccountId()).append('\t');
+        appendText(rows, entry.getCurrency()).append('\t');
+        rows.append(entry.getAmountUnits()).append('\t');
+        appendText(rows, entry.getTransactionRef()).append('\t');
+        appendText(rows, entry.getDescription()).append('\n');
+    }
+    
+    /**
+     * Escapes a value for COPY text format, where backslash, tab and line breaks are special and
+     * {@code \N} is null.
+     */
+    private static StringBuilder appendText(StringBuilder rows, String value) {
+        if (value == null) {
+            return rows.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> rows.append("\\\\");
+                case '\t' -> rows.append("\\t");
+                case '\n' -> rows.append("\\n");
+                case '\r' -> rows.append("\\r");
+                default -> rows.append(c);
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Checks an entry before it is queued, so that one bad entry does not fail a whole batch.
+     *
+     * @throws IllegalArgumentException if the entry is incomplete or its value date is past retention or too far ahead
+     */
+    void validate(LedgerEntry entry) {
+        if (entry.getValueDate() == null || entry.getEntityId() == null || entry.getAccountId() == null
+                || entry.getTransactionRef() == null) {
+            throw new IllegalArgumentException("Ledger entry needs value date, entity, account and transaction reference");
+        }
+        if (entry.getCurrency() == null || entry.getCurrency().length() != 3) {
+            throw new IllegalArgumentException("Invalid currency: " + entry.getCurrency());
+        }
+        partitionManager.checkBookable(entry.getValueDate());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sirius.data.ledger;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads the ledger. Every query bounds {@code value_date} with plain parameters, so the planner
+ * prunes partitions outside the range, and orders by the columns of the recent partitions'
+ * indexes.
+ */
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class LedgerEntryRepository {
+    
+    private static final String COLUMNS =
+        "id, value_date, booked_at, entity_id, account_id, currency, amount_units, transaction_ref, description";
+    
+    private static final RowMapper<LedgerEntry> ROW_MAPPER = (rs, rowNum) -> LedgerEntry.builder()
+        .id(rs.getLong("id"))
+        .valueDate(rs.getObject("value_date", LocalDate.class))
+        .bookedAt(rs.getTimestamp("booked_at").toInstant())
+        .entityId(rs.getString("entity_id"))
+        .accountId(rs.getString("account_id"))
+        .currency(rs.getString("currency"))
+        .amountUnits(rs.getLong("amount_units"))
+        .transactionRef(rs.getString("transaction_ref"))
+        .description(rs.getString("description"))
+        .build();
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Entries of an account with value dates in {@code [from, to)}, ordered by value date and id.
+     * Pass the last entry of a page as {@code after} to get the next one.
+     */
+    public List<LedgerEntry> findByAccount(String accountId, String currency, LocalDate from, LocalDate to,
+                                           @Nullable LedgerEntry after, int limit) {
+        if (after == null) {
+            return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + LedgerPartitionManager.TABLE
+                    + " WHERE account_id = ? AND currency = ? AND value_date >= ? AND value_date < ?"
+                    + " ORDER BY value_date, id LIMIT ?",
+                ROW_MAPPER, accountId, currency, from, to, limit);
+        }
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + LedgerPartitionManager.TABLE
+                + " WHERE account_id = ? AND currency = ? AND value_date >= ? AND value_date < ?"
+                + " AND (value_date, id) > (?, ?) ORDER BY value_date, id LIMIT ?",
+            ROW_MAPPER, accountId, currency, from, to, after.getValueDate(), after.getId(), limit);
+    }
+    
+    /**
+     * All entries of one business transaction. The value date range keeps the lookup to the
+     * partitions it can be in.
+     */
+    public List<LedgerEntry> findByTransactionRef(String transactionRef, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + LedgerPartitionManager.TABLE
+                + " WHERE transaction_ref = ? AND value_date >= ? AND value_date < ? ORDER BY id",
+            ROW_MAPPER, transactionRef, from, to);
+    }
+    
+    /**
+     * @return the net movement of an account over value dates in {@code [from, to)}, in fixed-point units
+     */
+    public long sumByAccount(String accountId, String currency, LocalDate from, LocalDate to) {
+        Long sum = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount_units), 0) FROM "
+                + LedgerPartitionManager.TABLE
+                + " WHERE account_id = ? AND currency = ? AND value_date >= ? AND value_date < ?",
+            Long.class, accountId, currency, from, to);
+        return sum != null ? sum : 0L;
+    }
+    
+    /**
+     * @return the net movement over all accounts of an entity, in fixed-point units
+     */
+    public long sumByEntity(String entityId, String currency, LocalDate from, LocalDate to) {
+        Long sum = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount_units), 0) FROM "
+                + LedgerPartitionManager.TABLE
+                + " WHERE entity_id = ? AND currency = ? AND value_date >= ? AND value_date < ?",
+            Long.class, entityId, currency, from, to);
+        return sum != null ? sum : 0L;
+    }
+}
@@ -0,0 +1,213 @@
+package com.sirius.data.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the monthly partitions of {@code ledger_entries} in shape: creates upcoming months,
+ * swaps the B-tree indexes of months that are no longer recent for a BRIN index, and detaches
+ * months past retention. Maintenance runs on every node but is serialized by a Postgres advisory
+ * lock, so only one node works at a time.
+ */
+@Slf4j
+public class LedgerPartitionManager {
+    
+    static final String TABLE = "ledger_entries";
+    
+    private static final long MAINTENANCE_LOCK = 0x5349524c4544474cL;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    
+    private static final String PARTITIONS_SQL = """
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.relname = ?
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerProperties.Partitions properties;
+    private final Set<YearMonth> ensured = ConcurrentHashMap.newKeySet();
+    
+    public LedgerPartitionManager(JdbcTemplate jdbcTemplate, LedgerProperties.Partitions properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+    
+    /**
+     * Makes sure partitions exist for every month in {@code [from, to]}, for writers about to
+     * book entries with those value dates.
+     *
+     * @throws IllegalArgumentException if a month has passed retention and may be detached, or
+     *                                  lies beyond the months created ahead
+     */
+    public void ensureCovered(LocalDate from, LocalDate to) {
+        checkBookable(from);
+        checkBookable(to);
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            if (!ensured.contains(month)) {
+                jdbcTemplate.queryForObject("SELECT ledger_ensure_partition(?)", String.class, month.atDay(1));
+                ensured.add(month);
+            }
+        }
+    }
+    
+    /**
+     * Checks that entries can be booked with the value date, so that a mistyped year does not
+     * create a partition far in the future.
+     *
+     * @throws IllegalArgumentException if the value date's month has passed retention or lies
+     *                                  beyond the months created ahead
+     */
+    public void checkBookable(LocalDate valueDate) {
+        YearMonth current = currentMonth();
+        YearMonth month = YearMonth.from(valueDate);
+        if (month.isBefore(current.minusMonths(properties.getRetentionMonths() - 1L))) {
+            throw new IllegalArgumentException("Value date " + valueDate + " is past ledger retention");
+        }
+        if (month.isAfter(current.plusMonths(properties.getMonthsAhead()))) {
+            throw new IllegalArgumentException("Value date " + valueDate + " is beyond the ledger horizon of "
+                + properties.getMonthsAhead() + " months ahead");
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${sirius.ledger.partitions.maintenance-interval:3600000}")
+    public void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    return null;
+                }
+                try {
+                    maintain(connection);
+                } finally {
+                    unlock(connection);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Ledger partition maintenance failed, will retry: {}", e.getMessage());
+        }
+    }
+    
+    private void maintain(Connection connection) throws SQLException {
+        YearMonth current = currentMonth();
+        for (int ahead = 0; ahead <= properties.getMonthsAhead(); ahead++) {
+            YearMonth month = current.plusMonths(ahead);
+            try (PreparedStatement statement = connection.prepareStatement("SELECT ledger_ensure_partition(?)")) {
+                statement.setObject(1, month.atDay(1));
+                statement.execute();
+            }
+            ensured.add(month);
+        }
+        
+        YearMonth firstBtree = current.minusMonths(properties.getBtreeMonths() - 1L);
+        YearMonth firstRetained = current.minusMonths(properties.getRetentionMonths() - 1L);
+        for (String partition : partitions(connection)) {
+            YearMonth month = monthOf(partition);
+            if (month == null) {
+                continue;
+            }
+            if (month.isBefore(firstRetained)) {
+                detach(connection, partition);
+                ensured.remove(month);
+            } else if (month.isBefore(firstBtree)) {
+                switchToBrin(connection, partition);
+            }
+        }
+    }
+    
+    /**
+     * Months no longer written in bulk are read mostly by date range, which a BRIN index on
+     * insertion-ordered columns serves at a tiny fraction of the B-tree size.
+     */
+    private void switchToBrin(Connection connection, String partition) throws SQLException {
+        if (!indexExists(connection, partition + "_account_idx") && indexExists(connection, partition + "_brin")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + partition + "_brin ON " + partition
+                + " USING brin (value_date, booked_at, id)");
+            statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + partition + "_account_idx");
+            statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + partition + "_entity_idx");
+        }
+        log.info("Switched ledger partition {} to a BRIN index", partition);
+    }
+    
+    private void detach(Connection connection, String partition) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition + " CONCURRENTLY");
+        }
+        log.info("Detached ledger partition {}", partition);
+    }
+    
+    private static List<String> partitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(PARTITIONS_SQL)) {
+            statement.setString(1, TABLE);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+    
+    private static boolean indexExists(Connection connection, String index) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, index);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+    
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+    
+    private static void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK);
+            statement.execute();
+        }
+    }
+    
+    static YearMonth monthOf(String partition) {
+        String prefix = TABLE + "_";
+        if (!partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(prefix.length()), PARTITION_SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static YearMonth currentMonth() {
+        return YearMonth.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sirius.data.ledger;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+@Data
+@ConfigurationProperties(prefix = "sirius.ledger")
+public class LedgerProperties {
+    
+    private Partitions partitions = new Partitions();
+    
+    private Writer writer = new Writer();
+    
+    private Eod eod = new Eod();
+    
+    @Data
+    public static class Partitions {
+        
+        /**
+         * Monthly partitions created ahead of the current month. Entries can be booked up to the
+         * end of the last of them.
+         */
+        private int monthsAhead = 2;
+        
+        /**
+         * Months, counting the current one, whose partitions keep B-tree indexes for account and
+         * entity lookups. Older partitions get a compact BRIN index instead.
+         */
+        private int btreeMonths = 3;
+        
+        /**
+         * Months, counting the current one, kept attached. Older partitions are detached and left
+         * as standalone tables for archiving; entries can no longer be booked into them.
+         */
+        private int retentionMonths = 24;
+    }
+    
+    @Data
+    public static class Writer {
+        
+        /**
+         * Maximum entries per COPY.
+         */
+        private int batchSize = 5_000;
+        
+        /**
+         * How long the writer waits for a batch to fill before copying what it has.
+         */
+        private Duration flushInterval = Duration.ofMillis(50);
+        
+        /**
+         * Entries waiting to be copied. Appends wait for room, up to the enqueue timeout.
+         */
+        private int queueCapacity = 100_000;
+        
+        private Duration enqueueTimeout = Duration.ofSeconds(1);
+    }
+    
+    @Data
+    public static class Eod {
+        
+        private boolean enabled = true;
+        
+        /**
+         * Cron expression of the end-of-day balance sweep; the date it fires on is the business date.
+         */
+        private String schedule = "0 30 22 * * MON-FRI";
+        
+        private ZoneId zone = ZoneOffset.UTC;
+    }
+}
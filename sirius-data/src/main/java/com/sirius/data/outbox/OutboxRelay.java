@@ -0,0 +1,92 @@
+package com.sirius.data.outbox;
+
+import com.sirius.core.event.EventStreamPublisher;
+import com.sirius.data.entity.OutboxEventEntity;
+import com.sirius.data.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the outbox into the event streams.
+ * <p>
+ * Each batch is locked with {@code FOR UPDATE SKIP LOCKED}, published with pipelined XADDs and
+ * deleted in bulk within one transaction, so several nodes can relay concurrently without
+ * publishing the same row twice unless a node fails between publishing and committing.
+ * Consumers must therefore tolerate duplicates; {@code outboxId} identifies them. Ordering is
+ * preserved within a batch but not across relays running on different nodes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "sirius.outbox.relay", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventStreamPublisher eventStreamPublisher;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${sirius.outbox.relay.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${sirius.outbox.relay.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+    
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, EventStreamPublisher eventStreamPublisher,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventStreamPublisher = eventStreamPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Scheduled(fixedDelayString = "${sirius.outbox.relay.interval:100}")
+    public void relay() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                Integer relayed = transactionTemplate.execute(status -> relayBatch());
+                if (relayed == null || relayed < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+    
+    private int relayBatch() {
+        List<OutboxEventEntity> events = outboxEventRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        Map<String, List<Map<String, String>>> byStream = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OutboxEventEntity event : events) {
+            byStream.computeIfAbsent(event.getStream(), stream -> new ArrayList<>()).add(toRecord(event));
+            ids.add(event.getId());
+        }
+        byStream.forEach(eventStreamPublisher::publish);
+        
+        outboxEventRepository.deleteByIdIn(ids);
+        return events.size();
+    }
+    
+    private static Map<String, String> toRecord(OutboxEventEntity event) {
+        Map<String, String> fields = new HashMap<>(event.getPayload());
+        fields.put("outboxId", event.getId().toString());
+        fields.put("aggregateType", event.getAggregateType());
+        fields.put("aggregateId", event.getAggregateId());
+        fields.put("eventType", event.getEventType());
+        fields.put("occurredAt", event.getCreatedAt().toString());
+        return fields;
+    }
+}
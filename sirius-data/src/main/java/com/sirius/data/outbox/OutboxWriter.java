@@ -0,0 +1,41 @@
+package com.sirius.data.outbox;
+
+import com.sirius.core.event.EventStreams;
+import com.sirius.data.entity.OutboxEventEntity;
+import com.sirius.data.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Records events in the outbox as part of the caller's transaction. The event becomes visible
+ * to the relay only if the surrounding business change commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxWriter {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateType, String aggregateId, String eventType, Map<String, String> payload) {
+        append(EventStreams.TREASURY_EVENTS, aggregateType, aggregateId, eventType, payload);
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String stream, String aggregateType, String aggregateId, String eventType,
+                       Map<String, String> payload) {
+        outboxEventRepository.save(OutboxEventEntity.builder()
+                .stream(stream)
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build());
+    }
+}
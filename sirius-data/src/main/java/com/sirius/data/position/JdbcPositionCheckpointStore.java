@@ -0,0 +1,106 @@
+package com.sirius.data.position;
+
+import com.sirius.core.event.StreamIds;
+import com.sirius.core.position.PositionCheckpointStore;
+import com.sirius.core.position.PositionSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stores position checkpoints in {@code cash_positions}, upserting changed rows in chunks sent as
+ * {@code unnest} arrays. The checkpoint row is locked while saving, so concurrent checkpoints
+ * from several nodes serialize and only a newer one wins.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcPositionCheckpointStore implements PositionCheckpointStore {
+    
+    private static final int CHUNK_SIZE = 10_000;
+    
+    private static final String UPSERT_SQL = """
+        INSERT INTO cash_positions (entity_id, account_id, currency, amount_units)
+        SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::char(3)[], ?::bigint[])
+        ON CONFLICT (entity_id, account_id, currency) DO UPDATE SET amount_units = EXCLUDED.amount_units
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Reads positions and stream id from one consistent view; a lagging replica just yields an
+     * older checkpoint.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Optional<PositionSnapshot> load() {
+        String streamId = jdbcTemplate.queryForObject(
+            "SELECT stream_id FROM cash_position_checkpoint WHERE id = 1", String.class);
+        if (streamId == null) {
+            return Optional.empty();
+        }
+        List<String> entityIds = new ArrayList<>();
+        List<String> accountIds = new ArrayList<>();
+        List<String> currencies = new ArrayList<>();
+        long[][] units = {new long[1024]};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                "SELECT entity_id, account_id, currency, amount_units FROM cash_positions");
+            statement.setFetchSize(CHUNK_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            int row = entityIds.size();
+            if (row == units[0].length) {
+                units[0] = Arrays.copyOf(units[0], row * 2);
+            }
+            entityIds.add(rs.getString(1));
+            accountIds.add(rs.getString(2));
+            currencies.add(rs.getString(3));
+            units[0][row] = rs.getLong(4);
+        });
+        return Optional.of(new PositionSnapshot(streamId, false, entityIds.toArray(String[]::new),
+            accountIds.toArray(String[]::new), currencies.toArray(String[]::new),
+            Arrays.copyOf(units[0], entityIds.size())));
+    }
+    
+    @Override
+    @Transactional
+    public boolean save(PositionSnapshot snapshot) {
+        if (snapshot.getStreamId() == null) {
+            return false;
+        }
+        String stored = jdbcTemplate.queryForObject(
+            "SELECT stream_id FROM cash_position_checkpoint WHERE id = 1 FOR UPDATE", String.class);
+        if (stored != null && StreamIds.compare(snapshot.getStreamId(), stored) <= 0) {
+            return false;
+        }
+        for (int from = 0; from < snapshot.size(); from += CHUNK_SIZE) {
+            upsert(snapshot, from, Math.min(from + CHUNK_SIZE, snapshot.size()));
+        }
+        jdbcTemplate.update("UPDATE cash_position_checkpoint SET stream_id = ?, taken_at = CURRENT_TIMESTAMP WHERE id = 1",
+            snapshot.getStreamId());
+        return true;
+    }
+    
+    private void upsert(PositionSnapshot snapshot, int from, int to) {
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                statement.setArray(1, connection.createArrayOf("varchar", Arrays.copyOfRange(snapshot.getEntityIds(), from, to)));
+                statement.setArray(2, connection.createArrayOf("varchar", Arrays.copyOfRange(snapshot.getAccountIds(), from, to)));
+                statement.setArray(3, connection.createArrayOf("bpchar", Arrays.copyOfRange(snapshot.getCurrencies(), from, to)));
+                statement.setArray(4, connection.createArrayOf("int8",
+                    Arrays.stream(snapshot.getUnits(), from, to).boxed().toArray()));
+                return statement.executeUpdate();
+            }
+        });
+    }
+}
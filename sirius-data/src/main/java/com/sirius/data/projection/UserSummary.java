@@ -0,0 +1,24 @@
+package com.sirius.data.projection;
+
+import java.time.Instant;
+
+/**
+ * Directory view of a user. Queries returning it select only these columns, never the
+ * password hash or the full entity.
+ */
+public interface UserSummary {
+    
+    Long getId();
+    
+    String getUsername();
+    
+    String getEmail();
+    
+    String getFirstName();
+    
+    String getLastName();
+    
+    Boolean getEnabled();
+    
+    Instant getCreatedAt();
+}
@@ -0,0 +1,21 @@
+package com.sirius.data.repository;
+
+import com.sirius.data.entity.UserEntity;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Set-based writes for user provisioning, bypassing the persistence context
+ */
+public interface UserBulkOperations {
+    
+    /**
+     * Inserts the users in a single statement, skipping any whose username or email already
+     * exists. Passwords must already be encoded.
+     *
+     * @return the number of rows inserted
+     */
+    @Transactional
+    int insertIgnoringDuplicates(List<UserEntity> users);
+}
@@ -0,0 +1,91 @@
+package com.sirius.data.repository;
+
+import com.sirius.data.entity.UserEntity;
+import com.sirius.data.security.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Sends a whole batch as parallel arrays and expands them server-side with {@code unnest}: one
+ * round trip and one statement per batch regardless of size, with duplicates resolved by
+ * {@code ON CONFLICT DO NOTHING} and an exact inserted-row count. New users get the default role
+ * in the same statement.
+ */
+@RequiredArgsConstructor
+public class UserBulkOperationsImpl implements UserBulkOperations {
+    
+    /**
+     * Ids per {@code nextval}, matching the increment of {@code users_id_seq} and Hibernate's pooled
+     * allocation size. A batch draws one value per block of rows and numbers the rows below it the
+     * same way Hibernate does, instead of burning a whole block per row through the column default.
+     */
+    private static final int ID_BLOCK = 50;
+    
+    private static final String INSERT_SQL = """
+        WITH batch AS (
+            SELECT u.*, (u.n - 1) / %1$d AS block
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::boolean[])
+                WITH ORDINALITY AS u(username, email, password, first_name, last_name, enabled, n)
+        ), blocks AS (
+            SELECT b AS block, nextval('users_id_seq') AS hi
+            FROM generate_series(0, (SELECT max(block) FROM batch)) AS b
+        ), inserted AS (
+            INSERT INTO users (id, username, email, password, first_name, last_name, enabled,
+                               account_non_expired, account_non_locked, credentials_non_expired,
+                               created_by, updated_by)
+            SELECT b.hi - %1$d + 1 + (u.n - 1) %% %1$d, u.username, u.email, u.password, u.first_name, u.last_name,
+                   u.enabled, true, true, true, ?, ?
+            FROM batch u JOIN blocks b ON b.block = u.block
+            ON CONFLICT DO NOTHING
+            RETURNING id
+        ), assigned AS (
+            INSERT INTO user_roles (user_id, role_id)
+            SELECT i.id, r.id FROM inserted i JOIN roles r ON r.name = ?
+        )
+        SELECT count(*) FROM inserted
+        """.formatted(ID_BLOCK);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorProvider;
+    
+    @Override
+    public int insertIgnoringDuplicates(List<UserEntity> users) {
+        if (users.isEmpty()) {
+            return 0;
+        }
+        String auditor = auditorProvider.getCurrentAuditor().orElse("system");
+        Integer inserted = jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                statement.setArray(1, varchars(connection, users, UserEntity::getUsername));
+                statement.setArray(2, varchars(connection, users, UserEntity::getEmail));
+                statement.setArray(3, varchars(connection, users, UserEntity::getPassword));
+                statement.setArray(4, varchars(connection, users, UserEntity::getFirstName));
+                statement.setArray(5, varchars(connection, users, UserEntity::getLastName));
+                statement.setArray(6, connection.createArrayOf("boolean",
+                    users.stream().map(u -> u.getEnabled() == null || u.getEnabled()).toArray()));
+                statement.setString(7, auditor);
+                statement.setString(8, auditor);
+                statement.setString(9, RoleRepository.DEFAULT_ROLE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            }
+        });
+        return inserted != null ? inserted : 0;
+    }
+    
+    private static Array varchars(Connection connection, List<UserEntity> users,
+                                  Function<UserEntity, String> field) throws SQLException {
+        return connection.createArrayOf("varchar", users.stream().map(field).toArray());
+    }
+}
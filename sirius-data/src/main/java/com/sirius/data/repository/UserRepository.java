@@ -1,13 +1,25 @@
 package com.sirius.data.repository;
 
 import com.sirius.data.entity.UserEntity;
+import com.sirius.data.projection.UserSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Lookups run in read-only transactions and so are served by a replica when replicas are configured
+ */
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<UserEntity, Long>, UserBulkOperations {
     
     Optional<UserEntity> findByUsername(String username);
     
@@ -16,4 +28,21 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
+    
+    /**
+     * Keyset page ordered by id: the next page starts after the last id of the previous one
+     */
+    List<UserSummary> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    
+    /**
+     * Keyset page ordered by username, served by the unique username index
+     */
+    List<UserSummary> findByUsernameGreaterThanOrderByUsernameAsc(String afterUsername, Limit limit);
+    
+    /**
+     * Whole directory through a server-side cursor. Must be consumed, and closed, inside the
+     * calling transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<UserSummary> streamAllByOrderByIdAsc();
 }
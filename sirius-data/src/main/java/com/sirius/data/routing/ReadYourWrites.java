@@ -0,0 +1,34 @@
+package com.sirius.data.routing;
+
+/**
+ * Keeps a thread on the primary for a while after it writes, so it does not read its own
+ * changes back from a replica that has not replayed them yet. Web requests clear the pin when
+ * they complete; other threads fall back to replicas once the pin expires.
+ */
+public final class ReadYourWrites {
+    
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+    
+    private ReadYourWrites() {
+    }
+    
+    public static void pin(long durationNanos) {
+        PINNED_UNTIL.set(System.nanoTime() + durationNanos);
+    }
+    
+    public static boolean isPinned() {
+        Long until = PINNED_UNTIL.get();
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        PINNED_UNTIL.remove();
+        return false;
+    }
+    
+    public static void clear() {
+        PINNED_UNTIL.remove();
+    }
+}
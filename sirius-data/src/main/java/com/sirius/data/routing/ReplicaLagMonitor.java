@@ -0,0 +1,101 @@
+package com.sirius.data.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Polls each replica's replay lag. A replica is taken out of rotation when it lags more than
+ * the configured maximum or the check fails, and comes back on the next good check.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements DisposableBean {
+    
+    /**
+     * Zero when the replica has replayed everything it received, so an idle primary does not
+     * make replicas look stale; otherwise the age of the last replayed transaction.
+     */
+    private static final String LAG_SQL = """
+        SELECT CASE
+                 WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+               END
+        """;
+    
+    @Getter
+    private final List<ReplicaState> replicas;
+    private final long maxLagMillis;
+    
+    public ReplicaLagMonitor(List<HikariDataSource> replicaDataSources, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicas = replicaDataSources.stream().map(ReplicaState::new).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        for (ReplicaState replica : replicas) {
+            Gauge.builder("sirius.datasource.replica.lag", replica, r -> r.lagMillis)
+                .description("Replay lag of the replica in milliseconds; -1 when the check fails")
+                .baseUnit("milliseconds")
+                .tag("replica", replica.getName())
+                .register(meterRegistry);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${sirius.datasource.lag-check-interval:2000}")
+    public void check() {
+        for (ReplicaState replica : replicas) {
+            long lag;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+                resultSet.next();
+                lag = resultSet.getLong(1);
+            } catch (Exception e) {
+                lag = -1;
+                if (replica.healthy) {
+                    log.warn("Replica {} failed its lag check, routing reads elsewhere: {}", replica.getName(), e.getMessage());
+                }
+            }
+            boolean healthy = lag >= 0 && lag <= maxLagMillis;
+            if (replica.healthy && !healthy && lag >= 0) {
+                log.warn("Replica {} is {} ms behind, routing reads elsewhere", replica.getName(), lag);
+            } else if (!replica.healthy && healthy) {
+                log.info("Replica {} caught up ({} ms), back in rotation", replica.getName(), lag);
+            }
+            replica.lagMillis = lag;
+            replica.healthy = healthy;
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+    
+    public static class ReplicaState {
+        
+        @Getter
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+        
+        ReplicaState(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+        
+        public String getName() {
+            return dataSource.getPoolName();
+        }
+        
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+}
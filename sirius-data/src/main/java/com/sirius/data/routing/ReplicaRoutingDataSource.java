@@ -0,0 +1,81 @@
+package com.sirius.data.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections for read-only transactions to a healthy replica, round-robin, and
+ * everything else to the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction's
+ * read-only flag is only known after the transaction manager has asked for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    static final String PRIMARY = "primary";
+    
+    private final List<ReplicaLagMonitor.ReplicaState> replicas;
+    private final long pinNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter fallbacks;
+    
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor lagMonitor, long pinNanos,
+                                    MeterRegistry meterRegistry) {
+        this.replicas = lagMonitor.getReplicas();
+        this.pinNanos = pinNanos;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (ReplicaLagMonitor.ReplicaState replica : replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        
+        this.primaryRoutes = routes(meterRegistry, "primary");
+        this.replicaRoutes = routes(meterRegistry, "replica");
+        this.fallbacks = routes(meterRegistry, "fallback");
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadYourWrites.pin(pinNanos);
+            }
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        if (ReadYourWrites.isPinned()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            ReplicaLagMonitor.ReplicaState replica = replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                replicaRoutes.increment();
+                return replica.getName();
+            }
+        }
+        fallbacks.increment();
+        return PRIMARY;
+    }
+    
+    private static Counter routes(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("sirius.datasource.routes")
+            .description("Connections handed out by target")
+            .tag("target", target)
+            .register(meterRegistry);
+    }
+}
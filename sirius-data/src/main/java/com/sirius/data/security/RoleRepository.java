@@ -0,0 +1,161 @@
+package com.sirius.data.security;
+
+import com.sirius.core.security.Permission;
+import com.sirius.core.security.RoleGrant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Roles, their permissions and the roles of each user. Role definitions are read from the primary,
+ * since they are reloaded right after a change is committed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RoleRepository {
+    
+    /**
+     * Held by every user created through provisioning.
+     */
+    public static final String DEFAULT_ROLE = "USER";
+    
+    private static final String USER_SQL = """
+        SELECT u.id, u.username, u.password, u.enabled, u.account_non_expired, u.account_non_locked,
+               u.credentials_non_expired, r.name AS role, ur.entity_id
+        FROM users u
+        LEFT JOIN user_roles ur ON ur.user_id = u.id
+        LEFT JOIN roles r ON r.id = ur.role_id
+        WHERE u.username = ?
+        """;
+    
+    private static final String ROLE_BITS_SQL = """
+        SELECT r.name, COALESCE(bit_or(1::bigint << rp.permission_id), 0)
+        FROM roles r
+        LEFT JOIN role_permissions rp ON rp.role_id = r.id
+        GROUP BY r.name
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Loads the user together with their roles in one query.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserAuthorization> findByUsername(String username) {
+        return Optional.ofNullable(jdbcTemplate.query(USER_SQL, (ResultSet rs) -> {
+            if (!rs.next()) {
+                return null;
+            }
+            UserAuthorization.UserAuthorizationBuilder user = UserAuthorization.builder()
+                .id(rs.getLong("id"))
+                .username(rs.getString("username"))
+                .password(rs.getString("password"))
+                .enabled(rs.getBoolean("enabled"))
+                .accountNonExpired(rs.getBoolean("account_non_expired"))
+                .accountNonLocked(rs.getBoolean("account_non_locked"))
+                .credentialsNonExpired(rs.getBoolean("credentials_non_expired"));
+            List<RoleGrant> grants = new ArrayList<>();
+            do {
+                String role = rs.getString("role");
+                if (role != null) {
+                    grants.add(new RoleGrant(role, rs.getString("entity_id")));
+                }
+            } while (rs.next());
+            return user.grants(grants).build();
+        }, username));
+    }
+    
+    /**
+     * @return the permission bits of every role, keyed by role name
+     */
+    public Map<String, Long> loadRoleBits() {
+        Map<String, Long> roles = new HashMap<>();
+        jdbcTemplate.query(ROLE_BITS_SQL, (ResultSet rs) -> {
+            roles.put(rs.getString(1), rs.getLong(2));
+        });
+        return roles;
+    }
+    
+    /**
+     * @return false if the role already had the permission
+     * @throws IllegalArgumentException if the role does not exist
+     */
+    @Transactional
+    public boolean grantPermission(String role, Permission permission) {
+        long roleId = roleId(role);
+        int inserted = jdbcTemplate.update(
+            "INSERT INTO role_permissions (role_id, permission_id) VALUES (?, ?) ON CONFLICT DO NOTHING",
+            roleId, permission.getBit());
+        touch(roleId, inserted);
+        return inserted > 0;
+    }
+    
+    /**
+     * @return false if the role did not have the permission
+     * @throws IllegalArgumentException if the role does not exist
+     */
+    @Transactional
+    public boolean revokePermission(String role, Permission permission) {
+        long roleId = roleId(role);
+        int deleted = jdbcTemplate.update(
+            "DELETE FROM role_permissions WHERE role_id = ? AND permission_id = ?", roleId, permission.getBit());
+        touch(roleId, deleted);
+        return deleted > 0;
+    }
+    
+    /**
+     * @param entityId the entity the role is limited to, {@code null} for every entity
+     * @return false if the user already held the role for that scope
+     * @throws IllegalArgumentException if the user or role does not exist
+     */
+    @Transactional
+    public boolean assignRole(String username, String role, @Nullable String entityId) {
+        long roleId = roleId(role);
+        return jdbcTemplate.update(
+            "INSERT INTO user_roles (user_id, role_id, entity_id) VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+            userId(username), roleId, entityId) > 0;
+    }
+    
+    /**
+     * @return false if the user did not hold the role for that scope
+     * @throws IllegalArgumentException if the user or role does not exist
+     */
+    @Transactional
+    public boolean unassignRole(String username, String role, @Nullable String entityId) {
+        long roleId = roleId(role);
+        return jdbcTemplate.update(
+            "DELETE FROM user_roles WHERE user_id = ? AND role_id = ? AND entity_id IS NOT DISTINCT FROM ?::varchar",
+            userId(username), roleId, entityId) > 0;
+    }
+    
+    private long roleId(String role) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM roles WHERE name = ?", Long.class, role);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Unknown role: " + role);
+        }
+        return ids.get(0);
+    }
+    
+    private long userId(String username) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM users WHERE username = ?", Long.class, username);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Unknown user: " + username);
+        }
+        return ids.get(0);
+    }
+    
+    private void touch(long roleId, int changed) {
+        if (changed > 0) {
+            jdbcTemplate.update("UPDATE roles SET updated_at = CURRENT_TIMESTAMP WHERE id = ?", roleId);
+        }
+    }
+}
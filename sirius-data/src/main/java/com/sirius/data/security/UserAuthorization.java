@@ -0,0 +1,24 @@
+package com.sirius.data.security;
+
+import com.sirius.core.security.RoleGrant;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A user's credentials, account state and roles, as needed to authenticate and authorize them.
+ */
+@Value
+@Builder
+public class UserAuthorization {
+    
+    Long id;
+    String username;
+    String password;
+    boolean enabled;
+    boolean accountNonExpired;
+    boolean accountNonLocked;
+    boolean credentialsNonExpired;
+    List<RoleGrant> grants;
+}
@@ -0,0 +1,161 @@
+package com.sirius.data.stream;
+
+import com.sirius.core.event.StreamArchive;
+import com.sirius.core.event.StreamEntry;
+import com.sirius.core.event.StreamIds;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archives stream entries in {@code stream_archive_segments}, one gzip-compressed row per
+ * appended batch. Replay reads the segments in id order through a cursor and decodes one at a
+ * time, so memory use is bounded by the segment size.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcStreamArchive implements StreamArchive {
+    
+    private static final String INSERT_SQL = """
+        INSERT INTO stream_archive_segments (stream, first_ms, first_seq, last_ms, last_seq, entry_count, payload)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+    
+    private static final String LAST_SQL = """
+        SELECT last_ms, last_seq FROM stream_archive_segments
+        WHERE stream = ?
+        ORDER BY last_ms DESC, last_seq DESC
+        LIMIT 1
+        """;
+    
+    private static final String REPLAY_SQL = """
+        SELECT payload FROM stream_archive_segments
+        WHERE stream = ? AND (last_ms, last_seq) > (?, ?)
+        ORDER BY last_ms, last_seq
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Locks the stream's archive for the transaction, so concurrent appends cannot interleave.
+     */
+    @Override
+    @Transactional
+    public void append(String stream, List<StreamEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext('stream_archive:' || ?))", stream);
+        String first = entries.get(0).getId();
+        String last = entries.get(entries.size() - 1).getId();
+        String archived = lastArchivedId(stream);
+        if (archived != null && StreamIds.compare(first, archived) <= 0) {
+            throw new IllegalStateException("Entry " + first + " of " + stream + " is already archived up to " + archived);
+        }
+        jdbcTemplate.update(INSERT_SQL, stream, StreamIds.millis(first), sequence(first),
+            StreamIds.millis(last), sequence(last), entries.size(), encode(entries));
+    }
+    
+    @Override
+    @Nullable
+    public String lastArchivedId(String stream) {
+        List<String> ids = jdbcTemplate.query(LAST_SQL, (rs, row) -> rs.getLong(1) + "-" + rs.getLong(2), stream);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+    
+    /**
+     * Runs in a transaction so the driver can stream segments with a cursor. Not read-only: that
+     * would route it to a replica, which may lag behind {@link #lastArchivedId} read from the
+     * primary and leave a gap the replayer cannot see.
+     */
+    @Override
+    @Transactional
+    public void replay(String stream, String afterId, Consumer<StreamEntry> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(REPLAY_SQL);
+            statement.setFetchSize(1);
+            statement.setString(1, stream);
+            statement.setLong(2, StreamIds.millis(afterId));
+            statement.setLong(3, sequence(afterId));
+            return statement;
+        }, (ResultSet rs) -> {
+            for (StreamEntry entry : decode(rs.getBytes(1))) {
+                if (StreamIds.compare(entry.getId(), afterId) > 0) {
+                    consumer.accept(entry);
+                }
+            }
+        });
+    }
+    
+    private static long sequence(String id) {
+        int dash = id.indexOf('-');
+        return dash < 0 ? 0 : Long.parseLong(id.substring(dash + 1));
+    }
+    
+    static byte[] encode(List<StreamEntry> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes, 64 * 1024))) {
+            out.writeInt(entries.size());
+            for (StreamEntry entry : entries) {
+                writeString(out, entry.getId());
+                out.writeInt(entry.getFields().size());
+                for (Map.Entry<String, String> field : entry.getFields().entrySet()) {
+                    writeString(out, field.getKey());
+                    writeString(out, field.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    static List<StreamEntry> decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(payload), 64 * 1024))) {
+            int count = in.readInt();
+            StreamEntry[] entries = new StreamEntry[count];
+            for (int i = 0; i < count; i++) {
+                String id = readString(in);
+                int fieldCount = in.readInt();
+                Map<String, String> fields = new HashMap<>(fieldCount * 2);
+                for (int f = 0; f < fieldCount; f++) {
+                    fields.put(readString(in), readString(in));
+                }
+                entries[i] = new StreamEntry(id, fields);
+            }
+            return List.of(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,11 @@
+-- Transactional outbox: rows are written in the same transaction as the business change
+-- and relayed to the Redis event stream, then deleted
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    stream VARCHAR(100) NOT NULL,
+    aggregate_type VARCHAR(100) NOT NULL,
+    aggregate_id VARCHAR(100) NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
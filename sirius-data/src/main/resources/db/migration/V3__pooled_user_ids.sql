@@ -0,0 +1,4 @@
+-- Ids for users are now allocated by Hibernate's pooled optimizer: one nextval reserves a block of 50,
+-- which lets inserts be batched. The column default stays for plain SQL inserts; a value they draw is
+-- one Hibernate never fetched, so it lies outside every block Hibernate hands out.
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
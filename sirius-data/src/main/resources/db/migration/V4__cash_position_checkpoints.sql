@@ -0,0 +1,18 @@
+-- Checkpointed state of the in-memory cash position engine; amounts are fixed-point with
+-- 4 decimal places. The single checkpoint row records the last stream event reflected here.
+CREATE TABLE cash_positions (
+    entity_id VARCHAR(64) NOT NULL,
+    account_id VARCHAR(64) NOT NULL,
+    currency CHAR(3) NOT NULL,
+    amount_units BIGINT NOT NULL,
+    amount NUMERIC(19, 4) GENERATED ALWAYS AS (amount_units / 10000.0) STORED,
+    PRIMARY KEY (entity_id, account_id, currency)
+);
+
+CREATE TABLE cash_position_checkpoint (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    stream_id VARCHAR(32),
+    taken_at TIMESTAMP
+);
+
+INSERT INTO cash_position_checkpoint (id) VALUES (1);
@@ -0,0 +1,41 @@
+-- Append-only ledger, range-partitioned by value date into monthly partitions.
+-- There is deliberately no default partition: a value date without a partition is an error
+-- rather than a row that later blocks creating that partition, and it allows
+-- DETACH PARTITION CONCURRENTLY. LedgerPartitionManager creates partitions ahead of time,
+-- moves older ones from B-tree to BRIN indexes and detaches those past retention.
+-- Amounts are fixed-point with 4 decimal places. Ids come from one sequence and are unique
+-- without a global index.
+CREATE TABLE ledger_entries (
+    id BIGSERIAL NOT NULL,
+    value_date DATE NOT NULL,
+    booked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    entity_id VARCHAR(64) NOT NULL,
+    account_id VARCHAR(64) NOT NULL,
+    currency CHAR(3) NOT NULL,
+    amount_units BIGINT NOT NULL,
+    transaction_ref VARCHAR(64) NOT NULL,
+    description VARCHAR(255)
+) PARTITION BY RANGE (value_date);
+
+-- Creates the partition holding p_month, with the B-tree indexes used while it is recent.
+-- Safe to call concurrently and repeatedly.
+CREATE FUNCTION ledger_ensure_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_month)::date;
+    partition_name TEXT := 'ledger_entries_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('ledger_ensure_partition'));
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF ledger_entries FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, month_start, (month_start + interval '1 month')::date);
+        EXECUTE format('CREATE INDEX %I ON %I (account_id, currency, value_date, id)',
+                       partition_name || '_account_idx', partition_name);
+        EXECUTE format('CREATE INDEX %I ON %I (entity_id, currency, value_date)',
+                       partition_name || '_entity_idx', partition_name);
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT ledger_ensure_partition((date_trunc('month', CURRENT_DATE) + make_interval(months => m))::date)
+FROM generate_series(-1, 2) AS m;
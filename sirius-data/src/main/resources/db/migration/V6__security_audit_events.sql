@@ -0,0 +1,32 @@
+-- Security audit trail, append-only and range-partitioned by month of occurred_at. Like the ledger it
+-- has no default partition; JdbcAuditSink creates the month's partition before its first write.
+-- Old months can be detached and archived as a whole.
+CREATE TABLE security_audit_events (
+    id BIGSERIAL NOT NULL,
+    occurred_at TIMESTAMP NOT NULL, -- UTC
+    event_type VARCHAR(32) NOT NULL,
+    principal VARCHAR(255),
+    detail VARCHAR(255),
+    remote_address VARCHAR(64)
+) PARTITION BY RANGE (occurred_at);
+
+-- Audit queries are by time range, optionally narrowed to a principal.
+CREATE INDEX idx_security_audit_events_occurred_at ON security_audit_events USING brin (occurred_at);
+CREATE INDEX idx_security_audit_events_principal ON security_audit_events (principal, occurred_at);
+
+CREATE FUNCTION audit_ensure_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_month)::date;
+    partition_name TEXT := 'security_audit_events_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('audit_ensure_partition'));
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF security_audit_events FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, month_start, (month_start + interval '1 month')::date);
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT audit_ensure_partition((date_trunc('month', CURRENT_DATE) + make_interval(months => m))::date)
+FROM generate_series(0, 1) AS m;
@@ -0,0 +1,67 @@
+-- Role-based authorization. A permission's id is its bit in the compiled permission set (see
+-- com.sirius.core.security.Permission) and must never be reused. A user role without an
+-- entity_id applies to every treasury entity, otherwise to that entity only.
+CREATE TABLE permissions (
+    id SMALLINT PRIMARY KEY CHECK (id BETWEEN 0 AND 63),
+    name VARCHAR(64) NOT NULL UNIQUE,
+    description VARCHAR(255)
+);
+
+CREATE TABLE roles (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(64) NOT NULL UNIQUE,
+    description VARCHAR(255),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE role_permissions (
+    role_id BIGINT NOT NULL REFERENCES roles (id) ON DELETE CASCADE,
+    permission_id SMALLINT NOT NULL REFERENCES permissions (id),
+    PRIMARY KEY (role_id, permission_id)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    role_id BIGINT NOT NULL REFERENCES roles (id) ON DELETE CASCADE,
+    entity_id VARCHAR(64),
+    UNIQUE NULLS NOT DISTINCT (user_id, role_id, entity_id)
+);
+
+CREATE INDEX idx_user_roles_role ON user_roles (role_id);
+
+INSERT INTO permissions (id, name, description) VALUES
+    (0, 'USER_READ', 'List and export the user directory'),
+    (1, 'USER_IMPORT', 'Bulk-provision users'),
+    (2, 'ROLE_ADMIN', 'Change role definitions and user roles'),
+    (3, 'AUDIT_READ', 'Read the security audit trail'),
+    (4, 'POSITION_READ', 'Read cash positions'),
+    (5, 'FX_READ', 'Read FX rates'),
+    (6, 'LEDGER_READ', 'Read ledger entries'),
+    (7, 'PAYMENT_CREATE', 'Create payments'),
+    (8, 'PAYMENT_APPROVE', 'Approve payments');
+
+INSERT INTO roles (name, description) VALUES
+    ('USER', 'Read access to treasury data; given to every new user'),
+    ('TREASURY_OPERATOR', 'Creates payments'),
+    ('PAYMENT_APPROVER', 'Approves payments; usually granted per entity'),
+    ('AUDITOR', 'Read-only access including the audit trail'),
+    ('ADMIN', 'Everything');
+
+INSERT INTO role_permissions (role_id, permission_id)
+SELECT r.id, p.id
+FROM roles r
+JOIN permissions p ON (r.name, p.name) IN (
+    ('USER', 'POSITION_READ'), ('USER', 'FX_READ'), ('USER', 'LEDGER_READ'),
+    ('TREASURY_OPERATOR', 'POSITION_READ'), ('TREASURY_OPERATOR', 'FX_READ'), ('TREASURY_OPERATOR', 'LEDGER_READ'),
+    ('TREASURY_OPERATOR', 'PAYMENT_CREATE'),
+    ('PAYMENT_APPROVER', 'PAYMENT_APPROVE'),
+    ('AUDITOR', 'USER_READ'), ('AUDITOR', 'AUDIT_READ'), ('AUDITOR', 'POSITION_READ'), ('AUDITOR', 'FX_READ'),
+    ('AUDITOR', 'LEDGER_READ')
+)
+OR r.name = 'ADMIN';
+
+INSERT INTO user_roles (user_id, role_id)
+SELECT u.id, r.id FROM users u JOIN roles r ON r.name = 'USER';
+
+INSERT INTO user_roles (user_id, role_id)
+SELECT u.id, r.id FROM users u JOIN roles r ON r.name = 'ADMIN' WHERE u.username = 'admin';
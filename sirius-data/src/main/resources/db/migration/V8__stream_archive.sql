@@ -0,0 +1,13 @@
+-- Entries trimmed from Redis streams, stored in gzip-compressed segments of consecutive entries.
+-- Ids are kept as (millis, sequence) pairs so segments sort and compare numerically.
+CREATE TABLE stream_archive_segments (
+    stream VARCHAR(128) NOT NULL,
+    first_ms BIGINT NOT NULL,
+    first_seq BIGINT NOT NULL,
+    last_ms BIGINT NOT NULL,
+    last_seq BIGINT NOT NULL,
+    entry_count INTEGER NOT NULL,
+    payload BYTEA NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (stream, last_ms, last_seq)
+);
@@ -0,0 +1,14 @@
+-- End-of-day balances per account and currency, written by EodBalanceSweepJob. Each business
+-- date is rolled forward from the entity's previous one, plus the ledger entries value-dated
+-- in between. Amounts are fixed-point with 4 decimal places, like the ledger.
+CREATE TABLE eod_balances (
+    business_date DATE NOT NULL,
+    entity_id VARCHAR(64) NOT NULL,
+    account_id VARCHAR(64) NOT NULL,
+    currency CHAR(3) NOT NULL,
+    balance_units BIGINT NOT NULL,
+    swept_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (business_date, entity_id, currency, account_id)
+);
+
+CREATE INDEX idx_eod_balances_entity ON eod_balances (entity_id, business_date);
@@ -0,0 +1,41 @@
+package com.sirius.infra.audit;
+
+import com.sirius.core.audit.AuditLog;
+import com.sirius.core.audit.AuditSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * The audit pipeline and its Redis stream sink. The database sink lives in sirius-data; every
+ * {@link AuditSink} bean is written to. With {@code sirius.audit.enabled=false} events are
+ * discarded.
+ */
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "sirius.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AuditPipeline auditPipeline(ObjectProvider<AuditSink> sinks, AuditProperties properties,
+                                       MeterRegistry meterRegistry) {
+        return new AuditPipeline(sinks.orderedStream().toList(), properties, meterRegistry);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "sirius.audit", name = "enabled", havingValue = "false")
+    public AuditLog noAuditLog() {
+        return AuditLog.NOOP;
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "sirius.audit.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RedisStreamAuditSink redisStreamAuditSink(StringRedisTemplate redisTemplate, AuditProperties properties) {
+        return new RedisStreamAuditSink(redisTemplate, properties.getStream().getName(),
+            properties.getStream().getMaxLength());
+    }
+}
@@ -0,0 +1,225 @@
+package com.sirius.infra.audit;
+
+import com.sirius.core.audit.AuditEvent;
+import com.sirius.core.audit.AuditLog;
+import com.sirius.core.audit.AuditSink;
+import com.sirius.core.collection.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes audit events off request threads and writes them to the sinks in batches.
+ * <p>
+ * {@link #record} is a single CAS into a lock-free ring buffer. When the ring is full, the
+ * overflow policy either drops the event at once or lets the caller wait briefly for room; every
+ * drop is counted. One writer thread drains the ring, flushing when a batch is full or its first
+ * event has waited for the flush interval, and retries a failing sink with backoff. A sink that
+ * stays down therefore backs events up into the ring, not onto callers. A batch the sink still
+ * rejects is written again one event at a time, so a single event the sink cannot store costs
+ * only itself.
+ */
+@Slf4j
+public class AuditPipeline implements AuditLog, SmartLifecycle {
+    
+    /**
+     * Stops after the web server has drained requests and before the Redis connection factory
+     * (phase 0), so the last events still reach the sinks.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+    
+    /**
+     * Single-event writes that may fail in a row before a sink is taken to be down rather than
+     * rejecting particular events.
+     */
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+    
+    private final MpscRingBuffer<AuditEvent> buffer;
+    private final List<AuditSink> sinks;
+    private final AuditProperties properties;
+    private final long maxBlockNanos;
+    private final long flushIntervalNanos;
+    
+    private final Counter accepted;
+    private final Counter dropped;
+    private final Timer blocked;
+    private final List<Counter> written = new ArrayList<>();
+    private final List<Counter> failed = new ArrayList<>();
+    private final List<Timer> writeTimers = new ArrayList<>();
+    
+    private volatile boolean running;
+    private Thread writer;
+    
+    public AuditPipeline(List<AuditSink> sinks, AuditProperties properties, MeterRegistry meterRegistry) {
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+        this.sinks = List.copyOf(sinks);
+        this.properties = properties;
+        this.maxBlockNanos = properties.getMaxBlock().toNanos();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.accepted = events(meterRegistry, "accepted");
+        this.dropped = events(meterRegistry, "dropped");
+        this.blocked = Timer.builder("sirius.audit.blocked")
+            .description("Time callers waited for room in the audit buffer")
+            .register(meterRegistry);
+        Gauge.builder("sirius.audit.buffered", buffer, MpscRingBuffer::size).register(meterRegistry);
+        for (AuditSink sink : this.sinks) {
+            written.add(Counter.builder("sirius.audit.written").tag("sink", sink.getName()).register(meterRegistry));
+            failed.add(Counter.builder("sirius.audit.failed").tag("sink", sink.getName()).register(meterRegistry));
+            writeTimers.add(Timer.builder("sirius.audit.write").tag("sink", sink.getName()).register(meterRegistry));
+        }
+    }
+    
+    @Override
+    public void record(AuditEvent event) {
+        if (buffer.offer(event) || (properties.getOverflowPolicy() == AuditProperties.OverflowPolicy.BLOCK
+                && offerWaiting(event))) {
+            accepted.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+    
+    private boolean offerWaiting(AuditEvent event) {
+        long started = System.nanoTime();
+        try {
+            do {
+                LockSupport.parkNanos(50_000);
+                if (buffer.offer(event)) {
+                    return true;
+                }
+            } while (System.nanoTime() - started < maxBlockNanos && !Thread.currentThread().isInterrupted());
+            return false;
+        } finally {
+            blocked.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (buffer.size() > 0) {
+            log.warn("Audit writer stopped with {} events unwritten", buffer.size());
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+    
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(properties.getBatchSize());
+        long batchStarted = 0;
+        while (true) {
+            boolean wasEmpty = batch.isEmpty();
+            int drained = buffer.drainTo(batch, properties.getBatchSize() - batch.size());
+            if (wasEmpty && drained > 0) {
+                batchStarted = System.nanoTime();
+            }
+            boolean stopping = !running;
+            if (!batch.isEmpty() && (batch.size() >= properties.getBatchSize() || stopping
+                    || System.nanoTime() - batchStarted >= flushIntervalNanos)) {
+                write(batch);
+                batch.clear();
+            } else if (stopping && buffer.size() == 0) {
+                return;
+            } else if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+    
+    private void write(List<AuditEvent> batch) {
+        for (int i = 0; i < sinks.size(); i++) {
+            AuditSink sink = sinks.get(i);
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    writeTimed(i, batch);
+                    break;
+                } catch (RuntimeException e) {
+                    if (attempt >= properties.getMaxRetries() || !running) {
+                        int lost = batch.size() > 1 ? writeOneByOne(i, batch) : batch.size();
+                        if (lost > 0) {
+                            failed.get(i).increment(lost);
+                            log.error("Lost {} audit events for sink {}: {}", lost, sink.getName(), e.getMessage());
+                        }
+                        break;
+                    }
+                    log.warn("Writing audit events to {} failed, retrying: {}", sink.getName(), e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MILLIS << attempt));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Salvages a batch the sink rejected as a whole, in case only some of its events are at fault.
+     * Gives up on the rest once several writes in a row fail, since then the sink itself is failing.
+     *
+     * @return the number of events not written
+     */
+    private int writeOneByOne(int sink, List<AuditEvent> batch) {
+        int lost = 0;
+        int consecutiveFailures = 0;
+        for (int j = 0; j < batch.size(); j++) {
+            if (consecutiveFailures == MAX_CONSECUTIVE_FAILURES) {
+                return lost + batch.size() - j;
+            }
+            try {
+                writeTimed(sink, batch.subList(j, j + 1));
+                consecutiveFailures = 0;
+            } catch (RuntimeException e) {
+                lost++;
+                consecutiveFailures++;
+                log.warn("Audit sink {} rejected a {} event: {}", sinks.get(sink).getName(), batch.get(j).getType(), e.getMessage());
+            }
+        }
+        return lost;
+    }
+    
+    private void writeTimed(int sink, List<AuditEvent> events) {
+        long started = System.nanoTime();
+        sinks.get(sink).write(events);
+        writeTimers.get(sink).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        written.get(sink).increment(events.size());
+    }
+    
+    private static Counter events(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("sirius.audit.events").tag("result", result).register(meterRegistry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.sirius.infra.audit;
+
+import com.sirius.core.event.EventStreams;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "sirius.audit")
+public class AuditProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * Events buffered between request threads and the writer; a power of two.
+     */
+    private int bufferSize = 65_536;
+    
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    
+    /**
+     * How long a request thread waits for room under {@link OverflowPolicy#BLOCK} before the
+     * event is dropped after all.
+     */
+    private Duration maxBlock = Duration.ofMillis(5);
+    
+    /**
+     * Maximum events per write to each sink.
+     */
+    private int batchSize = 1_000;
+    
+    /**
+     * How long the first event of a batch waits for the batch to fill.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+    
+    /**
+     * Attempts per batch and sink after the first, with exponential backoff, before the batch is
+     * counted as failed for that sink.
+     */
+    private int maxRetries = 3;
+    
+    private Database database = new Database();
+    
+    private Stream stream = new Stream();
+    
+    public enum OverflowPolicy {
+        
+        /**
+         * Drop the event and count it, never delaying the caller.
+         */
+        DROP,
+        
+        /**
+         * Wait up to {@code max-block} for room, then drop.
+         */
+        BLOCK
+    }
+    
+    @Data
+    public static class Database {
+        
+        private boolean enabled = true;
+    }
+    
+    @Data
+    public static class Stream {
+        
+        private boolean enabled = true;
+        
+        private String name = EventStreams.SECURITY_AUDIT;
+        
+        /**
+         * Approximate number of entries the stream is trimmed to; the database keeps the full trail.
+         */
+        private long maxLength = 1_000_000;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sirius.infra.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Broadcasts L1 invalidations over Redis pub/sub so that a put or evict on one node drops the
+ * stale in-heap copy everywhere else. Messages from this node are ignored on receipt.
+ */
+@Slf4j
+public class CacheInvalidationBus {
+    
+    static final String CHANNEL = "sirius:cache:invalidation";
+    private static final char SEPARATOR = '\n';
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(CHANNEL));
+    }
+    
+    void register(TwoTierCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+    
+    void publishEvict(String cacheName, String key) {
+        publish(nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+    
+    void publishClear(String cacheName) {
+        publish(nodeId + SEPARATOR + cacheName);
+    }
+    
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (DataAccessException e) {
+            // L1 TTL bounds the staleness on other nodes if a notification is lost
+            log.warn("Failed to publish cache invalidation: {}", e.getMessage());
+        }
+    }
+    
+    private void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR), 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts.length == 3) {
+            cache.invalidateLocal(parts[2]);
+        } else {
+            cache.clearLocal();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.sirius.infra.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Makes sure a missing or expiring cache entry is computed once, not once per caller.
+ * <p>
+ * Within a JVM, concurrent loads of the same key share one in-flight future. Across the cluster, the
+ * loading node holds a short Redis lease; other nodes poll the cache for its result until the lease
+ * runs out and only then load themselves, so a crashed holder delays callers by at most one lease.
+ * Background refreshes run on a small bounded pool and are dropped, not queued, when it is busy.
+ */
+@Slf4j
+public class CacheLoadCoordinator implements DisposableBean {
+    
+    static final String LEASE_PREFIX = "sirius:cache:lease:";
+    
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+    private static final long MIN_POLL_MILLIS = 10;
+    private static final long MAX_POLL_MILLIS = 200;
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong leaseSequence = new AtomicLong();
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    
+    public CacheLoadCoordinator(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                                int refreshThreads, int refreshQueueCapacity) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(refreshQueueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * Loads a missing entry. The loader is expected to write its result to the cache before
+     * returning, so that callers waiting on another node's lease find it.
+     *
+     * @param lookup re-reads the shared cache while waiting for another node's lease
+     */
+    @Nullable
+    Object load(String cacheName, String key, Duration leaseTtl, Callable<Object> loader, Supplier<Object> lookup)
+            throws Exception {
+        String flightKey = cacheName + '\n' + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            counter("sirius.cache.load.coalesced", cacheName).increment();
+            Object shared = await(existing);
+            // a skipped background refresh completes with null; load directly rather than wait again
+            return shared != null ? shared : loader.call();
+        }
+        try {
+            Object value = loadUnderLease(cacheName, key, leaseTtl, loader, lookup);
+            flight.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+    
+    /**
+     * Recomputes an entry in the background unless this JVM is already loading it or another node
+     * holds its lease. Returns immediately; callers keep serving what they already have.
+     */
+    void refreshAsync(String cacheName, String key, Duration leaseTtl, Callable<Object> loader) {
+        String flightKey = cacheName + '\n' + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(flightKey, flight) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    String token = tryAcquire(cacheName, key, leaseTtl);
+                    if (token == null) {
+                        flight.complete(null);
+                        return;
+                    }
+                    try {
+                        flight.complete(loader.call());
+                    } finally {
+                        release(cacheName, key, token);
+                    }
+                } catch (Exception | Error e) {
+                    log.warn("Background refresh of {}::{} failed: {}", cacheName, key, e.getMessage());
+                    flight.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(flightKey, flight);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(flightKey, flight);
+            flight.complete(null);
+            counter("sirius.cache.refresh.rejected", cacheName).increment();
+        }
+    }
+    
+    private Object loadUnderLease(String cacheName, String key, Duration leaseTtl, Callable<Object> loader,
+                                  Supplier<Object> lookup) throws Exception {
+        String token = tryAcquire(cacheName, key, leaseTtl);
+        if (token != null) {
+            try {
+                return loader.call();
+            } finally {
+                release(cacheName, key, token);
+            }
+        }
+        long deadline = System.nanoTime() + leaseTtl.toNanos();
+        long pollMillis = MIN_POLL_MILLIS;
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(pollMillis);
+            Object value = lookup.get();
+            if (value != null) {
+                lease(cacheName, "waited").increment();
+                return value;
+            }
+            pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+        }
+        lease(cacheName, "timeout").increment();
+        return loader.call();
+    }
+    
+    /**
+     * @return the lease token, or {@code null} if another node holds the lease. If Redis is
+     * unreachable the caller proceeds as if it held the lease, since the load is needed either way.
+     */
+    @Nullable
+    private String tryAcquire(String cacheName, String key, Duration leaseTtl) {
+        String token = nodeId + ':' + leaseSequence.incrementAndGet();
+        if (leaseTtl.isZero() || leaseTtl.isNegative()) {
+            return token;
+        }
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey(cacheName, key), token, leaseTtl);
+            if (!Boolean.TRUE.equals(acquired)) {
+                lease(cacheName, "contended").increment();
+                return null;
+            }
+            lease(cacheName, "acquired").increment();
+        } catch (DataAccessException e) {
+            log.warn("Could not take cache lease for {}::{}: {}", cacheName, key, e.getMessage());
+        }
+        return token;
+    }
+    
+    private void release(String cacheName, String key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey(cacheName, key)), token);
+        } catch (DataAccessException e) {
+            log.debug("Could not release cache lease for {}::{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+    
+    private static String leaseKey(String cacheName, String key) {
+        return LEASE_PREFIX + cacheName + "::" + key;
+    }
+    
+    @Nullable
+    private static Object await(CompletableFuture<Object> flight) throws Exception {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+    
+    private Counter lease(String cacheName, String result) {
+        return Counter.builder("sirius.cache.lease")
+            .tags("cache", cacheName, "result", result)
+            .register(meterRegistry);
+    }
+    
+    private Counter counter(String name, String cacheName) {
+        return Counter.builder(name)
+            .tag("cache", cacheName)
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,44 @@
+package com.sirius.infra.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads Redis expiries by a random fraction of the TTL so entries written together do not all
+ * expire together, and keeps each entry around for an extra stale window in which it may still be
+ * served while a refresh runs.
+ */
+public class JitteredTtlFunction implements RedisCacheWriter.TtlFunction {
+    
+    private final long ttlMillis;
+    private final double jitter;
+    private final long staleMillis;
+    
+    public JitteredTtlFunction(Duration ttl, double jitter, Duration staleWhileRevalidate) {
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("TTL jitter must be in [0, 1): " + jitter);
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.jitter = jitter;
+        this.staleMillis = staleWhileRevalidate.toMillis();
+    }
+    
+    public static RedisCacheWriter.TtlFunction of(NearCacheProperties.Spec spec) {
+        if (spec.getTtlJitter() == 0 && spec.getStaleWhileRevalidate().isZero()) {
+            return RedisCacheWriter.TtlFunction.just(spec.getTtl());
+        }
+        return new JitteredTtlFunction(spec.getTtl(), spec.getTtlJitter(), spec.getStaleWhileRevalidate());
+    }
+    
+    @Override
+    public Duration getTimeToLive(Object key, @Nullable Object value) {
+        if (ttlMillis <= 0) {
+            return NO_EXPIRATION;
+        }
+        double factor = jitter == 0 ? 1.0 : 1.0 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(Math.max(1, (long) (ttlMillis * factor)) + staleMillis);
+    }
+}
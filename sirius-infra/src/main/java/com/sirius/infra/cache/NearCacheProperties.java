@@ -0,0 +1,115 @@
+package com.sirius.infra.cache;
+
+import com.sirius.infra.serialization.SerializerType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-cache settings for the two-tier cache: an in-heap L1 in front of the Redis L2.
+ * Anything not set for a specific cache name falls back to the defaults.
+ */
+@Data
+@ConfigurationProperties(prefix = "sirius.cache")
+public class NearCacheProperties {
+    
+    /**
+     * Defaults applied to every cache; starts out with the built-in values.
+     */
+    private Spec defaults = Spec.builtIn();
+    
+    /**
+     * Overrides keyed by cache name. Only the settings given are overridden, everything else comes
+     * from {@link #defaults}.
+     */
+    private Map<String, Spec> caches = new HashMap<>();
+    
+    public Spec specFor(String cacheName) {
+        Spec override = caches.get(cacheName);
+        if (override == null) {
+            return defaults;
+        }
+        Spec merged = new Spec();
+        merged.setTtl(override.getTtl() != null ? override.getTtl() : defaults.getTtl());
+        merged.setL1Enabled(override.getL1Enabled() != null ? override.getL1Enabled() : defaults.getL1Enabled());
+        merged.setL1MaxSize(override.getL1MaxSize() != null ? override.getL1MaxSize() : defaults.getL1MaxSize());
+        merged.setL1Ttl(override.getL1Ttl() != null ? override.getL1Ttl() : defaults.getL1Ttl());
+        merged.setSerializer(override.getSerializer() != null ? override.getSerializer() : defaults.getSerializer());
+        merged.setTtlJitter(override.getTtlJitter() != null ? override.getTtlJitter() : defaults.getTtlJitter());
+        merged.setStaleWhileRevalidate(override.getStaleWhileRevalidate() != null
+            ? override.getStaleWhileRevalidate() : defaults.getStaleWhileRevalidate());
+        merged.setEarlyRefreshBeta(override.getEarlyRefreshBeta() != null
+            ? override.getEarlyRefreshBeta() : defaults.getEarlyRefreshBeta());
+        merged.setLoadLease(override.getLoadLease() != null ? override.getLoadLease() : defaults.getLoadLease());
+        return merged;
+    }
+    
+    /**
+     * Settings of a cache. Fields left {@code null} are unset; a fresh instance sets nothing, so an
+     * override can tell what it was given.
+     */
+    @Data
+    public static class Spec {
+        
+        /**
+         * Time-to-live of entries in Redis (L2).
+         */
+        private Duration ttl;
+        
+        private Boolean l1Enabled;
+        
+        private Long l1MaxSize;
+        
+        /**
+         * Time-to-live of entries in the in-heap L1. Keep this short: it bounds how stale a
+         * node can be if an invalidation message is lost.
+         */
+        private Duration l1Ttl;
+        
+        /**
+         * Format of values stored in Redis.
+         */
+        private SerializerType serializer;
+        
+        /**
+         * Fraction by which each entry's TTL is randomly shortened or lengthened, so entries written
+         * together do not expire together.
+         */
+        private Double ttlJitter;
+        
+        /**
+         * How long past its TTL an entry is kept and still served while one caller refreshes it.
+         */
+        private Duration staleWhileRevalidate;
+        
+        /**
+         * Eagerness of probabilistic early refresh: the chance of refreshing grows as expiry nears,
+         * scaled by how long the value takes to compute. 1.0 is the usual choice, higher refreshes
+         * earlier, 0 turns it off.
+         */
+        private Double earlyRefreshBeta;
+        
+        /**
+         * How long one node may hold the cluster-wide right to compute a missing entry before
+         * others give up waiting and compute it themselves. Zero disables the lease.
+         */
+        private Duration loadLease;
+        
+        static Spec builtIn() {
+            Spec spec = new Spec();
+            spec.setTtl(Duration.ofHours(1));
+            spec.setL1Enabled(true);
+            spec.setL1MaxSize(10_000L);
+            spec.setL1Ttl(Duration.ofMinutes(1));
+            spec.setSerializer(SerializerType.JSON);
+            spec.setTtlJitter(0.1);
+            spec.setStaleWhileRevalidate(Duration.ofMinutes(1));
+            spec.setEarlyRefreshBeta(1.0);
+            spec.setLoadLease(Duration.ofSeconds(10));
+            return spec;
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.sirius.infra.cache;
 
-import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import com.sirius.infra.serialization.BinaryCodec;
+import com.sirius.infra.serialization.BinaryTypeRegistry;
+import com.sirius.infra.serialization.SerializerType;
+import com.sirius.infra.serialization.SiriusBinaryRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -8,56 +16,101 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(NearCacheProperties.class)
 public class RedisCacheConfig {
     
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory(RedisProperties redisProperties) {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
-        config.setHostName(redisProperties.getHost());
-        config.setPort(redisProperties.getPort());
-        if (redisProperties.getPassword() != null) {
-            config.setPassword(redisProperties.getPassword());
-        }
-        return new LettuceConnectionFactory(config);
+    public BinaryTypeRegistry binaryTypeRegistry(ObjectProvider<BinaryCodec<?>> codecs) {
+        return new BinaryTypeRegistry(codecs.orderedStream().toList());
     }
     
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public SiriusBinaryRedisSerializer siriusBinaryRedisSerializer(
+            BinaryTypeRegistry binaryTypeRegistry,
+            @Value("${sirius.redis.serialization.compression-threshold:1024}") int compressionThreshold) {
+        return new SiriusBinaryRedisSerializer(binaryTypeRegistry, compressionThreshold);
+    }
+    
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(
+            RedisConnectionFactory connectionFactory,
+            SiriusBinaryRedisSerializer binarySerializer,
+            @Value("${sirius.redis.serialization.template:json}") SerializerType serializerType) {
+        RedisSerializer<Object> valueSerializer = valueSerializer(serializerType, binarySerializer);
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(valueSerializer);
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setHashValueSerializer(valueSerializer);
         template.afterPropertiesSet();
         return template;
     }
     
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                                     RedisMessageListenerContainer listenerContainer) {
+        return new CacheInvalidationBus(stringRedisTemplate, listenerContainer);
+    }
+    
+    @Bean
+    public CacheLoadCoordinator cacheLoadCoordinator(StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry,
+                                                     @Value("${sirius.cache.refresh.threads:4}") int refreshThreads,
+                                                     @Value("${sirius.cache.refresh.queue-capacity:1000}") int refreshQueueCapacity) {
+        return new CacheLoadCoordinator(stringRedisTemplate, meterRegistry, refreshThreads, refreshQueueCapacity);
+    }
+    
+    /**
+     * Uses {@code cacheRedisConnectionFactory} when {@code sirius.redis.cache-read-from} is set, so
+     * cache reads can go to replicas; otherwise the primary connection factory.
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     @Qualifier("cacheRedisConnectionFactory") ObjectProvider<RedisConnectionFactory> cacheConnectionFactory,
+                                     NearCacheProperties properties,
+                                     CacheInvalidationBus invalidationBus, CacheLoadCoordinator loadCoordinator,
+                                     MeterRegistry meterRegistry,
+                                     SiriusBinaryRedisSerializer binarySerializer) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-            .entryTtl(Duration.ofHours(1))
+            .entryTtl(JitteredTtlFunction.of(properties.getDefaults()))
             .serializeKeysWith(
                 RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
             )
             .serializeValuesWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer())
+                RedisSerializationContext.SerializationPair.fromSerializer(
+                    valueSerializer(properties.getDefaults().getSerializer(), binarySerializer))
             )
             .disableCachingNullValues();
         
-        return RedisCacheManager.builder(connectionFactory)
-            .cacheDefaults(config)
-            .build();
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        properties.getCaches().keySet().forEach(name -> {
+            NearCacheProperties.Spec spec = properties.specFor(name);
+            perCache.put(name, config
+                .entryTtl(JitteredTtlFunction.of(spec))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                    valueSerializer(spec.getSerializer(), binarySerializer))));
+        });
+        
+        RedisCacheManager redisCacheManager = new TtlAwareRedisCacheManager(
+            cacheConnectionFactory.getIfAvailable(() -> redisConnectionFactory), config, perCache);
+        redisCacheManager.afterPropertiesSet();
+        
+        return new TwoTierCacheManager(redisCacheManager, properties, invalidationBus, loadCoordinator, meterRegistry);
+    }
+    
+    private static RedisSerializer<Object> valueSerializer(SerializerType type, SiriusBinaryRedisSerializer binarySerializer) {
+        return type == SerializerType.BINARY ? binarySerializer : binarySerializer.writingJson();
     }
 }
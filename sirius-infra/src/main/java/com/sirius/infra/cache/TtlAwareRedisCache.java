@@ -0,0 +1,61 @@
+package com.sirius.infra.cache;
+
+import lombok.Value;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * {@link RedisCache} that can also report how long an entry has left to live, which the two-tier
+ * cache needs to decide when to refresh ahead of expiry. GET and PTTL travel in one pipeline.
+ */
+public class TtlAwareRedisCache extends RedisCache {
+    
+    private final RedisConnectionFactory connectionFactory;
+    
+    protected TtlAwareRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfiguration,
+                                 RedisConnectionFactory connectionFactory) {
+        super(name, cacheWriter, cacheConfiguration);
+        this.connectionFactory = connectionFactory;
+    }
+    
+    /**
+     * @return the cached value and its remaining time-to-live, or {@code null} on a miss
+     */
+    @Nullable
+    public TimedValue lookupWithTtl(Object key) {
+        byte[] cacheKey = serializeCacheKey(createCacheKey(key));
+        List<Object> results;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            connection.stringCommands().get(cacheKey);
+            connection.keyCommands().pTtl(cacheKey);
+            results = connection.closePipeline();
+        }
+        if (results.size() < 2 || !(results.get(0) instanceof byte[] bytes)) {
+            return null;
+        }
+        Object value = fromStoreValue(deserializeCacheValue(bytes));
+        if (value == null) {
+            return null;
+        }
+        long ttlMillis = results.get(1) instanceof Long ttl ? ttl : -1L;
+        return new TimedValue(value, ttlMillis);
+    }
+    
+    @Value
+    public static class TimedValue {
+        
+        Object value;
+        
+        /**
+         * Remaining time-to-live in Redis; negative when the entry does not expire.
+         */
+        long ttlMillis;
+    }
+}
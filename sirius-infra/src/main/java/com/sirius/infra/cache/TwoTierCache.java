@@ -0,0 +1,352 @@
+package com.sirius.infra.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Cache} that serves reads from a bounded in-heap L1 and falls back to the Redis-backed L2.
+ * Writes go to both tiers and are broadcast so other nodes drop their L1 copy. Loads through
+ * {@link #get(Object, Callable)} are protected against stampedes.
+ */
+public class TwoTierCache implements Cache {
+    
+    private final String name;
+    private final Cache l2;
+    @Nullable
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheLoadCoordinator loadCoordinator;
+    private final NearCacheProperties.Spec spec;
+    private final long staleMillis;
+    
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Timer loadTimer;
+    private final Timer l2HitLatency;
+    private final Timer l2MissLatency;
+    private final Counter staleRefreshes;
+    private final Counter earlyRefreshes;
+    
+    public TwoTierCache(String name, Cache l2, NearCacheProperties.Spec spec,
+                        CacheInvalidationBus invalidationBus, CacheLoadCoordinator loadCoordinator,
+                        MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l2 = l2;
+        this.l1 = spec.getL1Enabled()
+            ? Caffeine.newBuilder()
+                .maximumSize(spec.getL1MaxSize())
+                .expireAfterWrite(spec.getL1Ttl())
+                .recordStats()
+                .build()
+            : null;
+        this.invalidationBus = invalidationBus;
+        this.loadCoordinator = loadCoordinator;
+        this.spec = spec;
+        this.staleMillis = spec.getStaleWhileRevalidate().toMillis();
+        
+        this.l1Hits = requests(meterRegistry, "l1", "hit");
+        this.l1Misses = requests(meterRegistry, "l1", "miss");
+        this.l2Hits = requests(meterRegistry, "l2", "hit");
+        this.l2Misses = requests(meterRegistry, "l2", "miss");
+        this.loadTimer = Timer.builder("sirius.cache.load")
+            .description("Time spent computing values on a full cache miss")
+            .tag("cache", name)
+            .register(meterRegistry);
+        this.l2HitLatency = l2Latency(meterRegistry, "hit");
+        this.l2MissLatency = l2Latency(meterRegistry, "miss");
+        this.staleRefreshes = refreshes(meterRegistry, "stale");
+        this.earlyRefreshes = refreshes(meterRegistry, "early");
+        Gauge.builder("sirius.cache.hit.ratio", this, c -> ratio(c.l1Hits, c.l1Misses))
+            .tags("cache", name, "tier", "l1")
+            .register(meterRegistry);
+        Gauge.builder("sirius.cache.hit.ratio", this, c -> ratio(c.l2Hits, c.l2Misses))
+            .tags("cache", name, "tier", "l2")
+            .register(meterRegistry);
+        if (l1 != null) {
+            FunctionCounter.builder("sirius.cache.l1.evictions", l1, c -> c.stats().evictionCount())
+                .tag("cache", name)
+                .register(meterRegistry);
+        }
+        invalidationBus.register(this);
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+    
+    /**
+     * Entries inside their stale window count as misses here: without a loader there is no way to
+     * refresh them, so the caller recomputes as it would after a plain expiry.
+     */
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object local = getLocal(localKey);
+        if (local != null) {
+            return new SimpleValueWrapper(local);
+        }
+        TtlAwareRedisCache.TimedValue remote = getRemote(key);
+        if (remote == null || isStale(remote)) {
+            return null;
+        }
+        putLocal(localKey, remote.getValue());
+        return new SimpleValueWrapper(remote.getValue());
+    }
+    
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+    
+    /**
+     * Backs {@code @Cacheable(sync = true)}. A miss is loaded once per cluster (see
+     * {@link CacheLoadCoordinator}); a stale hit, or a fresh one that wins the early-refresh draw, is
+     * returned as is while the loader runs in the background. Background loads run on a cache
+     * thread, so loaders must not rely on request-scoped thread locals.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object local = getLocal(localKey);
+        if (local != null) {
+            return (T) local;
+        }
+        TtlAwareRedisCache.TimedValue remote = getRemote(key);
+        if (remote != null) {
+            putLocal(localKey, remote.getValue());
+            refreshIfDue(key, localKey, remote, valueLoader);
+            return (T) remote.getValue();
+        }
+        try {
+            return (T) loadCoordinator.load(name, localKey, spec.getLoadLease(),
+                () -> loadAndPut(key, valueLoader), () -> peekRemote(key));
+        } catch (ValueRetrievalException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+    
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        l2.put(key, value);
+        String localKey = localKey(key);
+        putLocal(localKey, value);
+        invalidationBus.publishEvict(name, localKey);
+    }
+    
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        if (existing == null) {
+            putLocal(localKey, value);
+            invalidationBus.publishEvict(name, localKey);
+        } else if (existing.get() != null) {
+            putLocal(localKey, existing.get());
+        }
+        return existing;
+    }
+    
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        String localKey = localKey(key);
+        invalidateLocal(localKey);
+        invalidationBus.publishEvict(name, localKey);
+    }
+    
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = l2.evictIfPresent(key);
+        String localKey = localKey(key);
+        invalidateLocal(localKey);
+        invalidationBus.publishEvict(name, localKey);
+        return present;
+    }
+    
+    @Override
+    public void clear() {
+        l2.clear();
+        clearLocal();
+        invalidationBus.publishClear(name);
+    }
+    
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = l2.invalidate();
+        clearLocal();
+        invalidationBus.publishClear(name);
+        return invalidated;
+    }
+    
+    void invalidateLocal(String localKey) {
+        if (l1 != null) {
+            l1.invalidate(localKey);
+        }
+    }
+    
+    void clearLocal() {
+        if (l1 != null) {
+            l1.invalidateAll();
+        }
+    }
+    
+    /**
+     * XFetch: refresh with a probability that rises as expiry nears, weighted by how long a load
+     * takes, so one caller usually recomputes the entry shortly before it goes stale. Until this
+     * node has timed a load of its own, only stale entries are refreshed.
+     */
+    private void refreshIfDue(Object key, String localKey, TtlAwareRedisCache.TimedValue remote,
+                              Callable<?> valueLoader) {
+        if (remote.getTtlMillis() < 0) {
+            return;
+        }
+        long freshMillis = remote.getTtlMillis() - staleMillis;
+        Counter trigger;
+        if (freshMillis <= 0) {
+            trigger = staleRefreshes;
+        } else if (spec.getEarlyRefreshBeta() > 0 && freshMillis <= -loadTimer.mean(TimeUnit.MILLISECONDS)
+                * spec.getEarlyRefreshBeta() * Math.log(1.0 - ThreadLocalRandom.current().nextDouble())) {
+            trigger = earlyRefreshes;
+        } else {
+            return;
+        }
+        trigger.increment();
+        loadCoordinator.refreshAsync(name, localKey, spec.getLoadLease(), () -> loadAndPut(key, valueLoader));
+    }
+    
+    private boolean isStale(TtlAwareRedisCache.TimedValue remote) {
+        return staleMillis > 0 && remote.getTtlMillis() >= 0 && remote.getTtlMillis() <= staleMillis;
+    }
+    
+    @Nullable
+    private Object loadAndPut(Object key, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = loadTimer.recordCallable(valueLoader);
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+    
+    @Nullable
+    private TtlAwareRedisCache.TimedValue getRemote(Object key) {
+        long started = System.nanoTime();
+        TtlAwareRedisCache.TimedValue remote;
+        if (l2 instanceof TtlAwareRedisCache timed) {
+            remote = timed.lookupWithTtl(key);
+        } else {
+            ValueWrapper wrapper = l2.get(key);
+            remote = wrapper != null && wrapper.get() != null
+                ? new TtlAwareRedisCache.TimedValue(wrapper.get(), -1)
+                : null;
+        }
+        if (remote != null) {
+            l2HitLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            l2Hits.increment();
+        } else {
+            l2MissLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            l2Misses.increment();
+        }
+        return remote;
+    }
+    
+    @Nullable
+    private Object peekRemote(Object key) {
+        ValueWrapper wrapper = l2.get(key);
+        return wrapper != null ? wrapper.get() : null;
+    }
+    
+    @Nullable
+    private Object getLocal(String localKey) {
+        if (l1 == null) {
+            return null;
+        }
+        Object value = l1.getIfPresent(localKey);
+        if (value != null) {
+            l1Hits.increment();
+        } else {
+            l1Misses.increment();
+        }
+        return value;
+    }
+    
+    private void putLocal(String localKey, @Nullable Object value) {
+        if (l1 == null) {
+            return;
+        }
+        if (value != null) {
+            l1.put(localKey, value);
+        } else {
+            l1.invalidate(localKey);
+        }
+    }
+    
+    /**
+     * L1 entries are keyed by the string form of the cache key, which is also what travels in
+     * invalidation messages between nodes.
+     */
+    private static String localKey(Object key) {
+        return key instanceof String s ? s : String.valueOf(key);
+    }
+    
+    private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("sirius.cache.requests")
+            .tags("cache", name, "tier", tier, "result", result)
+            .register(meterRegistry);
+    }
+    
+    private Timer l2Latency(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("sirius.cache.l2.latency")
+            .description("Round trip of a Redis cache lookup")
+            .tags("cache", name, "result", result)
+            .register(meterRegistry);
+    }
+    
+    private Counter refreshes(MeterRegistry meterRegistry, String trigger) {
+        return Counter.builder("sirius.cache.refresh")
+            .description("Cache hits that triggered a background refresh")
+            .tags("cache", name, "trigger", trigger)
+            .register(meterRegistry);
+    }
+    
+    private static double ratio(Counter hits, Counter misses) {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+}
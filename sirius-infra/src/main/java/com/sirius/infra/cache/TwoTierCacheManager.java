@@ -0,0 +1,52 @@
+package com.sirius.infra.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CacheManager} that layers a {@link TwoTierCache} over each cache of the Redis cache manager
+ */
+public class TwoTierCacheManager implements CacheManager {
+    
+    private final CacheManager redisCacheManager;
+    private final NearCacheProperties properties;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheLoadCoordinator loadCoordinator;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    
+    public TwoTierCacheManager(CacheManager redisCacheManager, NearCacheProperties properties,
+                               CacheInvalidationBus invalidationBus, CacheLoadCoordinator loadCoordinator,
+                               MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.properties = properties;
+        this.invalidationBus = invalidationBus;
+        this.loadCoordinator = loadCoordinator;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache l2 = redisCacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName ->
+            new TwoTierCache(cacheName, l2, properties.specFor(cacheName), invalidationBus, loadCoordinator,
+                meterRegistry));
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+}
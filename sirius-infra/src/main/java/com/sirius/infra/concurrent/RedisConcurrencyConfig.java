@@ -0,0 +1,91 @@
+package com.sirius.infra.concurrent;
+
+import com.sirius.core.concurrent.ConcurrencyLimiter;
+import com.sirius.core.concurrent.ConcurrencyLimiterMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Puts a {@link ConcurrencyLimiter} in front of the Redis connection factory. A permit is held
+ * from {@code getConnection} until the connection is closed, or until it turns into a pub/sub
+ * subscription, which holds its connection for the lifetime of the application and must not
+ * count against the limit.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sirius.concurrency.redis", name = "max-concurrent")
+public class RedisConcurrencyConfig {
+    
+    private static final Set<String> CONNECTION_METHODS = Set.of("getConnection", "getClusterConnection", "getSentinelConnection");
+    private static final Set<String> RELEASING_METHODS = Set.of("close", "subscribe", "pSubscribe");
+    
+    @Bean
+    public static BeanPostProcessor redisConcurrencyLimiter(Environment environment,
+                                                            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof RedisConnectionFactory)) {
+                    return bean;
+                }
+                int maxConcurrent = environment.getRequiredProperty("sirius.concurrency.redis.max-concurrent", Integer.class);
+                Duration timeout = environment.getProperty("sirius.concurrency.redis.acquire-timeout",
+                    Duration.class, Duration.ofSeconds(2));
+                ConcurrencyLimiter limiter = new ConcurrencyLimiter(resource(beanName) + " connections", maxConcurrent, timeout);
+                meterRegistry.ifAvailable(registry -> ConcurrencyLimiterMetrics.bind(limiter, resource(beanName), registry));
+                return limitedFactory(bean, limiter);
+            }
+        };
+    }
+    
+    /**
+     * Each connection factory gets its own limiter, tagged {@code redis} for the primary one
+     */
+    private static String resource(String beanName) {
+        return "redisConnectionFactory".equals(beanName) ? "redis" : "redis-" + beanName;
+    }
+    
+    private static Object limitedFactory(Object factory, ConcurrencyLimiter limiter) {
+        ProxyFactory proxyFactory = new ProxyFactory(factory);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            if (!CONNECTION_METHODS.contains(invocation.getMethod().getName())) {
+                return invocation.proceed();
+            }
+            limiter.acquire();
+            try {
+                return limitedConnection(invocation.proceed(), limiter);
+            } catch (Throwable e) {
+                limiter.release();
+                throw e;
+            }
+        });
+        return proxyFactory.getProxy();
+    }
+    
+    private static Object limitedConnection(Object connection, ConcurrencyLimiter limiter) {
+        AtomicBoolean released = new AtomicBoolean();
+        ProxyFactory proxyFactory = new ProxyFactory(connection);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            if (RELEASING_METHODS.contains(invocation.getMethod().getName()) && released.compareAndSet(false, true)) {
+                try {
+                    return invocation.proceed();
+                } finally {
+                    limiter.release();
+                }
+            }
+            return invocation.proceed();
+        });
+        return proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,97 @@
+package com.sirius.infra.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier, typically while blocking inside a
+ * {@code synchronized} block in the JDBC driver, Hikari or Lettuce. Listens to the JFR
+ * {@code jdk.VirtualThreadPinned} event in-process, counts occurrences per component and logs
+ * the frame that pinned. Only active with {@code spring.threads.virtual.enabled=true} on Java 21+.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream recording;
+    
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${sirius.concurrency.pinning-threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+    
+    @Override
+    public synchronized void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("Virtual threads requested but running on Java {}; pinning monitor disabled",
+                Runtime.version().feature());
+            return;
+        }
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+    }
+    
+    @Override
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+    
+    @Override
+    public synchronized boolean isRunning() {
+        return recording != null;
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        String component = "other";
+        String culprit = "unknown";
+        if (event.getStackTrace() != null) {
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                String type = frame.getMethod().getType().getName();
+                String frameComponent = componentOf(type);
+                if (frameComponent != null) {
+                    component = frameComponent;
+                    culprit = type + "." + frame.getMethod().getName();
+                    break;
+                }
+            }
+        }
+        Counter.builder("sirius.threads.pinned")
+            .description("Virtual threads pinned to their carrier longer than the threshold")
+            .tag("component", component)
+            .register(meterRegistry)
+            .increment();
+        log.warn("Virtual thread pinned for {} ms in {} ({})",
+            event.getDuration().toMillis(), culprit, component);
+    }
+    
+    private static String componentOf(String type) {
+        if (type.startsWith("org.postgresql.") || type.startsWith("com.zaxxer.hikari.")) {
+            return "jdbc";
+        }
+        if (type.startsWith("io.lettuce.") || type.startsWith("org.springframework.data.redis.")) {
+            return "redis";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.sirius.infra.fx;
+
+import com.sirius.core.event.EventStreams;
+import com.sirius.core.event.StreamIds;
+import com.sirius.core.fx.FxRateService;
+import com.sirius.infra.stream.StreamTailer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Locale;
+
+/**
+ * Per-node FX rates fed from {@link EventStreams#FX_RATES}.
+ */
+@Configuration
+@EnableConfigurationProperties(FxRateProperties.class)
+@ConditionalOnProperty(prefix = "sirius.fx", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FxRateConfig {
+    
+    @Bean
+    public FxRateService fxRateService(FxRateProperties properties) {
+        return new FxRateService(properties.getBaseCurrency().toUpperCase(Locale.ROOT), properties.getHistoryLimit());
+    }
+    
+    @Bean
+    public FxRateFeed fxRateFeed(FxRateService fxRateService, MeterRegistry meterRegistry) {
+        return new FxRateFeed(fxRateService, meterRegistry);
+    }
+    
+    @Bean
+    public StreamTailer fxRateTailer(StringRedisTemplate redisTemplate, FxRateFeed fxRateFeed,
+                                     FxRateProperties properties, MeterRegistry meterRegistry) {
+        return new StreamTailer(redisTemplate, EventStreams.FX_RATES, () -> StreamIds.BEGINNING,
+            fxRateFeed::handle, properties.getBatchSize(), properties.getBlockTimeout(), meterRegistry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.sirius.infra.fx;
+
+import com.sirius.core.event.FxRateEvent;
+import com.sirius.core.event.StreamIds;
+import com.sirius.core.fx.FxRateService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.connection.stream.MapRecord;
+
+import java.util.Map;
+
+/**
+ * Applies quotes from the FX rate stream to the {@link FxRateService}. The stream is read from the
+ * beginning on every start, which rebuilds the history as well as the current rates.
+ */
+public class FxRateFeed {
+    
+    private final FxRateService fxRateService;
+    
+    public FxRateFeed(FxRateService fxRateService, MeterRegistry meterRegistry) {
+        this.fxRateService = fxRateService;
+        Gauge.builder("sirius.fx.currencies", fxRateService, service -> service.current().size())
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Called by the stream tailer for every quote, in stream order.
+     */
+    public void handle(MapRecord<String, String, String> record) {
+        Map<String, String> fields = record.getValue();
+        String streamId = record.getId().getValue();
+        String currency = fields.get(FxRateEvent.CURRENCY);
+        String rate = fields.get(FxRateEvent.RATE);
+        if (currency == null || rate == null) {
+            throw new IllegalArgumentException("FX rate without currency or rate");
+        }
+        String validFrom = fields.get(FxRateEvent.VALID_FROM);
+        fxRateService.apply(currency, Double.parseDouble(rate),
+            validFrom != null ? Long.parseLong(validFrom) : StreamIds.millis(streamId), streamId);
+    }
+}
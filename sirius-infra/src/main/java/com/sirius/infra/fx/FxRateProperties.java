@@ -0,0 +1,30 @@
+package com.sirius.infra.fx;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "sirius.fx")
+public class FxRateProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * Currency that rates on the stream are quoted against.
+     */
+    private String baseCurrency = "USD";
+    
+    /**
+     * Quotes kept per currency for as-of queries.
+     */
+    private int historyLimit = 100_000;
+    
+    /**
+     * Maximum number of entries fetched by a single XREAD.
+     */
+    private int batchSize = 1000;
+    
+    private Duration blockTimeout = Duration.ofMillis(100);
+}
@@ -0,0 +1,25 @@
+package com.sirius.infra.job;
+
+import com.sirius.core.job.ShardedJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Runs every {@link ShardedJob} bean on the cluster-wide {@link JobScheduler}.
+ */
+@Configuration
+@EnableConfigurationProperties(JobProperties.class)
+@ConditionalOnProperty(prefix = "sirius.jobs", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JobConfig {
+    
+    @Bean
+    public JobScheduler jobScheduler(StringRedisTemplate redisTemplate, ObjectProvider<ShardedJob> jobs,
+                                     JobProperties properties, MeterRegistry meterRegistry) {
+        return new JobScheduler(redisTemplate, jobs.orderedStream().toList(), properties, meterRegistry);
+    }
+}
@@ -0,0 +1,51 @@
+package com.sirius.infra.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "sirius.jobs")
+public class JobProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * How long the leader lease and shard leases last without renewal. A failed node's shards
+     * are taken over after this long.
+     */
+    private Duration leaseTtl = Duration.ofSeconds(30);
+    
+    /**
+     * How often a node renews its leases, starts due runs if it is the leader, and looks for
+     * shards to claim.
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+    
+    /**
+     * Shards a node runs at once; 0 for one per available core.
+     */
+    private int concurrency;
+    
+    /**
+     * Run shards on virtual threads (Java 21+) instead of a fork-join pool, for jobs that mostly
+     * wait on the database.
+     */
+    private boolean virtualThreads;
+    
+    /**
+     * Attempts per shard before it is marked failed.
+     */
+    private int maxAttempts = 3;
+    
+    /**
+     * How long a failed shard waits before any node retries it.
+     */
+    private Duration retryDelay = Duration.ofSeconds(10);
+    
+    /**
+     * How long the state of a finished run is kept in Redis.
+     */
+    private Duration runRetention = Duration.ofDays(7);
+}
@@ -0,0 +1,581 @@
+package com.sirius.infra.job;
+
+import com.sirius.core.job.JobRun;
+import com.sirius.core.job.ShardProgress;
+import com.sirius.core.job.ShardedJob;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link ShardedJob}s across the cluster, coordinated through Redis leases.
+ * <p>
+ * One node holds the leader lease. It starts a run whenever a job's schedule fires, asks the job
+ * to plan its shards and, once no shard is pending, records the outcome of the run. Every node,
+ * the leader included, claims pending shards of active runs with a lease per shard, up to its
+ * concurrency, and runs them on a fork-join pool or on virtual threads. A node that dies stops
+ * renewing its leases; another node then takes over its shards and resumes them from their last
+ * checkpoint. Checkpoints and shard completion only count while the lease is still held, so an
+ * attempt that lost its shard cannot overwrite the progress of the one that took it over.
+ * <p>
+ * Runs missed while no node was up are skipped, except the most recent one. State is kept in
+ * Redis under {@code sirius:jobs:}:
+ * <ul>
+ *   <li>{@code leader} - the leader lease</li>
+ *   <li>{@code next:<job>} - next fire time of the job, in epoch millis</li>
+ *   <li>{@code runs} - set of active run ids</li>
+ *   <li>{@code {<id>}} - the run: job, scheduled and start time, shard count, state</li>
+ *   <li>{@code {<id>}:shards}, {@code :checkpoints}, {@code :attempts} - per shard</li>
+ *   <li>{@code {<id>}:lease:<shard>} - the shard lease</li>
+ * </ul>
+ * The keys of a run share the run id as hash tag, so the scripts that update them run within one
+ * slot on Redis Cluster.
+ */
+@Slf4j
+public class JobScheduler implements SmartLifecycle {
+    
+    private static final String PREFIX = "sirius:jobs:";
+    private static final String LEADER_KEY = PREFIX + "leader";
+    private static final String ACTIVE_RUNS_KEY = PREFIX + "runs";
+    
+    private static final String RUNNING = "RUNNING";
+    private static final String SUCCEEDED = "SUCCEEDED";
+    private static final String PENDING = "PENDING";
+    private static final String FAILED = "FAILED";
+    
+    /**
+     * KEYS: run, shards. ARGV: job, run id, scheduled at, started at, shards...
+     * Returns 1 if the run was started, 0 if it already existed.
+     */
+    private static final RedisScript<Long> START_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('hexists', KEYS[1], 'state') == 1 then return 0 end
+        for i = 5, #ARGV do redis.call('hset', KEYS[2], ARGV[i], 'PENDING') end
+        redis.call('hset', KEYS[1], 'job', ARGV[1], 'scheduledAt', ARGV[3], 'startedAt', ARGV[4],
+            'shards', #ARGV - 4, 'state', 'RUNNING')
+        return 1
+        """, Long.class);
+    
+    /**
+     * KEYS: lease, checkpoints. ARGV: token, lease ttl, shard, position.
+     */
+    private static final RedisScript<Long> CHECKPOINT_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end
+        redis.call('pexpire', KEYS[1], ARGV[2])
+        redis.call('hset', KEYS[2], ARGV[3], ARGV[4])
+        return 1
+        """, Long.class);
+    
+    /**
+     * KEYS: lease, shards, attempts. ARGV: token, shard, 1 if succeeded, max attempts, retry delay.
+     * Returns -1 if the lease was lost, otherwise the failed attempts so far. A shard to be retried
+     * keeps its lease key for the retry delay, so no node claims it before.
+     */
+    private static final RedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('get', KEYS[1]) ~= ARGV[1] then return -1 end
+        if ARGV[3] == '1' then
+            redis.call('del', KEYS[1])
+            redis.call('hset', KEYS[2], ARGV[2], 'DONE')
+            return 0
+        end
+        local attempts = redis.call('hincrby', KEYS[3], ARGV[2], 1)
+        if attempts >= tonumber(ARGV[4]) then
+            redis.call('del', KEYS[1])
+            redis.call('hset', KEYS[2], ARGV[2], 'FAILED')
+        else
+            redis.call('set', KEYS[1], 'retry', 'PX', ARGV[5])
+        end
+        return attempts
+        """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final HashOperations<String, String, String> hashOps;
+    private final RedisLeases leases;
+    private final Map<String, ShardedJob> jobs = new LinkedHashMap<>();
+    private final Map<String, CronExpression> schedules = new ConcurrentHashMap<>();
+    private final JobProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final int concurrency;
+    
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + ':'
+        + UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong claims = new AtomicLong();
+    private final Map<String, RunningShard> runningShards = new ConcurrentHashMap<>();
+    
+    private volatile boolean running;
+    private volatile boolean leader;
+    private ScheduledExecutorService ticker;
+    private Executor workers;
+    
+    public JobScheduler(StringRedisTemplate redisTemplate, List<ShardedJob> jobs, JobProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.hashOps = redisTemplate.opsForHash();
+        this.leases = new RedisLeases(redisTemplate);
+        for (ShardedJob job : jobs) {
+            if (this.jobs.put(job.getName(), job) != null) {
+                throw new IllegalStateException("Duplicate job name: " + job.getName());
+            }
+            schedules.put(job.getName(), CronExpression.parse(job.getSchedule()));
+        }
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = properties.getConcurrency() > 0
+            ? properties.getConcurrency() : Runtime.getRuntime().availableProcessors();
+        Gauge.builder("sirius.jobs.leader", this, scheduler -> scheduler.leader ? 1 : 0)
+            .description("Whether this node is the job scheduler leader")
+            .register(meterRegistry);
+        Gauge.builder("sirius.jobs.shards.running", runningShards, Map::size)
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isEnabled();
+    }
+    
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        workers = properties.isVirtualThreads() ? new VirtualThreadTaskExecutor("job-worker-") : forkJoinPool();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tickSafely, 0, properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Job scheduler started as {} with jobs {} and {} shard slots", nodeId, jobs.keySet(), concurrency);
+    }
+    
+    /**
+     * Stops claiming shards and cancels running ones at their next checkpoint. Shards still
+     * running after the lease TTL are released for other nodes to resume.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(properties.getLeaseTtl().toMillis(), TimeUnit.MILLISECONDS);
+            runningShards.values().forEach(shard -> shard.cancelled = true);
+            long deadline = System.currentTimeMillis() + properties.getLeaseTtl().toMillis();
+            while (!runningShards.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        runningShards.values().forEach(shard -> leases.release(shard.leaseKey, shard.token));
+        if (workers instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+        if (leader) {
+            leases.release(LEADER_KEY, nodeId);
+            leader = false;
+        }
+        log.info("Job scheduler stopped");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Stop before the Redis connection factory and data sources, so running shards can still
+     * checkpoint.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 2048;
+    }
+    
+    /**
+     * Whether this node currently holds the leader lease. Other periodic tasks that must run on
+     * one node only can check it.
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+    
+    /**
+     * Starts a run outside the schedule, e.g. to rerun an end-of-day job for a past date. A
+     * finished run for the same time is replaced.
+     *
+     * @throws IllegalArgumentException if the job is unknown
+     * @throws IllegalStateException    if a run for that time is still active
+     */
+    public JobRun trigger(String jobName, ZonedDateTime scheduledAt) {
+        ShardedJob job = jobs.get(jobName);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown job: " + jobName);
+        }
+        ZonedDateTime at = scheduledAt.withZoneSameInstant(job.getZone());
+        String runId = runId(job, at);
+        if (RUNNING.equals(hashOps.get(runKey(runId), "state"))) {
+            throw new IllegalStateException("Run " + runId + " is still active");
+        }
+        redisTemplate.delete(List.of(runKey(runId), shardsKey(runId), checkpointsKey(runId), attemptsKey(runId)));
+        return startRun(job, at);
+    }
+    
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // Not knowing whether the lease was renewed, assume the worst
+            leader = false;
+            log.warn("Job scheduler tick failed: {}", e.getMessage());
+        }
+    }
+    
+    private void tick() {
+        renewShardLeases();
+        boolean wasLeader = leader;
+        leader = wasLeader
+            ? leases.renew(LEADER_KEY, nodeId, properties.getLeaseTtl())
+            : leases.acquire(LEADER_KEY, nodeId, properties.getLeaseTtl());
+        if (leader != wasLeader) {
+            log.info(leader ? "Became job scheduler leader" : "Lost job scheduler leadership");
+        }
+        if (leader) {
+            startDueRuns();
+            finishRuns();
+        }
+        claimShards();
+    }
+    
+    private void renewShardLeases() {
+        for (RunningShard shard : runningShards.values()) {
+            if (!shard.cancelled && !leases.renew(shard.leaseKey, shard.token, properties.getLeaseTtl())
+                    && !shard.finishing) {
+                shard.cancelled = true;
+                log.warn("Lost lease on shard {} of {}, cancelling", shard.shard, shard.run.getId());
+            }
+        }
+    }
+    
+    private void startDueRuns() {
+        for (ShardedJob job : jobs.values()) {
+            try {
+                startIfDue(job);
+            } catch (RuntimeException e) {
+                log.warn("Could not start run of {}, will retry: {}", job.getName(), e.getMessage());
+            }
+        }
+    }
+    
+    private void startIfDue(ShardedJob job) {
+        CronExpression schedule = schedules.get(job.getName());
+        ZonedDateTime now = ZonedDateTime.now(job.getZone());
+        String nextKey = PREFIX + "next:" + job.getName();
+        String stored = redisTemplate.opsForValue().get(nextKey);
+        if (stored == null) {
+            setNext(nextKey, schedule.next(now));
+            return;
+        }
+        ZonedDateTime due = Instant.ofEpochMilli(Long.parseLong(stored)).atZone(job.getZone());
+        if (due.isAfter(now)) {
+            return;
+        }
+        int missed = 0;
+        for (ZonedDateTime later = schedule.next(due); later != null && !later.isAfter(now); later = schedule.next(due)) {
+            due = later;
+            missed++;
+        }
+        if (missed > 0) {
+            log.warn("Skipping {} missed runs of {}", missed, job.getName());
+        }
+        String state = hashOps.get(runKey(runId(job, due)), "state");
+        if (state == null) {
+            startRun(job, due);
+        } else if (RUNNING.equals(state)) {
+            // A leader that died right after starting the run may not have registered it
+            redisTemplate.opsForSet().add(ACTIVE_RUNS_KEY, runId(job, due));
+        }
+        setNext(nextKey, schedule.next(due));
+    }
+    
+    private void setNext(String nextKey, @Nullable ZonedDateTime next) {
+        if (next != null) {
+            redisTemplate.opsForValue().set(nextKey, String.valueOf(next.toInstant().toEpochMilli()));
+        } else {
+            redisTemplate.delete(nextKey);
+        }
+    }
+    
+    private JobRun startRun(ShardedJob job, ZonedDateTime scheduledAt) {
+        JobRun run = new JobRun(runId(job, scheduledAt), job.getName(), scheduledAt);
+        List<String> shards = job.plan(run);
+        List<String> args = new ArrayList<>(shards.size() + 4);
+        args.add(job.getName());
+        args.add(run.getId());
+        args.add(String.valueOf(scheduledAt.toInstant().toEpochMilli()));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.addAll(shards);
+        Long started = redisTemplate.execute(START_SCRIPT,
+            List.of(runKey(run.getId()), shardsKey(run.getId())), args.toArray());
+        if (started != null && started == 1) {
+            redisTemplate.opsForSet().add(ACTIVE_RUNS_KEY, run.getId());
+            log.info("Started run {} with {} shards", run.getId(), shards.size());
+        }
+        return run;
+    }
+    
+    private void finishRuns() {
+        Set<String> active = redisTemplate.opsForSet().members(ACTIVE_RUNS_KEY);
+        if (active == null) {
+            return;
+        }
+        for (String runId : active) {
+            if (!RUNNING.equals(hashOps.get(runKey(runId), "state"))) {
+                // Finished already, or left behind by a version that kept the run under other keys
+                redisTemplate.opsForSet().remove(ACTIVE_RUNS_KEY, runId);
+                continue;
+            }
+            Map<String, String> shards = hashOps.entries(shardsKey(runId));
+            if (shards.containsValue(PENDING)) {
+                continue;
+            }
+            long failed = shards.values().stream().filter(FAILED::equals).count();
+            String state = failed > 0 ? FAILED : SUCCEEDED;
+            long finishedAt = System.currentTimeMillis();
+            hashOps.putAll(runKey(runId), Map.of("state", state, "finishedAt", String.valueOf(finishedAt)));
+            redisTemplate.opsForSet().remove(ACTIVE_RUNS_KEY, runId);
+            for (String key : List.of(runKey(runId), shardsKey(runId), checkpointsKey(runId), attemptsKey(runId))) {
+                redisTemplate.expire(key, properties.getRunRetention());
+            }
+            
+            String job = hashOps.get(runKey(runId), "job");
+            String startedAt = hashOps.get(runKey(runId), "startedAt");
+            Duration took = Duration.ofMillis(startedAt != null ? finishedAt - Long.parseLong(startedAt) : 0);
+            Timer.builder("sirius.jobs.run")
+                .tags("job", String.valueOf(job), "outcome", state.toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .record(took);
+            if (failed > 0) {
+                log.error("Run {} failed: {} of {} shards failed after {} attempts", runId, failed, shards.size(),
+                    properties.getMaxAttempts());
+            } else {
+                log.info("Run {} succeeded: {} shards in {} ms", runId, shards.size(), took.toMillis());
+            }
+        }
+    }
+    
+    private void claimShards() {
+        int free = concurrency - runningShards.size();
+        Set<String> active = free > 0 && running ? redisTemplate.opsForSet().members(ACTIVE_RUNS_KEY) : null;
+        if (active == null) {
+            return;
+        }
+        for (String runId : active) {
+            Map<String, String> info = hashOps.entries(runKey(runId));
+            ShardedJob job = jobs.get(info.get("job"));
+            if (job == null || !RUNNING.equals(info.get("state"))) {
+                continue;
+            }
+            JobRun run = new JobRun(runId, job.getName(),
+                Instant.ofEpochMilli(Long.parseLong(info.get("scheduledAt"))).atZone(job.getZone()));
+            List<String> pending = new ArrayList<>();
+            hashOps.entries(shardsKey(runId)).forEach((shard, state) -> {
+                if (PENDING.equals(state) && !runningShards.containsKey(runId + '/' + shard)) {
+                    pending.add(shard);
+                }
+            });
+            // Nodes that poll at the same time would otherwise all race for the same shards
+            Collections.shuffle(pending);
+            for (String shard : pending) {
+                if (free == 0) {
+                    return;
+                }
+                if (claim(job, run, shard)) {
+                    free--;
+                }
+            }
+        }
+    }
+    
+    private boolean claim(ShardedJob job, JobRun run, String shard) {
+        String leaseKey = leaseKey(run.getId(), shard);
+        String token = nodeId + ':' + claims.incrementAndGet();
+        if (!leases.acquire(leaseKey, token, properties.getLeaseTtl())) {
+            return false;
+        }
+        if (!PENDING.equals(hashOps.get(shardsKey(run.getId()), shard))) {
+            leases.release(leaseKey, token);
+            return false;
+        }
+        RunningShard running = new RunningShard(job, run, shard, leaseKey, token,
+            hashOps.get(checkpointsKey(run.getId()), shard));
+        runningShards.put(running.key(), running);
+        try {
+            workers.execute(() -> runShard(running));
+        } catch (RuntimeException e) {
+            runningShards.remove(running.key());
+            leases.release(leaseKey, token);
+            throw e;
+        }
+        return true;
+    }
+    
+    private void runShard(RunningShard shard) {
+        String runId = shard.run.getId();
+        long started = System.nanoTime();
+        String outcome;
+        try {
+            if (shard.checkpoint != null) {
+                log.info("Resuming shard {} of {} after {}", shard.shard, runId, shard.checkpoint);
+            }
+            shard.job.runShard(shard.run, shard.shard, shard);
+            outcome = finish(shard, true) >= 0 ? "succeeded" : "cancelled";
+        } catch (CancellationException e) {
+            leases.release(shard.leaseKey, shard.token);
+            outcome = "cancelled";
+            log.info("Shard {} of {} cancelled at {}", shard.shard, runId, shard.checkpoint);
+        } catch (Exception e) {
+            long attempts = finish(shard, false);
+            outcome = attempts >= properties.getMaxAttempts() ? "failed" : "retried";
+            log.warn("Shard {} of {} failed (attempt {} of {})", shard.shard, runId, attempts,
+                properties.getMaxAttempts(), e);
+        } finally {
+            runningShards.remove(shard.key());
+        }
+        Timer.builder("sirius.jobs.shard")
+            .tags("job", shard.job.getName(), "outcome", outcome)
+            .register(meterRegistry)
+            .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * @return -1 if the lease was lost, otherwise the failed attempts so far
+     */
+    private long finish(RunningShard shard, boolean succeeded) {
+        String runId = shard.run.getId();
+        shard.finishing = true;
+        Long result = redisTemplate.execute(FINISH_SCRIPT,
+            List.of(shard.leaseKey, shardsKey(runId), attemptsKey(runId)),
+            shard.token, shard.shard, succeeded ? "1" : "0", String.valueOf(properties.getMaxAttempts()),
+            String.valueOf(properties.getRetryDelay().toMillis()));
+        return result != null ? result : -1;
+    }
+    
+    private ForkJoinPool forkJoinPool() {
+        return new ForkJoinPool(concurrency, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("job-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+    }
+    
+    private static String runId(ShardedJob job, ZonedDateTime scheduledAt) {
+        return job.getName() + '@' + scheduledAt.toInstant();
+    }
+    
+    private static String runKey(String runId) {
+        return PREFIX + '{' + runId + '}';
+    }
+    
+    private static String shardsKey(String runId) {
+        return runKey(runId) + ":shards";
+    }
+    
+    private static String checkpointsKey(String runId) {
+        return runKey(runId) + ":checkpoints";
+    }
+    
+    private static String attemptsKey(String runId) {
+        return runKey(runId) + ":attempts";
+    }
+    
+    private static String leaseKey(String runId, String shard) {
+        return runKey(runId) + ":lease:" + shard;
+    }
+    
+    private final class RunningShard implements ShardProgress {
+        
+        private final ShardedJob job;
+        private final JobRun run;
+        private final String shard;
+        private final String leaseKey;
+        private final String token;
+        @Nullable
+        private volatile String checkpoint;
+        private volatile boolean cancelled;
+        
+        /**
+         * Set before the lease is given up, so that losing it is not mistaken for a takeover.
+         */
+        private volatile boolean finishing;
+        
+        private RunningShard(ShardedJob job, JobRun run, String shard, String leaseKey, String token,
+                             @Nullable String checkpoint) {
+            this.job = job;
+            this.run = run;
+            this.shard = shard;
+            this.leaseKey = leaseKey;
+            this.token = token;
+            this.checkpoint = checkpoint;
+        }
+        
+        private String key() {
+            return run.getId() + '/' + shard;
+        }
+        
+        @Override
+        @Nullable
+        public String getCheckpoint() {
+            return checkpoint;
+        }
+        
+        @Override
+        public void checkpoint(String position) {
+            if (cancelled) {
+                throw new CancellationException("Shard " + shard + " of " + run.getId() + " was cancelled");
+            }
+            Long saved = redisTemplate.execute(CHECKPOINT_SCRIPT, List.of(leaseKey, checkpointsKey(run.getId())),
+                token, String.valueOf(properties.getLeaseTtl().toMillis()), shard, position);
+            if (saved == null || saved != 1) {
+                cancelled = true;
+                throw new CancellationException("Lost lease on shard " + shard + " of " + run.getId());
+            }
+            checkpoint = position;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sirius.infra.job;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Expiring leases on Redis keys. The key holds the owner's token, so only the owner can renew or
+ * release it, and a lease that is not renewed lapses on its own when its owner dies.
+ */
+class RedisLeases {
+    
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+        Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    RedisLeases(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+    
+    boolean acquire(String key, String token, Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, ttl));
+    }
+    
+    /**
+     * @return false if the lease lapsed or was taken over
+     */
+    boolean renew(String key, String token, Duration ttl) {
+        Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key), token, String.valueOf(ttl.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+    
+    void release(String key, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+    }
+}
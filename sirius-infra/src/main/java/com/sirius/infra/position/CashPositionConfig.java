@@ -0,0 +1,50 @@
+package com.sirius.infra.position;
+
+import com.sirius.core.position.CashPositionEngine;
+import com.sirius.core.position.PositionCheckpointStore;
+import com.sirius.infra.stream.RedisStreamConfig;
+import com.sirius.infra.stream.StreamProgressRegistry;
+import com.sirius.infra.stream.StreamReplayer;
+import com.sirius.infra.stream.StreamTailer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Per-node cash positions fed from {@link RedisStreamConfig#TREASURY_EVENTS_STREAM}. Checkpoints
+ * are kept when a {@link PositionCheckpointStore} is available; otherwise each start replays the
+ * whole stream. When the stream is trimmed, the tailer reports its progress to hold trimming back
+ * and catches up from the archive if it starts behind the entries still in Redis.
+ */
+@Configuration
+@EnableConfigurationProperties(CashPositionProperties.class)
+@ConditionalOnProperty(prefix = "sirius.positions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CashPositionConfig {
+    
+    @Bean
+    public CashPositionEngine cashPositionEngine(CashPositionProperties properties) {
+        return new CashPositionEngine(properties.getStripes());
+    }
+    
+    @Bean
+    public CashPositionFeed cashPositionFeed(CashPositionEngine cashPositionEngine,
+                                             ObjectProvider<PositionCheckpointStore> checkpointStore,
+                                             CashPositionProperties properties, MeterRegistry meterRegistry) {
+        return new CashPositionFeed(cashPositionEngine, checkpointStore.getIfAvailable(),
+            properties.getDedupWindow(), meterRegistry);
+    }
+    
+    @Bean
+    public StreamTailer cashPositionTailer(StringRedisTemplate redisTemplate, CashPositionFeed cashPositionFeed,
+                                           ObjectProvider<StreamReplayer> streamReplayer,
+                                           ObjectProvider<StreamProgressRegistry> streamProgressRegistry,
+                                           CashPositionProperties properties, MeterRegistry meterRegistry) {
+        return new StreamTailer(redisTemplate, RedisStreamConfig.TREASURY_EVENTS_STREAM, "cash-positions",
+            cashPositionFeed::restore, cashPositionFeed::handle, properties.getBatchSize(), properties.getBlockTimeout(),
+            streamReplayer.getIfAvailable(), streamProgressRegistry.getIfAvailable(), meterRegistry);
+    }
+}
@@ -0,0 +1,126 @@
+package com.sirius.infra.position;
+
+import com.sirius.core.event.CashMovementEvent;
+import com.sirius.core.event.StreamIds;
+import com.sirius.core.money.FixedPoint;
+import com.sirius.core.position.CashPositionEngine;
+import com.sirius.core.position.PositionCheckpointStore;
+import com.sirius.core.position.PositionSnapshot;
+import com.sirius.infra.stream.TreasuryEventHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies cash movements from the treasury stream to the {@link CashPositionEngine}, and keeps a
+ * checkpoint of the engine so a restart only replays the stream from there.
+ * <p>
+ * Deliberately not a {@link TreasuryEventHandler}: those share the stream across nodes through a
+ * consumer group, whereas every node needs every movement to hold complete positions.
+ */
+@Slf4j
+public class CashPositionFeed {
+    
+    private final CashPositionEngine engine;
+    @Nullable
+    private final PositionCheckpointStore checkpointStore;
+    private final Map<String, Boolean> recentOutboxIds;
+    private final Timer checkpointTimer;
+    
+    public CashPositionFeed(CashPositionEngine engine, @Nullable PositionCheckpointStore checkpointStore,
+                            int dedupWindow, MeterRegistry meterRegistry) {
+        this.engine = engine;
+        this.checkpointStore = checkpointStore;
+        this.recentOutboxIds = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupWindow;
+            }
+        };
+        this.checkpointTimer = Timer.builder("sirius.positions.checkpoint")
+            .description("Time to snapshot changed positions and store them")
+            .register(meterRegistry);
+        Gauge.builder("sirius.positions.accounts", engine, CashPositionEngine::getAccountCount)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Loads the last checkpoint into the engine.
+     *
+     * @return the stream id to resume after
+     */
+    public String restore() {
+        if (checkpointStore != null) {
+            long started = System.nanoTime();
+            checkpointStore.load().ifPresent(snapshot -> {
+                engine.restore(snapshot);
+                log.info("Restored {} positions as of {} in {} ms", snapshot.size(), snapshot.getStreamId(),
+                    (System.nanoTime() - started) / 1_000_000);
+            });
+        }
+        String lastApplied = engine.getLastAppliedId();
+        return lastApplied != null ? lastApplied : StreamIds.BEGINNING;
+    }
+    
+    /**
+     * Called by the stream tailer for every treasury event, in stream order.
+     */
+    public void handle(MapRecord<String, String, String> record) {
+        Map<String, String> fields = record.getValue();
+        if (!CashMovementEvent.TYPE.equals(fields.get(CashMovementEvent.EVENT_TYPE))) {
+            return;
+        }
+        String outboxId = fields.get("outboxId");
+        if (outboxId != null && recentOutboxIds.put(outboxId, Boolean.TRUE) != null) {
+            return;
+        }
+        engine.apply(
+            required(fields, CashMovementEvent.ENTITY_ID),
+            required(fields, CashMovementEvent.ACCOUNT_ID),
+            required(fields, CashMovementEvent.CURRENCY),
+            FixedPoint.parse(required(fields, CashMovementEvent.AMOUNT)),
+            record.getId().getValue());
+    }
+    
+    /**
+     * Stores positions changed since the previous checkpoint. If storing fails they are kept as
+     * changed and go out with the next attempt.
+     */
+    @Scheduled(fixedDelayString = "${sirius.positions.checkpoint-interval:30000}",
+        initialDelayString = "${sirius.positions.checkpoint-interval:30000}")
+    public void checkpoint() {
+        if (checkpointStore == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        PositionSnapshot changes = engine.snapshot(true);
+        if (changes.size() == 0) {
+            return;
+        }
+        try {
+            boolean saved = checkpointStore.save(changes);
+            checkpointTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.debug("Checkpoint of {} positions as of {}: {}", changes.size(), changes.getStreamId(),
+                saved ? "stored" : "superseded");
+        } catch (RuntimeException e) {
+            engine.markUnsaved(changes);
+            log.warn("Position checkpoint failed, will retry: {}", e.getMessage());
+        }
+    }
+    
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Cash movement without " + name);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,30 @@
+package com.sirius.infra.position;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "sirius.positions")
+public class CashPositionProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * Lock stripes of the position engine; a power of two.
+     */
+    private int stripes = 64;
+    
+    /**
+     * Maximum number of entries fetched by a single XREAD.
+     */
+    private int batchSize = 1000;
+    
+    private Duration blockTimeout = Duration.ofMillis(100);
+    
+    /**
+     * Outbox ids remembered to drop duplicates, which the outbox relay may publish after a crash.
+     */
+    private int dedupWindow = 100_000;
+}
@@ -0,0 +1,165 @@
+package com.sirius.infra.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token bucket per key, shared by all nodes through Redis and updated atomically by a script.
+ * <p>
+ * Each trip to Redis takes up to {@code prefetch} tokens and keeps the surplus locally for a
+ * short while, so a busy key costs one round trip per batch rather than per request. A key
+ * found empty is rejected locally until roughly one token has refilled. Across {@code n} nodes
+ * a burst may therefore overshoot the capacity by at most {@code n * (prefetch - 1)}.
+ * If Redis is unavailable, requests are let through.
+ */
+@Slf4j
+public class RedisRateLimiter {
+    
+    static final String KEY_PREFIX = "sirius:ratelimit:";
+    
+    private static final RedisScript<Long> TAKE_SCRIPT = new DefaultRedisScript<>("""
+        local capacity = tonumber(ARGV[1])
+        local rate = tonumber(ARGV[2])
+        local requested = tonumber(ARGV[3])
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+        local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+        local tokens = tonumber(state[1]) or capacity
+        local ts = tonumber(state[2]) or now
+        tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+        local granted = math.min(requested, math.floor(tokens))
+        tokens = tokens - granted
+        redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+        redis.call('PEXPIRE', KEYS[1], math.ceil((capacity - tokens) / rate) + 1000)
+        return granted
+        """, Long.class);
+    
+    private final String name;
+    private final int capacity;
+    private final double tokensPerMilli;
+    private final int prefetch;
+    private final long rejectNanos;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, LocalBucket> local;
+    
+    private final Counter allowed;
+    private final Counter rejected;
+    private final Counter redisCalls;
+    
+    public RedisRateLimiter(String name, int capacity, double refillPerSecond, int prefetch,
+                            StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        if (capacity < 1 || refillPerSecond <= 0 || prefetch < 1) {
+            throw new IllegalArgumentException("Invalid rate limit " + name + ": capacity " + capacity
+                + ", refill " + refillPerSecond + "/s, prefetch " + prefetch);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.tokensPerMilli = refillPerSecond / 1000.0;
+        this.prefetch = Math.min(prefetch, capacity);
+        this.rejectNanos = (long) Math.min(1_000_000_000.0 / refillPerSecond, 1_000_000_000.0);
+        this.redisTemplate = redisTemplate;
+        this.local = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(1))
+            .maximumSize(100_000)
+            .build();
+        
+        this.allowed = decisions(meterRegistry, "allowed");
+        this.rejected = decisions(meterRegistry, "rejected");
+        this.redisCalls = Counter.builder("sirius.ratelimit.redis.calls")
+            .description("Token bucket updates sent to Redis; the rest were answered locally")
+            .tag("limiter", name)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * @return whether the caller identified by {@code key} may proceed
+     */
+    public boolean tryAcquire(String key) {
+        LocalBucket bucket = local.getIfPresent(key);
+        if (bucket != null) {
+            if (bucket.tryTake()) {
+                allowed.increment();
+                return true;
+            }
+            if (System.nanoTime() < bucket.rejectUntil) {
+                rejected.increment();
+                return false;
+            }
+        }
+        
+        long granted = take(key);
+        if (granted <= 0) {
+            LocalBucket empty = new LocalBucket(0);
+            empty.rejectUntil = System.nanoTime() + rejectNanos;
+            local.put(key, empty);
+            rejected.increment();
+            return false;
+        }
+        if (granted > 1) {
+            local.put(key, new LocalBucket((int) granted - 1));
+        }
+        allowed.increment();
+        return true;
+    }
+    
+    /**
+     * Rough time until the next token, for a {@code Retry-After} header.
+     */
+    public Duration getRetryAfter() {
+        return Duration.ofSeconds(Math.max(1, (long) Math.ceil(1 / (tokensPerMilli * 1000))));
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    private long take(String key) {
+        redisCalls.increment();
+        try {
+            Long granted = redisTemplate.execute(TAKE_SCRIPT, List.of(KEY_PREFIX + name + ":" + key),
+                String.valueOf(capacity), String.valueOf(tokensPerMilli), String.valueOf(prefetch));
+            return granted != null ? granted : 1;
+        } catch (DataAccessException e) {
+            log.warn("Rate limiter {} could not reach Redis, allowing request: {}", name, e.getMessage());
+            return 1;
+        }
+    }
+    
+    private Counter decisions(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("sirius.ratelimit.decisions")
+            .tags("limiter", name, "result", result)
+            .register(meterRegistry);
+    }
+    
+    private static final class LocalBucket {
+        
+        private final AtomicInteger tokens;
+        private volatile long rejectUntil;
+        
+        private LocalBucket(int tokens) {
+            this.tokens = new AtomicInteger(tokens);
+        }
+        
+        private boolean tryTake() {
+            int current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.sirius.infra.redis;
+
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk reads and writes against {@code redisTemplate}, costing one round trip per chunk instead
+ * of one per key. Values use the template's serializer. Works on every topology: in Cluster mode
+ * multi-key reads are split by slot and pipelined commands are routed per key by Lettuce.
+ */
+@Component
+public class RedisBulkOperations {
+    
+    private static final int CHUNK_SIZE = 1000;
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    
+    public RedisBulkOperations(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+    
+    /**
+     * Values for the keys that exist, in key order; missing keys are left out
+     */
+    public Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> found = new LinkedHashMap<>();
+        for (List<String> chunk : chunks(keys)) {
+            List<Object> values = redisTemplate.opsForValue().multiGet(chunk);
+            if (values == null) {
+                continue;
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                if (values.get(i) != null) {
+                    found.put(chunk.get(i), values.get(i));
+                }
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Pipelined {@code SET ... PX ttl} for every entry
+     */
+    public void putAll(Map<String, ?> entries, Duration ttl) {
+        @SuppressWarnings("unchecked")
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        Expiration expiration = Expiration.from(ttl);
+        for (List<String> chunk : chunks(entries.keySet())) {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : chunk) {
+                    connection.stringCommands().set(keySerializer.serialize(key),
+                        valueSerializer.serialize(entries.get(key)), expiration, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        }
+    }
+    
+    /**
+     * @return the number of keys that existed
+     */
+    public long deleteAll(Collection<String> keys) {
+        long deleted = 0;
+        for (List<String> chunk : chunks(keys)) {
+            Long count = redisTemplate.delete(chunk);
+            deleted += count != null ? count : 0;
+        }
+        return deleted;
+    }
+    
+    private static List<List<String>> chunks(Collection<String> keys) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(Math.min(keys.size(), CHUNK_SIZE));
+        for (String key : keys) {
+            chunk.add(key);
+            if (chunk.size() == CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,175 @@
+package com.sirius.infra.redis;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+import java.util.HashSet;
+import java.util.Locale;
+
+/**
+ * Lettuce connection factories built from {@code spring.data.redis}: Sentinel when
+ * {@code sentinel.master} is set, Cluster when {@code cluster.nodes} is set, static
+ * master/replica when {@code sirius.redis.replicas} is set, standalone otherwise. The
+ * {@code lettuce.pool} settings apply to dedicated connections (blocking and transactional
+ * commands); everything else shares one multiplexed connection per node.
+ */
+@Configuration
+@EnableConfigurationProperties(RedisTopologyProperties.class)
+public class RedisConnectionConfig {
+    
+    @Bean
+    @Primary
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties redisProperties,
+                                                           RedisTopologyProperties topologyProperties) {
+        return connectionFactory(redisProperties, topologyProperties, topologyProperties.getReadFrom());
+    }
+    
+    /**
+     * Separate factory for the cache manager, so cache reads can be served by replicas
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "sirius.redis", name = "cache-read-from")
+    public LettuceConnectionFactory cacheRedisConnectionFactory(RedisProperties redisProperties,
+                                                                RedisTopologyProperties topologyProperties) {
+        return connectionFactory(redisProperties, topologyProperties, topologyProperties.getCacheReadFrom());
+    }
+    
+    private static LettuceConnectionFactory connectionFactory(RedisProperties properties,
+                                                              RedisTopologyProperties topology,
+                                                              String readFrom) {
+        RedisConfiguration configuration = topology(properties, topology);
+        boolean cluster = configuration instanceof RedisClusterConfiguration;
+        return new LettuceConnectionFactory(configuration, clientConfiguration(properties, readFrom, cluster));
+    }
+    
+    private static RedisConfiguration topology(RedisProperties properties, RedisTopologyProperties topology) {
+        RedisPassword password = RedisPassword.of(properties.getPassword());
+        RedisProperties.Sentinel sentinel = properties.getSentinel();
+        if (sentinel != null && sentinel.getMaster() != null) {
+            RedisSentinelConfiguration config = new RedisSentinelConfiguration(sentinel.getMaster(),
+                new HashSet<>(sentinel.getNodes()));
+            config.setUsername(properties.getUsername());
+            config.setPassword(password);
+            config.setSentinelUsername(sentinel.getUsername());
+            config.setSentinelPassword(RedisPassword.of(sentinel.getPassword()));
+            config.setDatabase(properties.getDatabase());
+            return config;
+        }
+        RedisProperties.Cluster cluster = properties.getCluster();
+        if (cluster != null && cluster.getNodes() != null && !cluster.getNodes().isEmpty()) {
+            RedisClusterConfiguration config = new RedisClusterConfiguration(cluster.getNodes());
+            if (cluster.getMaxRedirects() != null) {
+                config.setMaxRedirects(cluster.getMaxRedirects());
+            }
+            config.setUsername(properties.getUsername());
+            config.setPassword(password);
+            return config;
+        }
+        if (!topology.getReplicas().isEmpty()) {
+            RedisStaticMasterReplicaConfiguration config =
+                new RedisStaticMasterReplicaConfiguration(properties.getHost(), properties.getPort());
+            for (String replica : topology.getReplicas()) {
+                int colon = replica.lastIndexOf(':');
+                config.node(replica.substring(0, colon), Integer.parseInt(replica.substring(colon + 1)));
+            }
+            config.setUsername(properties.getUsername());
+            config.setPassword(password);
+            config.setDatabase(properties.getDatabase());
+            return config;
+        }
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(properties.getHost(), properties.getPort());
+        config.setUsername(properties.getUsername());
+        config.setPassword(password);
+        config.setDatabase(properties.getDatabase());
+        return config;
+    }
+    
+    private static LettuceClientConfiguration clientConfiguration(RedisProperties properties, String readFrom,
+                                                                  boolean cluster) {
+        RedisProperties.Pool pool = properties.getLettuce().getPool();
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder =
+            pool.getEnabled() == null || pool.getEnabled()
+                ? LettucePoolingClientConfiguration.builder().poolConfig(poolConfig(pool))
+                : LettuceClientConfiguration.builder();
+        if (properties.getTimeout() != null) {
+            builder.commandTimeout(properties.getTimeout());
+        }
+        if (properties.getLettuce().getShutdownTimeout() != null) {
+            builder.shutdownTimeout(properties.getLettuce().getShutdownTimeout());
+        }
+        if (properties.getClientName() != null) {
+            builder.clientName(properties.getClientName());
+        }
+        if (properties.getSsl().isEnabled()) {
+            builder.useSsl();
+        }
+        if (readFrom != null) {
+            builder.readFrom(readFrom(readFrom));
+        }
+        builder.clientOptions(clientOptions(properties, cluster));
+        return builder.build();
+    }
+    
+    private static ClientOptions clientOptions(RedisProperties properties, boolean cluster) {
+        SocketOptions.Builder socket = SocketOptions.builder();
+        if (properties.getConnectTimeout() != null) {
+            socket.connectTimeout(properties.getConnectTimeout());
+        }
+        if (!cluster) {
+            return ClientOptions.builder().socketOptions(socket.build()).build();
+        }
+        RedisProperties.Lettuce.Cluster.Refresh refresh = properties.getLettuce().getCluster().getRefresh();
+        ClusterTopologyRefreshOptions.Builder refreshOptions = ClusterTopologyRefreshOptions.builder()
+            .dynamicRefreshSources(refresh.isDynamicRefreshSources());
+        if (refresh.getPeriod() != null) {
+            refreshOptions.enablePeriodicRefresh(refresh.getPeriod());
+        }
+        if (refresh.isAdaptive()) {
+            refreshOptions.enableAllAdaptiveRefreshTriggers();
+        }
+        return ClusterClientOptions.builder()
+            .socketOptions(socket.build())
+            .topologyRefreshOptions(refreshOptions.build())
+            .build();
+    }
+    
+    private static GenericObjectPoolConfig<?> poolConfig(RedisProperties.Pool pool) {
+        GenericObjectPoolConfig<?> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(pool.getMaxActive());
+        config.setMaxIdle(pool.getMaxIdle());
+        config.setMinIdle(pool.getMinIdle());
+        if (pool.getMaxWait() != null) {
+            config.setMaxWait(pool.getMaxWait());
+        }
+        if (pool.getTimeBetweenEvictionRuns() != null) {
+            config.setTimeBetweenEvictionRuns(pool.getTimeBetweenEvictionRuns());
+        }
+        return config;
+    }
+    
+    /**
+     * Accepts Lettuce names in any case and with dashes, e.g. {@code replica-preferred}
+     */
+    static ReadFrom readFrom(String name) {
+        return ReadFrom.valueOf(name.replace("-", "").replace("_", "").toLowerCase(Locale.ROOT));
+    }
+}
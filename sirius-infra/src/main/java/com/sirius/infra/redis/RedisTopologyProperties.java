@@ -0,0 +1,35 @@
+package com.sirius.infra.redis;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sirius additions to {@code spring.data.redis}. Sentinel and Cluster topologies are configured
+ * through the standard {@code spring.data.redis.sentinel.*} and {@code spring.data.redis.cluster.*}
+ * properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "sirius.redis")
+public class RedisTopologyProperties {
+    
+    /**
+     * Replicas of the standalone {@code spring.data.redis.host} as {@code host:port}, for a
+     * static master/replica setup without Sentinel
+     */
+    private List<String> replicas = new ArrayList<>();
+    
+    /**
+     * Lettuce {@code ReadFrom} for general Redis access (denylist, streams, rate limits). Unset
+     * means the master, which these callers need to read their own writes.
+     */
+    private String readFrom;
+    
+    /**
+     * {@code ReadFrom} for the cache manager, e.g. {@code replica-preferred}. When set, caches get
+     * their own connection factory; reads may then be slightly stale, writes still go to the master.
+     */
+    private String cacheReadFrom;
+}
@@ -0,0 +1,32 @@
+package com.sirius.infra.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Schema for one type in the binary Redis format. The type id is written instead of a class
+ * name; the version is written with every value so a codec can keep reading older layouts
+ * after its fields change.
+ */
+public interface BinaryCodec<T> {
+    
+    Class<T> type();
+    
+    /**
+     * Stable identifier of the type. Ids below 100 are reserved for the built-in codecs.
+     */
+    int typeId();
+    
+    /**
+     * Current layout version, written with each value.
+     */
+    int version();
+    
+    void write(T value, DataOutput out) throws IOException;
+    
+    /**
+     * Reads a value written by this codec at the given layout version.
+     */
+    T read(DataInput in, int version) throws IOException;
+}
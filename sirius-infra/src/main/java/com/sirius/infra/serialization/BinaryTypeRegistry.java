@@ -0,0 +1,43 @@
+package com.sirius.infra.serialization;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lookup of {@link BinaryCodec}s by value class and by type id
+ */
+public class BinaryTypeRegistry {
+    
+    private final Map<Class<?>, BinaryCodec<?>> byType = new HashMap<>();
+    private final Map<Integer, BinaryCodec<?>> byId = new HashMap<>();
+    
+    public BinaryTypeRegistry(Collection<? extends BinaryCodec<?>> codecs) {
+        BuiltInCodecs.all().forEach(this::register);
+        for (BinaryCodec<?> codec : codecs) {
+            if (codec.typeId() < 100) {
+                throw new IllegalArgumentException(
+                    "Type ids below 100 are reserved, " + codec.type().getName() + " uses " + codec.typeId());
+            }
+            register(codec);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    <T> BinaryCodec<T> forType(Class<T> type) {
+        return (BinaryCodec<T>) byType.get(type);
+    }
+    
+    BinaryCodec<?> forId(int typeId) {
+        return byId.get(typeId);
+    }
+    
+    private void register(BinaryCodec<?> codec) {
+        BinaryCodec<?> existing = byId.putIfAbsent(codec.typeId(), codec);
+        if (existing != null) {
+            throw new IllegalArgumentException("Type id " + codec.typeId() + " is used by both "
+                + existing.type().getName() + " and " + codec.type().getName());
+        }
+        byType.put(codec.type(), codec);
+    }
+}
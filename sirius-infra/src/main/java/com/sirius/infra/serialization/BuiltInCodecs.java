@@ -0,0 +1,120 @@
+package com.sirius.infra.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Codecs for the JDK value types every cache uses
+ */
+final class BuiltInCodecs {
+    
+    private BuiltInCodecs() {
+    }
+    
+    static List<BinaryCodec<?>> all() {
+        return List.of(
+            codec(String.class, 1, BuiltInCodecs::writeString, BuiltInCodecs::readString),
+            codec(Long.class, 2, DataOutput::writeLong, DataInput::readLong),
+            codec(Integer.class, 3, DataOutput::writeInt, DataInput::readInt),
+            codec(Boolean.class, 4, DataOutput::writeBoolean, DataInput::readBoolean),
+            codec(Double.class, 5, DataOutput::writeDouble, DataInput::readDouble),
+            codec(BigDecimal.class, 6, BuiltInCodecs::writeBigDecimal, BuiltInCodecs::readBigDecimal),
+            codec(Instant.class, 7, BuiltInCodecs::writeInstant, BuiltInCodecs::readInstant),
+            codec(byte[].class, 8, BuiltInCodecs::writeBytes, BuiltInCodecs::readBytes),
+            codec(UUID.class, 9, BuiltInCodecs::writeUuid, BuiltInCodecs::readUuid)
+        );
+    }
+    
+    private static void writeString(DataOutput out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String readString(DataInput in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+    
+    private static void writeBigDecimal(DataOutput out, BigDecimal value) throws IOException {
+        out.writeInt(value.scale());
+        writeBytes(out, value.unscaledValue().toByteArray());
+    }
+    
+    private static BigDecimal readBigDecimal(DataInput in) throws IOException {
+        int scale = in.readInt();
+        return new BigDecimal(new BigInteger(readBytes(in)), scale);
+    }
+    
+    private static void writeInstant(DataOutput out, Instant value) throws IOException {
+        out.writeLong(value.getEpochSecond());
+        out.writeInt(value.getNano());
+    }
+    
+    private static Instant readInstant(DataInput in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+    
+    private static void writeBytes(DataOutput out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+    
+    private static byte[] readBytes(DataInput in) throws IOException {
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return value;
+    }
+    
+    private static void writeUuid(DataOutput out, UUID value) throws IOException {
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+    
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+    
+    private static <T> BinaryCodec<T> codec(Class<T> type, int typeId, Writer<T> writer, Reader<T> reader) {
+        return new BinaryCodec<>() {
+            @Override
+            public Class<T> type() {
+                return type;
+            }
+            
+            @Override
+            public int typeId() {
+                return typeId;
+            }
+            
+            @Override
+            public int version() {
+                return 1;
+            }
+            
+            @Override
+            public void write(T value, DataOutput out) throws IOException {
+                writer.write(out, value);
+            }
+            
+            @Override
+            public T read(DataInput in, int version) throws IOException {
+                return reader.read(in);
+            }
+        };
+    }
+    
+    @FunctionalInterface
+    private interface Writer<T> {
+        void write(DataOutput out, T value) throws IOException;
+    }
+    
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(DataInput in) throws IOException;
+    }
+}
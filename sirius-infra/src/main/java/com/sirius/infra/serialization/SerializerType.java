@@ -0,0 +1,18 @@
+package com.sirius.infra.serialization;
+
+/**
+ * Value format used for a cache or template
+ */
+public enum SerializerType {
+    
+    /**
+     * {@code GenericJackson2JsonRedisSerializer}, with the class name embedded in every value;
+     * also reads entries written as binary. Readable by nodes of every version
+     */
+    JSON,
+    
+    /**
+     * {@link SiriusBinaryRedisSerializer}; also reads entries written as JSON
+     */
+    BINARY
+}
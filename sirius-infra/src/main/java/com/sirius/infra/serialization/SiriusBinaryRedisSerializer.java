@@ -0,0 +1,175 @@
+package com.sirius.infra.serialization;
+
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact, schema-aware {@link RedisSerializer}.
+ * <p>
+ * Values are written as {@code [magic][flags][type id][version][body]} where the body is produced
+ * by the {@link BinaryCodec} registered for the value's class, so no class names are stored.
+ * Bodies larger than the compression threshold are deflated. Values of unregistered types are
+ * still accepted and stored as JSON inside the envelope. Entries written by the previous
+ * {@link GenericJackson2JsonRedisSerializer} format carry no magic byte and are read as JSON,
+ * which lets existing caches migrate in place as entries are rewritten or expire.
+ * <p>
+ * Nodes of earlier versions only read JSON, so a cluster keeps writing JSON through
+ * {@link #writingJson()} until every node runs a version that can read this format.
+ */
+public class SiriusBinaryRedisSerializer implements RedisSerializer<Object> {
+    
+    static final byte MAGIC = (byte) 0xB7;
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int FLAG_JSON = 1 << 1;
+    private static final int HEADER_CAPACITY = 16;
+    
+    private final BinaryTypeRegistry registry;
+    private final int compressionThreshold;
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    
+    public SiriusBinaryRedisSerializer(BinaryTypeRegistry registry, int compressionThreshold) {
+        this.registry = registry;
+        this.compressionThreshold = compressionThreshold;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        BinaryCodec<Object> codec = (BinaryCodec<Object>) registry.forType(value.getClass());
+        try {
+            int flags = 0;
+            byte[] body;
+            if (codec != null) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                codec.write(value, new DataOutputStream(buffer));
+                body = buffer.toByteArray();
+            } else {
+                flags |= FLAG_JSON;
+                body = json.serialize(value);
+            }
+            if (body.length > compressionThreshold) {
+                flags |= FLAG_COMPRESSED;
+                body = deflate(body);
+            }
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + HEADER_CAPACITY);
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeByte(MAGIC);
+            data.writeByte(flags);
+            if (codec != null) {
+                writeVarInt(data, codec.typeId());
+                writeVarInt(data, codec.version());
+            }
+            data.write(body);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not serialize " + value.getClass().getName(), e);
+        }
+    }
+    
+    /**
+     * Writes plain JSON, as {@link GenericJackson2JsonRedisSerializer} does, but reads both JSON
+     * and entries written by this serializer, e.g. by nodes already switched to the binary format.
+     */
+    public RedisSerializer<Object> writingJson() {
+        return new RedisSerializer<>() {
+            
+            @Override
+            public byte[] serialize(@Nullable Object value) throws SerializationException {
+                return json.serialize(value);
+            }
+            
+            @Override
+            @Nullable
+            public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+                return SiriusBinaryRedisSerializer.this.deserialize(bytes);
+            }
+        };
+    }
+    
+    @Override
+    @Nullable
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return json.deserialize(bytes);
+        }
+        try {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+            int flags = header.readUnsignedByte();
+            if ((flags & FLAG_JSON) != 0) {
+                byte[] body = header.readAllBytes();
+                return json.deserialize((flags & FLAG_COMPRESSED) != 0 ? inflate(body) : body);
+            }
+            int typeId = readVarInt(header);
+            int version = readVarInt(header);
+            BinaryCodec<?> codec = registry.forId(typeId);
+            if (codec == null) {
+                throw new SerializationException("No codec registered for type id " + typeId);
+            }
+            if ((flags & FLAG_COMPRESSED) == 0) {
+                return codec.read(header, version);
+            }
+            try (InputStream body = new InflaterInputStream(header)) {
+                return codec.read(new DataInputStream(body), version);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Could not deserialize value", e);
+        }
+    }
+    
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        // A Deflater passed in is not ended by close(), so its native memory has to be released here
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(body);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+    
+    private static byte[] inflate(byte[] body) throws IOException {
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(body))) {
+            return inflater.readAllBytes();
+        }
+    }
+    
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+    
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -1,16 +1,18 @@
 package com.sirius.infra.stream;
 
+import com.sirius.core.event.EventStreams;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.stream.Consumer;
 import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.connection.stream.ReadOffset;
-import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.stream.StreamMessageListenerContainer;
-import org.springframework.data.redis.stream.Subscription;
 
 import java.time.Duration;
+import java.util.List;
 
 /**
  * Redis Streams configuration for event-driven communication
@@ -18,7 +20,7 @@ import java.time.Duration;
 @Configuration
 public class RedisStreamConfig {
     
-    public static final String TREASURY_EVENTS_STREAM = "treasury:events";
+    public static final String TREASURY_EVENTS_STREAM = EventStreams.TREASURY_EVENTS;
     public static final String CONSUMER_GROUP = "sirius-processors";
     
     @Bean
@@ -34,16 +36,26 @@ public class RedisStreamConfig {
         return StreamMessageListenerContainer.create(connectionFactory, options);
     }
     
-    // Example stream listener registration (can be extended as needed)
-    // @Bean
-    // public Subscription subscription(StreamMessageListenerContainer<String, MapRecord<String, String, String>> container) {
-    //     return container.receive(
-    //         Consumer.from(CONSUMER_GROUP, "instance-1"),
-    //         StreamOffset.create(TREASURY_EVENTS_STREAM, ReadOffset.lastConsumed()),
-    //         message -> {
-    //             // Process message
-    //             System.out.println("Received: " + message);
-    //         }
-    //     );
-    // }
+    @Bean
+    @ConfigurationProperties(prefix = "sirius.stream.treasury")
+    public StreamConsumerProperties treasuryConsumerProperties() {
+        return new StreamConsumerProperties();
+    }
+    
+    /**
+     * Consumer-group engine for {@link #TREASURY_EVENTS_STREAM}. Only starts when at least one
+     * {@link TreasuryEventHandler} is registered.
+     */
+    @Bean
+    public StreamConsumerEngine treasuryEventsConsumer(StringRedisTemplate redisTemplate,
+                                                       StreamConsumerProperties treasuryConsumerProperties,
+                                                       ObjectProvider<TreasuryEventHandler> handlers,
+                                                       MeterRegistry meterRegistry) {
+        List<TreasuryEventHandler> registered = handlers.orderedStream().toList();
+        if (registered.isEmpty()) {
+            treasuryConsumerProperties.setEnabled(false);
+        }
+        return new StreamConsumerEngine(redisTemplate, TREASURY_EVENTS_STREAM, CONSUMER_GROUP,
+            treasuryConsumerProperties, registered, meterRegistry);
+    }
 }
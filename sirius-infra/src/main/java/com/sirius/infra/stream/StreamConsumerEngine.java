@@ -0,0 +1,491 @@
+package com.sirius.infra.stream;
+
+import com.sirius.core.event.StreamIds;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Consumer-group engine for a Redis stream.
+ * <p>
+ * A single poller issues batched XREADGROUP calls and hands records to a fixed set of ordered
+ * lanes, chosen by hashing the partition key field, so records for the same key are handled in
+ * stream order while different keys run in parallel. Acknowledgements are collected and sent in
+ * batched XACKs. Entries left pending by a crashed consumer are taken over with XCLAIM. Each
+ * handler of a record is retried on its own, with a growing pause, so handlers that succeeded are
+ * not run again; records that keep failing are copied to a dead-letter stream, naming the
+ * handlers that failed, and acknowledged. The number of
+ * unacknowledged records is capped, which stops reading when handlers fall behind.
+ */
+@Slf4j
+public class StreamConsumerEngine implements SmartLifecycle {
+    
+    private final StringRedisTemplate redisTemplate;
+    private final StreamOperations<String, String, String> streamOps;
+    private final String stream;
+    private final String group;
+    private final String consumerName;
+    private final String deadLetterStream;
+    private final StreamConsumerProperties properties;
+    private final List<StreamRecordHandler> handlers;
+    
+    private final Semaphore inFlight;
+    private final Queue<String> pendingAcks = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Ids dispatched by this engine and not yet acknowledged, which reclaiming must leave alone
+     * however long they have been idle.
+     */
+    private final Set<String> handling = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lag = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter deadLettered;
+    private final Counter reclaimed;
+    private final Counter acked;
+    private final Timer handlerTimer;
+    
+    private volatile boolean running;
+    private Thread poller;
+    private ExecutorService[] lanes;
+    private ScheduledExecutorService housekeeping;
+    
+    public StreamConsumerEngine(StringRedisTemplate redisTemplate, String stream, String group,
+                                StreamConsumerProperties properties, StreamRecordHandler handler,
+                                MeterRegistry meterRegistry) {
+        this(redisTemplate, stream, group, properties, List.of(handler), meterRegistry);
+    }
+    
+    /**
+     * Consumes the stream with several handlers, each of which receives every record.
+     */
+    public StreamConsumerEngine(StringRedisTemplate redisTemplate, String stream, String group,
+                                StreamConsumerProperties properties, List<? extends StreamRecordHandler> handlers,
+                                MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.streamOps = redisTemplate.opsForStream();
+        this.stream = stream;
+        this.group = group;
+        this.properties = properties;
+        this.handlers = List.copyOf(handlers);
+        this.consumerName = properties.getConsumerName() != null ? properties.getConsumerName() : defaultConsumerName();
+        this.deadLetterStream = properties.getDeadLetterStream() != null
+            ? properties.getDeadLetterStream() : stream + ":dlq";
+        this.inFlight = new Semaphore(properties.getMaxInFlight());
+        
+        this.processed = records(meterRegistry, "processed");
+        this.failed = records(meterRegistry, "failed");
+        this.deadLettered = records(meterRegistry, "dead_lettered");
+        this.reclaimed = records(meterRegistry, "reclaimed");
+        this.acked = records(meterRegistry, "acked");
+        this.handlerTimer = Timer.builder("sirius.stream.handler")
+            .tags("stream", stream, "group", group)
+            .register(meterRegistry);
+        Gauge.builder("sirius.stream.in.flight", inFlight, s -> properties.getMaxInFlight() - s.availablePermits())
+            .tags("stream", stream, "group", group)
+            .register(meterRegistry);
+        Gauge.builder("sirius.stream.lag", lag, AtomicLong::get)
+            .description("Entries in the stream not yet delivered to the group")
+            .tags("stream", stream, "group", group)
+            .register(meterRegistry);
+        Gauge.builder("sirius.stream.pending", pending, AtomicLong::get)
+            .description("Entries delivered to the group but not yet acknowledged")
+            .tags("stream", stream, "group", group)
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isEnabled();
+    }
+    
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        ensureGroup();
+        running = true;
+        
+        lanes = new ExecutorService[properties.getPartitions()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(properties.isVirtualThreads()
+                ? virtualThreadFactory("lane-" + i) : threadFactory("lane-" + i));
+        }
+        housekeeping = Executors.newSingleThreadScheduledExecutor(threadFactory("housekeeping"));
+        housekeeping.scheduleWithFixedDelay(this::flushAcksSafely,
+            properties.getAckInterval().toMillis(), properties.getAckInterval().toMillis(), TimeUnit.MILLISECONDS);
+        housekeeping.scheduleWithFixedDelay(this::reclaimSafely,
+            0, properties.getClaimInterval().toMillis(), TimeUnit.MILLISECONDS);
+        housekeeping.scheduleWithFixedDelay(this::refreshLagSafely,
+            0, properties.getLagRefreshInterval().toMillis(), TimeUnit.MILLISECONDS);
+        
+        poller = threadFactory("poller").newThread(this::pollLoop);
+        poller.start();
+        log.info("Started consumer {} in group {} on stream {}", consumerName, group, stream);
+    }
+    
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            poller.join(properties.getBlockTimeout().toMillis() * 10);
+            for (ExecutorService lane : lanes) {
+                lane.shutdown();
+            }
+            for (ExecutorService lane : lanes) {
+                lane.awaitTermination(30, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        housekeeping.shutdownNow();
+        flushAcksSafely();
+        log.info("Stopped consumer {} in group {} on stream {}", consumerName, group, stream);
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void pollLoop() {
+        while (running) {
+            int permits = 0;
+            try {
+                permits = acquirePermits();
+                List<MapRecord<String, String, String>> records = streamOps.read(
+                    Consumer.from(group, consumerName),
+                    StreamReadOptions.empty().count(permits).block(properties.getBlockTimeout()),
+                    StreamOffset.create(stream, ReadOffset.lastConsumed()));
+                int received = records == null ? 0 : records.size();
+                inFlight.release(permits - received);
+                permits = 0;
+                if (received > 0) {
+                    records.forEach(this::dispatch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                inFlight.release(permits);
+                log.warn("Reading from stream {} failed: {}", stream, e.getMessage());
+                pause();
+            }
+        }
+    }
+    
+    /**
+     * Blocks until at least one record may be taken on, then grabs as many more as are free up to the batch size.
+     */
+    private int acquirePermits() throws InterruptedException {
+        while (!inFlight.tryAcquire(properties.getBlockTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            if (!running) {
+                throw new InterruptedException("Consumer stopping");
+            }
+        }
+        int permits = 1;
+        while (permits < properties.getBatchSize() && inFlight.tryAcquire()) {
+            permits++;
+        }
+        return permits;
+    }
+    
+    private void dispatch(MapRecord<String, String, String> record) {
+        handling.add(record.getId().getValue());
+        String key = record.getValue().get(properties.getPartitionKeyField());
+        int lane = key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+        lanes[lane].execute(() -> process(record));
+    }
+    
+    private void process(MapRecord<String, String, String> record) {
+        try {
+            Map<StreamRecordHandler, Exception> failures = new LinkedHashMap<>();
+            for (StreamRecordHandler handler : handlers) {
+                Exception failure = handle(handler, record);
+                if (failure != null) {
+                    failures.put(handler, failure);
+                }
+            }
+            if (failures.isEmpty()) {
+                processed.increment();
+                pendingAcks.add(record.getId().getValue());
+            } else {
+                deadLetter(record, failures);
+            }
+        } catch (InterruptedException e) {
+            // Leave it pending for another consumer to reclaim
+            Thread.currentThread().interrupt();
+            handling.remove(record.getId().getValue());
+        } finally {
+            inFlight.release();
+        }
+    }
+    
+    /**
+     * Runs one handler up to {@code maxAttempts} times, pausing {@code retryBackoff} after the
+     * first failure and twice as long after each further one, up to {@code retryBackoffMax}. The
+     * lane waits meanwhile, which keeps later records for the same key in order.
+     *
+     * @return the last failure, or {@code null} once the handler succeeded
+     */
+    @Nullable
+    private Exception handle(StreamRecordHandler handler, MapRecord<String, String, String> record)
+            throws InterruptedException {
+        Duration backoff = properties.getRetryBackoff();
+        Exception failure = null;
+        for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+            if (attempt > 1) {
+                Thread.sleep(backoff.toMillis());
+                backoff = backoff.multipliedBy(2);
+                if (backoff.compareTo(properties.getRetryBackoffMax()) > 0) {
+                    backoff = properties.getRetryBackoffMax();
+                }
+            }
+            try {
+                handlerTimer.recordCallable(() -> {
+                    handler.handle(record);
+                    return null;
+                });
+                return null;
+            } catch (Exception e) {
+                failed.increment();
+                failure = e;
+            }
+        }
+        return failure;
+    }
+    
+    private void deadLetter(MapRecord<String, String, String> record, Map<StreamRecordHandler, Exception> failures) {
+        Exception failure = failures.values().iterator().next();
+        Map<String, String> fields = new HashMap<>(record.getValue());
+        fields.put("dlq.sourceId", record.getId().getValue());
+        fields.put("dlq.group", group);
+        fields.put("dlq.consumer", consumerName);
+        fields.put("dlq.handlers", failures.keySet().stream()
+            .map(handler -> handler.getClass().getName())
+            .collect(Collectors.joining(",")));
+        fields.put("dlq.error", String.valueOf(failure));
+        try {
+            streamOps.add(StreamRecords.newRecord().in(deadLetterStream).ofMap(fields));
+            deadLettered.increment();
+            pendingAcks.add(record.getId().getValue());
+            log.error("Moved record {} from {} to {} after {} attempts",
+                record.getId(), stream, deadLetterStream, properties.getMaxAttempts(), failure);
+        } catch (DataAccessException e) {
+            // Leave it pending; it will be reclaimed and retried after a backoff
+            handling.remove(record.getId().getValue());
+            log.error("Failed to dead-letter record {} from {}: {}", record.getId(), stream, e.getMessage());
+        }
+    }
+    
+    private void flushAcksSafely() {
+        try {
+            flushAcks();
+        } catch (RuntimeException e) {
+            log.warn("Acknowledging records on stream {} failed: {}", stream, e.getMessage());
+        }
+    }
+    
+    private void flushAcks() {
+        while (!pendingAcks.isEmpty()) {
+            List<String> batch = new ArrayList<>(Math.min(pendingAcks.size(), properties.getAckBatchSize()));
+            String id;
+            while (batch.size() < properties.getAckBatchSize() && (id = pendingAcks.poll()) != null) {
+                batch.add(id);
+            }
+            try {
+                streamOps.acknowledge(stream, group, batch.toArray(String[]::new));
+            } catch (RuntimeException e) {
+                pendingAcks.addAll(batch);
+                throw e;
+            }
+            batch.forEach(handling::remove);
+            acked.increment(batch.size());
+        }
+    }
+    
+    private void reclaimSafely() {
+        try {
+            reclaim();
+        } catch (RuntimeException e) {
+            log.warn("Reclaiming pending entries on stream {} failed: {}", stream, e.getMessage());
+        }
+    }
+    
+    /**
+     * Takes over entries that were read but never acknowledged, walking the pending list with
+     * XPENDING and claiming with XCLAIM. Entries this engine is still handling are skipped, since
+     * under a backlog they can sit queued for longer than the idle threshold. An entry that has
+     * been delivered before must stay idle for twice as long per earlier delivery, up to
+     * {@code claimBackoffMax}, so a record that keeps failing is not retried on every pass. Only as
+     * many entries are claimed as there is room in flight.
+     */
+    private void reclaim() {
+        String start = StreamIds.BEGINNING;
+        while (running) {
+            int room = Math.min(properties.getClaimBatchSize(), inFlight.availablePermits());
+            if (room == 0 || !inFlight.tryAcquire(room)) {
+                return;
+            }
+            PendingMessages page = streamOps.pending(stream, group,
+                Range.rightUnbounded(Range.Bound.inclusive(start)), properties.getClaimBatchSize());
+            List<String> due = new ArrayList<>(room);
+            String last = null;
+            boolean wholePage = true;
+            for (PendingMessage message : page) {
+                if (due.size() == room) {
+                    wholePage = false;
+                    break;
+                }
+                last = message.getIdAsString();
+                if (isDue(message)) {
+                    due.add(last);
+                }
+            }
+            List<MapRecord<String, String, String>> claimed = due.isEmpty() ? List.of()
+                : streamOps.claim(stream, group, consumerName,
+                    XClaimOptions.minIdle(properties.getClaimMinIdle()).ids(due.toArray(String[]::new)));
+            inFlight.release(room - claimed.size());
+            for (MapRecord<String, String, String> record : claimed) {
+                reclaimed.increment();
+                dispatch(record);
+            }
+            if (last == null || (wholePage && page.size() < properties.getClaimBatchSize())) {
+                return;
+            }
+            start = StreamIds.next(last);
+        }
+    }
+    
+    private boolean isDue(PendingMessage message) {
+        if (handling.contains(message.getIdAsString())) {
+            return false;
+        }
+        long redeliveries = Math.min(Math.max(message.getTotalDeliveryCount() - 1, 0), 20);
+        Duration minIdle = properties.getClaimMinIdle();
+        Duration backoff = minIdle.multipliedBy(1L << redeliveries);
+        if (backoff.compareTo(properties.getClaimBackoffMax()) > 0) {
+            backoff = properties.getClaimBackoffMax().compareTo(minIdle) > 0 ? properties.getClaimBackoffMax() : minIdle;
+        }
+        return message.getElapsedTimeSinceLastDelivery().compareTo(backoff) >= 0;
+    }
+    
+    private void refreshLagSafely() {
+        try {
+            for (StreamInfo.XInfoGroup info : streamOps.groups(stream)) {
+                if (group.equals(info.groupName())) {
+                    pending.set(info.pendingCount());
+                    Object groupLag = info.getRaw().get("lag");
+                    if (groupLag instanceof Number number) {
+                        lag.set(number.longValue());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not refresh lag for stream {}: {}", stream, e.getMessage());
+        }
+    }
+    
+    private void ensureGroup() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                connection.streamCommands().xGroupCreate(bytes(stream), group, ReadOffset.from("0-0"), true));
+        } catch (DataAccessException e) {
+            String reason = e.getMostSpecificCause().getMessage();
+            if (reason == null || !reason.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+    
+    private Counter records(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("sirius.stream.records")
+            .tags("stream", stream, "group", group, "outcome", outcome)
+            .register(meterRegistry);
+    }
+    
+    private ThreadFactory threadFactory(String role) {
+        AtomicInteger sequence = new AtomicInteger();
+        String prefix = "stream-" + stream.replace(':', '-') + "-" + role;
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private ThreadFactory virtualThreadFactory(String role) {
+        return new VirtualThreadTaskExecutor("stream-" + stream.replace(':', '-') + "-" + role + "-")
+            .getVirtualThreadFactory();
+    }
+    
+    private void pause() {
+        try {
+            Thread.sleep(properties.getBlockTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static String defaultConsumerName() {
+        long pid = ProcessHandle.current().pid();
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + pid;
+        } catch (UnknownHostException e) {
+            return "consumer-" + pid;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.sirius.infra.stream;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Tuning for a {@link StreamConsumerEngine}
+ */
+@Data
+public class StreamConsumerProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * Consumer name within the group. Must be unique per instance and stable across restarts
+     * so the instance picks up its own pending entries; defaults to host name and PID.
+     */
+    private String consumerName;
+    
+    /**
+     * Maximum number of records fetched by a single XREADGROUP.
+     */
+    private int batchSize = 500;
+    
+    /**
+     * How long XREADGROUP blocks waiting for new records.
+     */
+    private Duration blockTimeout = Duration.ofMillis(100);
+    
+    /**
+     * Number of ordered dispatch lanes. Records with the same partition key always go to the same lane.
+     */
+    private int partitions = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * Record field whose value selects the dispatch lane, e.g. the account id.
+     */
+    private String partitionKeyField = "accountId";
+    
+    /**
+     * Upper bound of records read but not yet acknowledged. Reading pauses once it is reached.
+     */
+    private int maxInFlight = 10_000;
+    
+    private int ackBatchSize = 1_000;
+    
+    private Duration ackInterval = Duration.ofMillis(50);
+    
+    /**
+     * Pending entries idle for longer than this are assumed to belong to a crashed consumer and are reclaimed.
+     */
+    private Duration claimMinIdle = Duration.ofMinutes(1);
+    
+    /**
+     * Upper bound of the idle time required before reclaiming an entry again. Each earlier
+     * delivery doubles {@code claimMinIdle}, up to this.
+     */
+    private Duration claimBackoffMax = Duration.ofMinutes(30);
+    
+    private Duration claimInterval = Duration.ofSeconds(30);
+    
+    private int claimBatchSize = 500;
+    
+    /**
+     * Attempts per handler and record before the record is moved to the dead-letter stream.
+     */
+    private int maxAttempts = 3;
+    
+    /**
+     * Pause before the second attempt of a handler. Each further attempt waits twice as long, up
+     * to {@code retryBackoffMax}.
+     */
+    private Duration retryBackoff = Duration.ofMillis(100);
+    
+    private Duration retryBackoffMax = Duration.ofSeconds(2);
+    
+    /**
+     * Dead-letter stream; defaults to the source stream name suffixed with {@code :dlq}.
+     */
+    private String deadLetterStream;
+    
+    private Duration lagRefreshInterval = Duration.ofSeconds(5);
+    
+    /**
+     * Run partition lanes on virtual threads (Java 21+). Lanes still process one record at a
+     * time, so per-key ordering is unchanged.
+     */
+    private boolean virtualThreads;
+}
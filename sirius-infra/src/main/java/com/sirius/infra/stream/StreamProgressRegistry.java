@@ -0,0 +1,90 @@
+package com.sirius.infra.stream;
+
+import com.sirius.core.event.StreamIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Where each {@link StreamTailer} in the cluster has read up to. Consumer groups track their
+ * progress in Redis themselves, but tailers use plain XREAD, so they publish it here for the
+ * {@link StreamRetentionManager} to hold back trimming.
+ * <p>
+ * Kept as one hash per stream, {@code tailer -> "<last id>|<reported at>"}; entries of tailers
+ * that stopped reporting are dropped once stale.
+ */
+@Slf4j
+public class StreamProgressRegistry {
+    
+    private static final String KEY_PREFIX = "sirius:stream:progress:";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final Duration reportInterval;
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+    
+    public StreamProgressRegistry(StringRedisTemplate redisTemplate, Duration reportInterval) {
+        this.redisTemplate = redisTemplate;
+        this.reportInterval = reportInterval;
+    }
+    
+    /**
+     * How often tailers should report.
+     */
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+    
+    /**
+     * Records that the tailer has handled everything up to and including {@code lastId}.
+     */
+    public void report(String stream, String tailer, String lastId) {
+        try {
+            redisTemplate.opsForHash().put(KEY_PREFIX + stream, member(tailer),
+                lastId + '|' + System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.debug("Could not report progress of {} on {}: {}", tailer, stream, e.getMessage());
+        }
+    }
+    
+    public void remove(String stream, String tailer) {
+        try {
+            redisTemplate.opsForHash().delete(KEY_PREFIX + stream, member(tailer));
+        } catch (DataAccessException e) {
+            log.debug("Could not remove progress of {} on {}: {}", tailer, stream, e.getMessage());
+        }
+    }
+    
+    /**
+     * Drops stale progress and returns the last id handled by the slowest remaining tailer.
+     *
+     * @return null if no tailer reported recently
+     */
+    @Nullable
+    public String slowest(String stream, Duration staleAfter) {
+        long staleBefore = System.currentTimeMillis() - staleAfter.toMillis();
+        String slowest = null;
+        for (Map.Entry<Object, Object> entry : redisTemplate.opsForHash().entries(KEY_PREFIX + stream).entrySet()) {
+            String value = (String) entry.getValue();
+            int separator = value.indexOf('|');
+            if (Long.parseLong(value.substring(separator + 1)) < staleBefore) {
+                redisTemplate.opsForHash().delete(KEY_PREFIX + stream, entry.getKey());
+                log.info("Dropped stale progress of tailer {} on {}", entry.getKey(), stream);
+                continue;
+            }
+            String lastId = value.substring(0, separator);
+            if (slowest == null || StreamIds.compare(lastId, slowest) < 0) {
+                slowest = lastId;
+            }
+        }
+        return slowest;
+    }
+    
+    private String member(String tailer) {
+        return nodeId + '/' + tailer;
+    }
+}
@@ -0,0 +1,14 @@
+package com.sirius.infra.stream;
+
+import org.springframework.data.redis.connection.stream.MapRecord;
+
+/**
+ * Processes a single stream record. Throwing signals a failure; the handler is retried and,
+ * once attempts are exhausted, the record is moved to the dead-letter stream. Other handlers of
+ * the same record are not run again.
+ */
+@FunctionalInterface
+public interface StreamRecordHandler {
+    
+    void handle(MapRecord<String, String, String> record) throws Exception;
+}
@@ -0,0 +1,155 @@
+package com.sirius.infra.stream;
+
+import com.sirius.core.event.StreamArchive;
+import com.sirius.core.event.StreamEntry;
+import com.sirius.core.event.StreamIds;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a stream from the {@link StreamArchive} followed by what is still in Redis, so a
+ * consumer can be rebuilt from any point in its history.
+ * <p>
+ * Entries are only trimmed from Redis once archived, so a range missing from Redis is always in
+ * the archive. Each live batch is read between two looks at the archive; if the archive moved on
+ * meanwhile, entries may have been trimmed under the read and the archive is replayed again
+ * first.
+ */
+@Slf4j
+public class StreamReplayer {
+    
+    private final StringRedisTemplate redisTemplate;
+    private final StreamOperations<String, String, String> streamOps;
+    private final StreamArchive archive;
+    private final int batchSize;
+    
+    public StreamReplayer(StringRedisTemplate redisTemplate, StreamArchive archive, int batchSize) {
+        this.redisTemplate = redisTemplate;
+        this.streamOps = redisTemplate.opsForStream();
+        this.archive = archive;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Hands every entry after {@code afterId} to the handler in stream order, from the archive and
+     * then from Redis up to the current end of the stream. A handler failure aborts the replay.
+     *
+     * @return the id of the last entry handled, or {@code afterId} if there were none
+     */
+    public String replay(String stream, String afterId, StreamRecordHandler handler) {
+        String last = afterId;
+        while (true) {
+            String archived = archive.lastArchivedId(stream);
+            if (archived != null && StreamIds.compare(archived, last) > 0) {
+                last = replayArchive(stream, last, handler);
+            }
+            List<MapRecord<String, String, String>> records = streamOps.range(stream,
+                Range.closed(StreamIds.next(last), "+"), Limit.limit().count(batchSize));
+            if (!Objects.equals(archived, archive.lastArchivedId(stream))) {
+                continue;
+            }
+            if (records == null || records.isEmpty()) {
+                return last;
+            }
+            for (MapRecord<String, String, String> record : records) {
+                handle(handler, record);
+            }
+            last = records.get(records.size() - 1).getId().getValue();
+            if (records.size() < batchSize) {
+                return last;
+            }
+        }
+    }
+    
+    /**
+     * Hands the archived entries after {@code afterId} to the handler, without reading Redis.
+     *
+     * @return the id of the last entry handled, or {@code afterId} if there were none
+     */
+    public String replayArchive(String stream, String afterId, StreamRecordHandler handler) {
+        String[] last = {afterId};
+        archive.replay(stream, afterId, entry -> {
+            handle(handler, toRecord(stream, entry));
+            last[0] = entry.getId();
+        });
+        return last[0];
+    }
+    
+    /**
+     * Replays the stream after {@code afterId} into the handler and then points the consumer
+     * group just past the replayed entries, creating it if needed, so the group's consumers
+     * carry on from where the replay ended. Pending entries of an existing group are left as
+     * they are.
+     *
+     * @return the id the group now resumes after
+     */
+    public String rebuildGroup(String stream, String group, String afterId, StreamRecordHandler handler) {
+        String last = replay(stream, afterId, handler);
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                connection.streamCommands().xGroupCreate(bytes(stream), group, ReadOffset.from(last), true));
+        } catch (DataAccessException e) {
+            String reason = e.getMostSpecificCause().getMessage();
+            if (reason == null || !reason.contains("BUSYGROUP")) {
+                throw e;
+            }
+            setGroupId(stream, group, last);
+        }
+        log.info("Rebuilt group {} on {} after {}", group, stream, last);
+        return last;
+    }
+    
+    private void setGroupId(String stream, String group, String id) {
+        redisTemplate.execute((RedisCallback<String>) connection -> {
+            @SuppressWarnings("unchecked")
+            RedisStreamAsyncCommands<byte[], byte[]> commands =
+                (RedisStreamAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            try {
+                return commands.xgroupSetid(XReadArgs.StreamOffset.from(bytes(stream), id), bytes(group))
+                    .get(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                throw new IllegalStateException("XGROUP SETID failed", e);
+            }
+        });
+    }
+    
+    private static void handle(StreamRecordHandler handler, MapRecord<String, String, String> record) {
+        try {
+            handler.handle(record);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Replaying " + record.getId() + " failed", e);
+        }
+    }
+    
+    private static MapRecord<String, String, String> toRecord(String stream, StreamEntry entry) {
+        return StreamRecords.newRecord()
+            .in(stream)
+            .withId(RecordId.of(entry.getId()))
+            .ofMap(entry.getFields());
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
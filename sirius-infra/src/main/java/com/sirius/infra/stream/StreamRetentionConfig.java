@@ -0,0 +1,43 @@
+package com.sirius.infra.stream;
+
+import com.sirius.core.event.StreamArchive;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Stream retention. Trimming needs a {@link StreamArchive} to move entries to first, so without
+ * one streams are left untrimmed.
+ */
+@Configuration
+@EnableConfigurationProperties(StreamRetentionProperties.class)
+@ConditionalOnProperty(prefix = "sirius.stream.retention", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StreamRetentionConfig {
+    
+    @Bean
+    public StreamProgressRegistry streamProgressRegistry(StringRedisTemplate redisTemplate,
+                                                         StreamRetentionProperties properties) {
+        return new StreamProgressRegistry(redisTemplate, properties.getProgressInterval());
+    }
+    
+    @Bean
+    @ConditionalOnBean(StreamArchive.class)
+    public StreamReplayer streamReplayer(StringRedisTemplate redisTemplate, StreamArchive streamArchive,
+                                         StreamRetentionProperties properties) {
+        return new StreamReplayer(redisTemplate, streamArchive, properties.getSegmentSize());
+    }
+    
+    @Bean
+    @ConditionalOnBean(StreamArchive.class)
+    public StreamRetentionManager streamRetentionManager(StringRedisTemplate redisTemplate, StreamArchive streamArchive,
+                                                         StreamProgressRegistry streamProgressRegistry,
+                                                         StreamRetentionProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        return new StreamRetentionManager(redisTemplate, streamArchive, streamProgressRegistry, properties,
+            meterRegistry);
+    }
+}
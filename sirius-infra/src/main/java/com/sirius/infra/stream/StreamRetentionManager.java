@@ -0,0 +1,237 @@
+package com.sirius.infra.stream;
+
+import com.sirius.core.event.StreamArchive;
+import com.sirius.core.event.StreamEntry;
+import com.sirius.core.event.StreamIds;
+import io.lettuce.core.XTrimArgs;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps streams from growing without bound: entries every consumer is done with are copied to
+ * the {@link StreamArchive} and then trimmed from Redis with an approximate {@code XTRIM MINID}.
+ * <p>
+ * A consumer group is done with everything before its oldest pending entry, or after its last
+ * delivered entry if nothing is pending; a {@link StreamTailer} with everything up to the id it
+ * last reported to the {@link StreamProgressRegistry}. Entries younger than the minimum age are
+ * always kept, and entries older than the maximum age are trimmed regardless, so a stuck consumer
+ * cannot hold the stream forever; it has to be rebuilt with the {@link StreamReplayer}.
+ * <p>
+ * Runs on every node, with a Redis lock per stream so that only one node works on it at a time.
+ */
+@Slf4j
+public class StreamRetentionManager {
+    
+    private static final String LOCK_PREFIX = "sirius:stream:retention:lock:";
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final StreamOperations<String, String, String> streamOps;
+    private final StreamArchive archive;
+    private final StreamProgressRegistry progress;
+    private final StreamRetentionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicLong> lengths = new ConcurrentHashMap<>();
+    
+    public StreamRetentionManager(StringRedisTemplate redisTemplate, StreamArchive archive,
+                                  StreamProgressRegistry progress, StreamRetentionProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.streamOps = redisTemplate.opsForStream();
+        this.archive = archive;
+        this.progress = progress;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Scheduled(fixedDelayString = "${sirius.stream.retention.interval:30000}")
+    public void enforce() {
+        for (String stream : properties.getStreams()) {
+            try {
+                enforce(stream);
+            } catch (RuntimeException e) {
+                log.warn("Retention of stream {} failed, will retry: {}", stream, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Archives and trims one stream, unless another node is already doing so.
+     *
+     * @return the number of entries trimmed
+     */
+    public long enforce(String stream) {
+        String token = nodeId + ':' + System.nanoTime();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + stream, token, properties.getLockTimeout());
+        if (!Boolean.TRUE.equals(locked)) {
+            return 0;
+        }
+        try {
+            Long length = streamOps.size(stream);
+            if (length == null || length == 0) {
+                length(stream).set(0);
+                return 0;
+            }
+            String trimBefore = trimPoint(stream);
+            long archived = archiveBefore(stream, trimBefore);
+            long trimmed = trim(stream, trimBefore);
+            counter("sirius.stream.retention.archived", stream).increment(archived);
+            counter("sirius.stream.retention.trimmed", stream).increment(trimmed);
+            length(stream).set(length - trimmed);
+            if (archived > 0 || trimmed > 0) {
+                log.info("Archived {} and trimmed {} entries of {} before {}", archived, trimmed, stream, trimBefore);
+            }
+            return trimmed;
+        } finally {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_PREFIX + stream), token);
+        }
+    }
+    
+    /**
+     * @return the id before which entries may be trimmed
+     */
+    String trimPoint(String stream) {
+        long now = System.currentTimeMillis();
+        String point = StreamIds.atMillis(now - properties.getMinAge().toMillis());
+        String needed = neededByConsumers(stream);
+        if (needed != null && StreamIds.compare(needed, point) < 0) {
+            point = needed;
+        }
+        String expired = StreamIds.atMillis(now - properties.getMaxAge().toMillis());
+        if (StreamIds.compare(point, expired) < 0) {
+            counter("sirius.stream.retention.forced", stream).increment();
+            log.warn("A consumer of {} still needs {}, trimming past it to {}", stream, point, expired);
+            point = expired;
+        }
+        return point;
+    }
+    
+    /**
+     * @return the oldest id a consumer still needs, or null if there are no consumers
+     */
+    @Nullable
+    private String neededByConsumers(String stream) {
+        String needed = null;
+        for (StreamInfo.XInfoGroup group : streamOps.groups(stream)) {
+            String groupNeeds = group.pendingCount() > 0
+                ? streamOps.pending(stream, group.groupName()).minMessageId()
+                : StreamIds.next(group.lastDeliveredId());
+            needed = earliest(needed, groupNeeds);
+        }
+        String slowestTailer = progress.slowest(stream, properties.getProgressStaleAfter());
+        if (slowestTailer != null) {
+            needed = earliest(needed, StreamIds.next(slowestTailer));
+        }
+        return needed;
+    }
+    
+    /**
+     * Copies the entries not archived yet up to {@code before}, in segments.
+     */
+    private long archiveBefore(String stream, String before) {
+        String lastArchived = archive.lastArchivedId(stream);
+        String from = lastArchived != null ? StreamIds.next(lastArchived) : StreamIds.BEGINNING;
+        long archived = 0;
+        int segmentSize = properties.getSegmentSize();
+        while (StreamIds.compare(from, before) < 0) {
+            List<MapRecord<String, String, String>> records = streamOps.range(stream,
+                Range.closed(from, before), Limit.limit().count(segmentSize));
+            List<StreamEntry> segment = new ArrayList<>(records != null ? records.size() : 0);
+            if (records != null) {
+                for (MapRecord<String, String, String> record : records) {
+                    String id = record.getId().getValue();
+                    if (StreamIds.compare(id, before) >= 0) {
+                        break;
+                    }
+                    segment.add(new StreamEntry(id, record.getValue()));
+                }
+            }
+            if (segment.isEmpty()) {
+                break;
+            }
+            archive.append(stream, segment);
+            archived += segment.size();
+            if (segment.size() < segmentSize) {
+                break;
+            }
+            from = StreamIds.next(segment.get(segment.size() - 1).getId());
+        }
+        return archived;
+    }
+    
+    /**
+     * Trims in several calls if needed: an approximate XTRIM removes at most 100 macro nodes at a
+     * time, which keeps each call short.
+     */
+    private long trim(String stream, String before) {
+        long total = 0;
+        long trimmed;
+        do {
+            trimmed = trimOnce(stream, before);
+            total += trimmed;
+        } while (trimmed > 0);
+        return total;
+    }
+    
+    private long trimOnce(String stream, String before) {
+        Long trimmed = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            @SuppressWarnings("unchecked")
+            RedisStreamAsyncCommands<byte[], byte[]> commands =
+                (RedisStreamAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            try {
+                return commands.xtrim(stream.getBytes(StandardCharsets.UTF_8),
+                    XTrimArgs.Builder.minId(before).approximateTrimming()).get(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                throw new IllegalStateException("XTRIM failed", e);
+            }
+        });
+        return trimmed != null ? trimmed : 0;
+    }
+    
+    private static String earliest(@Nullable String a, String b) {
+        return a == null || StreamIds.compare(b, a) < 0 ? b : a;
+    }
+    
+    private Counter counter(String name, String stream) {
+        return Counter.builder(name).tag("stream", stream).register(meterRegistry);
+    }
+    
+    private AtomicLong length(String stream) {
+        return lengths.computeIfAbsent(stream, s -> {
+            AtomicLong length = new AtomicLong();
+            Gauge.builder("sirius.stream.length", length, AtomicLong::get)
+                .tag("stream", s)
+                .register(meterRegistry);
+            return length;
+        });
+    }
+}
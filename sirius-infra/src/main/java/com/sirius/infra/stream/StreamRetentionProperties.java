@@ -0,0 +1,52 @@
+package com.sirius.infra.stream;
+
+import com.sirius.core.event.EventStreams;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "sirius.stream.retention")
+public class StreamRetentionProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * Streams to archive and trim.
+     */
+    private List<String> streams = new ArrayList<>(List.of(EventStreams.TREASURY_EVENTS));
+    
+    /**
+     * Entries younger than this stay in Redis even once every consumer has read them.
+     */
+    private Duration minAge = Duration.ofHours(1);
+    
+    /**
+     * Entries older than this are archived and trimmed even if a consumer has not read them yet;
+     * such a consumer has to be rebuilt from the archive.
+     */
+    private Duration maxAge = Duration.ofDays(7);
+    
+    /**
+     * Maximum number of entries per archive segment.
+     */
+    private int segmentSize = 10_000;
+    
+    /**
+     * How often tailers publish how far they have read.
+     */
+    private Duration progressInterval = Duration.ofSeconds(5);
+    
+    /**
+     * Tailer progress not refreshed for this long belongs to a stopped node and is dropped.
+     */
+    private Duration progressStaleAfter = Duration.ofMinutes(5);
+    
+    /**
+     * Upper bound on one retention run, after which another node may take over the stream.
+     */
+    private Duration lockTimeout = Duration.ofMinutes(5);
+}
@@ -0,0 +1,204 @@
+package com.sirius.infra.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * Follows a stream with plain XREAD, so that every node sees every entry, for state that each
+ * node keeps in memory. Unlike {@link StreamConsumerEngine} there is no group, no acknowledgement
+ * and no retry: entries are handled one at a time in stream order, and an entry whose handler
+ * throws is logged and skipped so one bad entry cannot stall the node.
+ * <p>
+ * With a {@link StreamReplayer}, a tailer starting behind the entries still in Redis first
+ * catches up from the archive. With a {@link StreamProgressRegistry}, it reports how far it has
+ * read, so that retention does not trim entries it still needs.
+ */
+@Slf4j
+public class StreamTailer implements SmartLifecycle {
+    
+    private final StreamOperations<String, String, String> streamOps;
+    private final String stream;
+    private final Supplier<String> startAfter;
+    private final StreamRecordHandler handler;
+    private final int batchSize;
+    private final Duration blockTimeout;
+    private final String name;
+    @Nullable
+    private final StreamReplayer replayer;
+    @Nullable
+    private final StreamProgressRegistry progress;
+    private final long progressIntervalMillis;
+    
+    private final Counter processed;
+    private final Counter failed;
+    
+    private volatile boolean running;
+    private volatile String lastId;
+    private Thread poller;
+    
+    /**
+     * @param startAfter called on start for the id to resume after, e.g. from a checkpoint
+     */
+    public StreamTailer(StringRedisTemplate redisTemplate, String stream, Supplier<String> startAfter,
+                        StreamRecordHandler handler, int batchSize, Duration blockTimeout, MeterRegistry meterRegistry) {
+        this(redisTemplate, stream, stream, startAfter, handler, batchSize, blockTimeout, null, null, meterRegistry);
+    }
+    
+    /**
+     * @param name     identifies the tailer in the progress registry
+     * @param replayer to catch up from the archive on start, if entries may have been trimmed
+     * @param progress to report progress to, if the stream is trimmed
+     */
+    public StreamTailer(StringRedisTemplate redisTemplate, String stream, String name, Supplier<String> startAfter,
+                        StreamRecordHandler handler, int batchSize, Duration blockTimeout,
+                        @Nullable StreamReplayer replayer, @Nullable StreamProgressRegistry progress,
+                        MeterRegistry meterRegistry) {
+        this.streamOps = redisTemplate.opsForStream();
+        this.stream = stream;
+        this.startAfter = startAfter;
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.blockTimeout = blockTimeout;
+        this.name = name;
+        this.replayer = replayer;
+        this.progress = progress;
+        this.progressIntervalMillis = progress != null ? progress.getReportInterval().toMillis() : 0;
+        this.processed = records(meterRegistry, "processed");
+        this.failed = records(meterRegistry, "failed");
+    }
+    
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        lastId = startAfter.get();
+        if (progress != null) {
+            progress.report(stream, name, lastId);
+        }
+        running = true;
+        poller = new Thread(this::pollLoop, "stream-" + stream.replace(':', '-') + "-tailer");
+        poller.setDaemon(true);
+        poller.start();
+        log.info("Tailing stream {} after {}", stream, lastId);
+    }
+    
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            poller.join(blockTimeout.toMillis() * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (progress != null) {
+            progress.remove(stream, name);
+        }
+        log.info("Stopped tailing stream {} at {}", stream, lastId);
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Id of the last entry handled, or the start position if none has been read yet.
+     */
+    public String getLastId() {
+        return lastId;
+    }
+    
+    private void pollLoop() {
+        if (replayer != null) {
+            catchUp(replayer);
+        }
+        long nextReport = System.currentTimeMillis() + progressIntervalMillis;
+        while (running) {
+            if (progress != null && System.currentTimeMillis() >= nextReport) {
+                progress.report(stream, name, lastId);
+                nextReport = System.currentTimeMillis() + progressIntervalMillis;
+            }
+            try {
+                List<MapRecord<String, String, String>> records = streamOps.read(
+                    StreamReadOptions.empty().count(batchSize).block(blockTimeout),
+                    StreamOffset.create(stream, ReadOffset.from(lastId)));
+                if (records != null) {
+                    records.forEach(this::process);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Reading from stream {} failed: {}", stream, e.getMessage());
+                pause();
+            }
+        }
+    }
+    
+    /**
+     * Replays from the archive and what is left in Redis up to the end of the stream, as plain
+     * XREAD would silently skip entries trimmed since {@link #lastId}.
+     */
+    private void catchUp(StreamReplayer replayer) {
+        String startedAfter = lastId;
+        while (running) {
+            try {
+                replayer.replay(stream, lastId, record -> {
+                    if (!running) {
+                        throw new CancellationException();
+                    }
+                    process(record);
+                });
+                if (!startedAfter.equals(lastId)) {
+                    log.info("Caught up on stream {} from {} to {}", stream, startedAfter, lastId);
+                }
+                return;
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Replaying stream {} after {} failed: {}", stream, lastId, e.getMessage());
+                pause();
+            }
+        }
+    }
+    
+    private void process(MapRecord<String, String, String> record) {
+        try {
+            handler.handle(record);
+            processed.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Skipping record {} on stream {}", record.getId(), stream, e);
+        }
+        lastId = record.getId().getValue();
+    }
+    
+    private Counter records(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("sirius.stream.tailer.records")
+            .tags("stream", stream, "outcome", outcome)
+            .register(meterRegistry);
+    }
+    
+    private void pause() {
+        try {
+            Thread.sleep(blockTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.sirius.infra.stream;
+
+/**
+ * Marker for handlers of {@link RedisStreamConfig#TREASURY_EVENTS_STREAM}. Every bean of this
+ * type receives each treasury event, in stream order per partition key.
+ */
+public interface TreasuryEventHandler extends StreamRecordHandler {
+}
@@ -0,0 +1,45 @@
+package com.sirius.infra.cache;
+
+import com.sirius.infra.serialization.SerializerType;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearCachePropertiesTest {
+    
+    @Test
+    void partialOverrideInheritsConfiguredDefaults() {
+        NearCacheProperties properties = bind(Map.of(
+            "sirius.cache.defaults.serializer", "binary",
+            "sirius.cache.defaults.l1-ttl", "30s",
+            "sirius.cache.caches.accounts.ttl", "5m"));
+        
+        NearCacheProperties.Spec spec = properties.specFor("accounts");
+        
+        assertThat(spec.getTtl()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(spec.getSerializer()).isEqualTo(SerializerType.BINARY);
+        assertThat(spec.getL1Ttl()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(spec.getL1MaxSize()).isEqualTo(10_000L);
+    }
+    
+    @Test
+    void unconfiguredDefaultsAreBuiltIn() {
+        NearCacheProperties properties = bind(Map.of("sirius.cache.caches.accounts.l1-enabled", "false"));
+        
+        NearCacheProperties.Spec spec = properties.specFor("accounts");
+        
+        assertThat(spec.getL1Enabled()).isFalse();
+        assertThat(spec).usingRecursiveComparison().ignoringFields("l1Enabled").isEqualTo(NearCacheProperties.Spec.builtIn());
+        assertThat(properties.specFor("other")).isEqualTo(NearCacheProperties.Spec.builtIn());
+    }
+    
+    private static NearCacheProperties bind(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+            .bindOrCreate("sirius.cache", NearCacheProperties.class);
+    }
+}